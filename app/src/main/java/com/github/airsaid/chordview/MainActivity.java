@@ -4,6 +4,7 @@ import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.widget.RadioGroup;
+import com.github.airsaid.library.audio.ChordPlayer;
 import com.github.airsaid.library.widget.Chord;
 import com.github.airsaid.library.widget.ChordView;
 
@@ -15,6 +16,7 @@ public class MainActivity extends AppCompatActivity implements RadioGroup.OnChec
     private ChordView   mChordView;
     private List<Chord> mChords;
     private int         mIndex;
+    private ChordPlayer mPlayer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,6 +38,20 @@ public class MainActivity extends AppCompatActivity implements RadioGroup.OnChec
         mChords.add(new Chord(new int[]{-1, 3, 2, 0, 1, 0}));
         mChords.add(new Chord(new int[]{3, 3, 5, 5, 5, 3}));
         mChordView.setChord(mChords.get(mIndex));
+
+        mPlayer = new ChordPlayer();
+        mChordView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                mPlayer.play(mChordView.getChord());
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mPlayer.release();
     }
 
     public void onPrev(View v) {
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Process;
+
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+/**
+ * 和弦播放器。在后台线程中通过 {@link PluckSynth} 按块合成声音并写入流模式的 AudioTrack，
+ * 块大小为 {@link #BLOCK_FRAMES} 帧，合成期间不会创建任何对象。没有声音时线程会挂起，不占用 CPU。
+ *
+ * <pre>
+ * chordView.setOnClickListener(new View.OnClickListener() {
+ *     public void onClick(View v) {
+ *         player.play(chordView.getChord());
+ *     }
+ * });
+ * </pre>
+ *
+ * 不再使用时需要调用 {@link #release()}。
+ *
+ * @author airsaid
+ */
+public class ChordPlayer {
+
+    /** 每次合成的帧数 */
+    public static final int BLOCK_FRAMES = 256;
+
+    private final PluckSynth mSynth;
+    private final AudioTrack mTrack;
+    private final Thread mThread;
+    private final Object mLock = new Object();
+    private volatile Tuning mTuning = Tuning.STANDARD;
+    private volatile int mStrumMillis = 60;
+    private boolean mReleased;
+
+    public ChordPlayer() {
+        this(PluckSynth.DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * 创建播放器。
+     *
+     * @param sampleRate 采样率
+     */
+    public ChordPlayer(int sampleRate) {
+        mSynth = new PluckSynth(sampleRate);
+        int minBufferSize = AudioTrack.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        mTrack = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, AudioFormat.CHANNEL_OUT_MONO,
+                AudioFormat.ENCODING_PCM_16BIT, Math.max(minBufferSize, BLOCK_FRAMES * 2 * 2),
+                AudioTrack.MODE_STREAM);
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "ChordPlayer");
+        mThread.start();
+    }
+
+    public PluckSynth getSynth() {
+        return mSynth;
+    }
+
+    public void setTuning(Tuning tuning) {
+        mTuning = tuning;
+    }
+
+    public Tuning getTuning() {
+        return mTuning;
+    }
+
+    /**
+     * 设置扫弦时长。
+     *
+     * @param strumMillis 第一根弦与最后一根弦发声的间隔，单位毫秒
+     */
+    public void setStrumMillis(int strumMillis) {
+        mStrumMillis = Math.max(0, strumMillis);
+    }
+
+    public int getStrumMillis() {
+        return mStrumMillis;
+    }
+
+    /**
+     * 下扫播放和弦。
+     *
+     * @param chord 和弦，为 NULL 时不播放
+     */
+    public void play(Chord chord) {
+        play(chord, true);
+    }
+
+    /**
+     * 播放和弦。
+     *
+     * @param chord 和弦，为 NULL 时不播放
+     * @param down  是否为下扫
+     */
+    public void play(Chord chord, boolean down) {
+        if (chord == null || chord.getFrets() == null) return;
+        mSynth.pluck(chord, mTuning, mStrumMillis, down);
+        synchronized (mLock) {
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * 停止播放。
+     */
+    public void stop() {
+        mSynth.stop();
+    }
+
+    /**
+     * 停止播放并释放音频资源，之后不能再使用。
+     */
+    public void release() {
+        synchronized (mLock) {
+            mReleased = true;
+            mLock.notifyAll();
+        }
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mTrack.release();
+    }
+
+    private void loop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        short[] block = new short[BLOCK_FRAMES];
+        boolean playing = false;
+        while (true) {
+            synchronized (mLock) {
+                while (!mReleased && mSynth.isIdle()) {
+                    if (playing) {
+                        mTrack.pause();
+                        mTrack.flush();
+                        playing = false;
+                    }
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (mReleased) {
+                    mTrack.stop();
+                    return;
+                }
+            }
+            if (!playing) {
+                mTrack.play();
+                playing = true;
+            }
+            mSynth.render(block, 0, BLOCK_FRAMES);
+            mTrack.write(block, 0, BLOCK_FRAMES);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import com.github.airsaid.library.theory.Notes;
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.ChordPool;
+import com.github.airsaid.library.widget.PackedChord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 和弦识别器。通过 {@link Chromagram} 计算一段音频的色度图，与每个根音、每种和弦类型的模板（包含和弦音的前几个泛音）
+ * 比较余弦相似度，得到最匹配的和弦，再在指板上搜索该和弦的可弹奏指法，可以直接交给 ChordView 显示。
+ *
+ * 逐块计算 FFT 和色度的循环中不会创建对象，但每次识别会返回新的 {@link Match}，
+ * {@link #recognize(InputStream)} 还会创建 {@link WavReader}，采样率不同时会创建新的 {@link Chromagram}。
+ * 单核上每秒音频约需 3 毫秒（数百倍于实时），可以用于批量标注录音。
+ * 同一个实例不要在多个线程中同时使用。
+ *
+ * @author airsaid
+ */
+public class ChordRecognizer {
+
+    /** 和弦类型的后缀 */
+    private static final String[] QUALITY_SUFFIXES = {"", "m", "7", "m7", "maj7", "sus2", "sus4", "dim", "aug"};
+    /** 和弦类型的音程（相对根音的半音数） */
+    private static final int[][] QUALITY_INTERVALS = {
+            {0, 4, 7}, {0, 3, 7}, {0, 4, 7, 10}, {0, 3, 7, 10}, {0, 4, 7, 11},
+            {0, 2, 7}, {0, 5, 7}, {0, 3, 6}, {0, 4, 8}
+    };
+    /** 和弦类型的先验权重，相似度接近时优先选择常见的大小三和弦 */
+    private static final float[] QUALITY_PRIORS = {1f, 1f, 0.97f, 0.97f, 0.97f, 0.96f, 0.96f, 0.95f, 0.95f};
+    private static final int QUALITY_COUNT = QUALITY_SUFFIXES.length;
+    /** 和弦模板数（根音数 × 和弦类型数），即 {@link Match#getId()} 的范围 */
+    public static final int TEMPLATE_COUNT = QUALITY_COUNT * 12;
+
+    /** 前 6 个泛音相对基音的音级偏移（八度、五度、八度、大三度、五度） */
+    private static final int[] HARMONIC_OFFSETS = {0, 0, 7, 0, 4, 7};
+    /** 每个泛音相对上一个泛音的能量衰减 */
+    private static final float HARMONIC_DECAY = 0.6f;
+    /** 根音为 C 时每种和弦类型的模板，包含和弦音的泛音，其他根音通过旋转得到 */
+    private static final float[][] TEMPLATES = new float[QUALITY_COUNT][Chromagram.PITCH_CLASSES];
+    private static final float[] TEMPLATE_NORMS = new float[QUALITY_COUNT];
+
+    static {
+        for (int quality = 0; quality < QUALITY_COUNT; quality++) {
+            float[] template = TEMPLATES[quality];
+            for (int interval : QUALITY_INTERVALS[quality]) {
+                float weight = 1f;
+                for (int offset : HARMONIC_OFFSETS) {
+                    template[(interval + offset) % Chromagram.PITCH_CLASSES] += weight;
+                    weight *= HARMONIC_DECAY;
+                }
+            }
+            float norm = 0;
+            for (float value : template) {
+                norm += value * value;
+            }
+            TEMPLATE_NORMS[quality] = (float) Math.sqrt(norm);
+        }
+    }
+
+    /** 分块读取 WAV 的帧数 */
+    private static final int BLOCK_FRAMES = 4096;
+    /** 搜索指法的最高把位 */
+    private static final int MAX_POSITION = 12;
+    /** 指法的最大品跨度 */
+    private static final int MAX_SPAN = 3;
+    /** 每个和弦缓存的指法数 */
+    private static final int MAX_VOICINGS = 16;
+
+    /**
+     * 识别结果。
+     */
+    public static final class Match {
+
+        private final int mRoot;
+        private final int mQuality;
+        private final float mScore;
+
+        Match(int root, int quality, float score) {
+            mRoot = root;
+            mQuality = quality;
+            mScore = score;
+        }
+
+        /**
+         * 获取根音的音级。
+         *
+         * @return 音级，0 为 C。
+         */
+        public int getRoot() {
+            return mRoot;
+        }
+
+        /**
+         * 获取和弦包含的音级。
+         *
+         * @return 12 位的掩码，第 i 位表示音级 i。
+         */
+        public int getPitchClassMask() {
+            return maskOf(mRoot, mQuality);
+        }
+
+        /**
+         * 获取和弦模板的编号，同一个和弦的编号相同。
+         *
+         * @return 编号，范围 0 ~ {@link #TEMPLATE_COUNT} - 1。
+         */
+        public int getId() {
+            return mQuality * Chromagram.PITCH_CLASSES + mRoot;
+        }
+
+        /**
+         * 获取和弦名称，如 C、Am、G7。
+         *
+         * @return 和弦名称。
+         */
+        public String getName() {
+            return Notes.NAMES[mRoot] + QUALITY_SUFFIXES[mQuality];
+        }
+
+        /**
+         * 获取与模板的相似度。
+         *
+         * @return 相似度，范围 0 ~ 1。
+         */
+        public float getScore() {
+            return mScore;
+        }
+
+        @Override
+        public String toString() {
+            return getName() + "(" + mScore + ")";
+        }
+    }
+
+    private Chromagram mChromagram;
+    private int mSampleRate;
+    private final float[] mChroma = new float[Chromagram.PITCH_CLASSES];
+    private final short[] mBlock = new short[BLOCK_FRAMES];
+    private final Map<Tuning, List<List<Chord>>> mVoicings = new HashMap<>();
+
+    /**
+     * 创建识别器。
+     *
+     * @param sampleRate 分析 PCM 数据时的采样率
+     */
+    public ChordRecognizer(int sampleRate) {
+        mSampleRate = sampleRate;
+        mChromagram = new Chromagram(sampleRate);
+    }
+
+    /**
+     * 识别一段 PCM 数据中的和弦。
+     *
+     * @param pcm    16 位单声道 PCM 数据
+     * @param offset 起始位置
+     * @param count  采样数
+     * @return 最匹配的和弦，没有声音时返回 NULL。
+     */
+    public Match recognize(short[] pcm, int offset, int count) {
+        mChromagram.reset();
+        mChromagram.process(pcm, offset, count);
+        mChromagram.flush();
+        mChromagram.getChroma(mChroma);
+        return match(mChroma);
+    }
+
+    /**
+     * 识别 WAV 数据中的和弦。采样率与创建时不同时会重新创建色度图。
+     *
+     * @param in WAV 数据的输入流，不会被关闭
+     * @return 最匹配的和弦，没有声音时返回 NULL。
+     * @throws IOException 读取失败或格式不支持时抛出
+     */
+    public Match recognize(InputStream in) throws IOException {
+        WavReader reader = new WavReader(in);
+        if (reader.getSampleRate() != mSampleRate) {
+            mSampleRate = reader.getSampleRate();
+            mChromagram = new Chromagram(mSampleRate);
+        }
+        mChromagram.reset();
+        int frames;
+        while ((frames = reader.read(mBlock, 0, BLOCK_FRAMES)) > 0) {
+            mChromagram.process(mBlock, 0, frames);
+        }
+        mChromagram.flush();
+        mChromagram.getChroma(mChroma);
+        return match(mChroma);
+    }
+
+    /**
+     * 根据色度图匹配和弦。
+     *
+     * @param chroma 12 个音级的能量，角标 0 为 C
+     * @return 最匹配的和弦，能量全为 0 时返回 NULL。
+     */
+    public static Match match(float[] chroma) {
+        double norm = 0;
+        for (int i = 0; i < Chromagram.PITCH_CLASSES; i++) {
+            norm += chroma[i] * chroma[i];
+        }
+        if (norm == 0) return null;
+        norm = Math.sqrt(norm);
+        int bestRoot = 0, bestQuality = 0;
+        double bestScore = -1;
+        for (int quality = 0; quality < QUALITY_COUNT; quality++) {
+            float[] template = TEMPLATES[quality];
+            for (int root = 0; root < Chromagram.PITCH_CLASSES; root++) {
+                double dot = 0;
+                for (int i = 0; i < Chromagram.PITCH_CLASSES; i++) {
+                    dot += chroma[(root + i) % Chromagram.PITCH_CLASSES] * template[i];
+                }
+                double score = dot / (norm * TEMPLATE_NORMS[quality]) * QUALITY_PRIORS[quality];
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestRoot = root;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return new Match(bestRoot, bestQuality, (float) bestScore);
+    }
+
+    /**
+     * 根据一组确定的音级（如 MIDI 按下的音）匹配和弦。包含的和弦音越多、多余的音越少得分越高，
+     * 最低音为根音时优先，七和弦可以省略五音。
+     *
+     * @param mask           12 位的音级掩码，第 i 位表示音级 i
+     * @param bassPitchClass 最低音的音级，未知时传 -1
+     * @return 最匹配的和弦，少于 3 个音级或没有合适的和弦时返回 NULL。
+     */
+    public static Match matchPitchClasses(int mask, int bassPitchClass) {
+        if (Integer.bitCount(mask) < 3) return null;
+        int bestRoot = -1, bestQuality = 0;
+        float bestScore = 0;
+        for (int quality = 0; quality < QUALITY_COUNT; quality++) {
+            for (int root = 0; root < Chromagram.PITCH_CLASSES; root++) {
+                if ((mask & 1 << root) == 0) continue;
+                int template = maskOf(root, quality);
+                int matched = Integer.bitCount(mask & template);
+                if (matched < 3) continue;
+                float score = matched * 2f - Integer.bitCount(mask & ~template) * 3f
+                        - Integer.bitCount(template & ~mask) * 1.5f
+                        + (root == bassPitchClass ? 1f : 0f) + QUALITY_PRIORS[quality];
+                if (bestRoot == -1 || score > bestScore) {
+                    bestScore = score;
+                    bestRoot = root;
+                    bestQuality = quality;
+                }
+            }
+        }
+        if (bestRoot == -1) return null;
+        float similarity = (float) Integer.bitCount(mask & maskOf(bestRoot, bestQuality))
+                / Integer.bitCount(mask | maskOf(bestRoot, bestQuality));
+        return new Match(bestRoot, bestQuality, similarity);
+    }
+
+    /**
+     * 获取识别出的和弦在指定调弦下的指法，按弹奏难度从易到难排列。结果会被缓存。
+     *
+     * @param match    识别结果
+     * @param tuning   调弦
+     * @param maxCount 最多返回的指法数
+     * @return 指法列表，根音都在最低音上，不可修改。
+     */
+    public synchronized List<Chord> getVoicings(Match match, Tuning tuning, int maxCount) {
+        List<List<Chord>> voicings = mVoicings.get(tuning);
+        if (voicings == null) {
+            // 按和弦编号存放，未计算的为 NULL
+            voicings = new ArrayList<>(Collections.<List<Chord>>nCopies(TEMPLATE_COUNT, null));
+            mVoicings.put(tuning, voicings);
+        }
+        int index = match.getId();
+        List<Chord> list = voicings.get(index);
+        if (list == null) {
+            list = Collections.unmodifiableList(findVoicings(match.mRoot, match.getPitchClassMask(), tuning));
+            voicings.set(index, list);
+        }
+        return list.subList(0, Math.min(maxCount, list.size()));
+    }
+
+    /**
+     * 在每个把位的 {@link #MAX_SPAN} 品范围内搜索只包含和弦音、覆盖所有和弦音且最低音为根音的指法。
+     * 只允许低音弦一侧不弹，至少弹 4 根弦，需要的手指（横按算一根）不超过 4 根。
+     */
+    static List<Chord> findVoicings(int root, int mask, Tuning tuning) {
+        Set<Long> seen = new HashSet<>();
+        List<Candidate> candidates = new ArrayList<>();
+        int[] frets = new int[Chord.STRING];
+        for (int position = 0; position <= MAX_POSITION; position++) {
+            int low = Math.max(1, position);
+            search(frets, 0, low, low + MAX_SPAN, root, mask, tuning, seen, candidates);
+        }
+        Collections.sort(candidates, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                return Float.compare(a.cost, b.cost);
+            }
+        });
+        ChordPool pool = ChordPool.getDefault();
+        List<Chord> result = new ArrayList<>();
+        for (int i = 0; i < candidates.size() && result.size() < MAX_VOICINGS; i++) {
+            result.add(pool.intern(candidates.get(i).packed));
+        }
+        return result;
+    }
+
+    private static void search(int[] frets, int string, int low, int high, int root, int mask, Tuning tuning,
+                               Set<Long> seen, List<Candidate> out) {
+        if (string == Chord.STRING) {
+            float cost = cost(frets, root, mask, tuning);
+            if (cost >= 0) {
+                long packed = PackedChord.pack(frets, null);
+                if (seen.add(packed)) {
+                    out.add(new Candidate(packed, cost));
+                }
+            }
+            return;
+        }
+        // 不弹的弦只能在低音一侧
+        if (string == 0 || frets[string - 1] == -1) {
+            frets[string] = -1;
+            search(frets, string + 1, low, high, root, mask, tuning, seen, out);
+        }
+        if (contains(mask, tuning.getNote(string, 0))) {
+            frets[string] = 0;
+            search(frets, string + 1, low, high, root, mask, tuning, seen, out);
+        }
+        for (int fret = low; fret <= high; fret++) {
+            if (contains(mask, tuning.getNote(string, fret))) {
+                frets[string] = fret;
+                search(frets, string + 1, low, high, root, mask, tuning, seen, out);
+            }
+        }
+    }
+
+    /**
+     * 计算指法的难度，不是有效的指法时返回 -1。
+     */
+    private static float cost(int[] frets, int root, int mask, Tuning tuning) {
+        int played = 0, covered = 0, bass = -1;
+        int fretted = 0, minFret = Integer.MAX_VALUE, maxFret = 0;
+        for (int i = 0; i < Chord.STRING; i++) {
+            if (frets[i] < 0) continue;
+            int note = tuning.getNote(i, frets[i]);
+            if (bass == -1) bass = note;
+            played++;
+            covered |= 1 << (note % Chromagram.PITCH_CLASSES);
+            if (frets[i] > 0) {
+                fretted++;
+                minFret = Math.min(minFret, frets[i]);
+                maxFret = Math.max(maxFret, frets[i]);
+            }
+        }
+        if (played < 4 || covered != mask || bass % Chromagram.PITCH_CLASSES != root) return -1;
+        boolean barre = false;
+        if (fretted > 4) {
+            // 最低品上的弦之间没有空弦时可以用一根手指横按
+            int first = -1, last = -1, atMin = 0;
+            for (int i = 0; i < Chord.STRING; i++) {
+                if (frets[i] == minFret) {
+                    if (first == -1) first = i;
+                    last = i;
+                    atMin++;
+                }
+            }
+            for (int i = first; i <= last; i++) {
+                if (frets[i] == 0) return -1;
+            }
+            if (fretted - atMin + 1 > 4) return -1;
+            barre = true;
+        }
+        int span = fretted == 0 ? 0 : maxFret - minFret;
+        // 高把位混合空弦的指法不便于换把，也不常用
+        int open = played - fretted;
+        return span + (Chord.STRING - played) * 0.75f + (barre ? 1f : 0f)
+                + (fretted == 0 ? 0 : minFret) * 0.25f + (minFret > 4 && fretted > 0 ? open * 1.5f : 0f);
+    }
+
+    private static boolean contains(int mask, int note) {
+        return (mask & (1 << (note % Chromagram.PITCH_CLASSES))) != 0;
+    }
+
+    private static int maskOf(int root, int quality) {
+        int mask = 0;
+        for (int interval : QUALITY_INTERVALS[quality]) {
+            mask |= 1 << ((root + interval) % Chromagram.PITCH_CLASSES);
+        }
+        return mask;
+    }
+
+    private static final class Candidate {
+
+        final long packed;
+        final float cost;
+
+        Candidate(long packed, float cost) {
+            this.packed = packed;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import java.util.Arrays;
+
+/**
+ * 色度图。将 PCM 数据按帧（默认 8192 点，步长 4096）加汉宁窗做 FFT，把每个频点的幅度累加到最近的音级上，
+ * 得到 12 个音级（C、C#、……、B）的能量分布，用于识别和弦。
+ *
+ * 数据可以分多次通过 {@link #process(short[], int, int)} 送入，所有缓冲区都在创建时分配好，
+ * 处理过程中不会创建任何对象。同一个实例不要在多个线程中同时使用。
+ *
+ * @author airsaid
+ */
+public class Chromagram {
+
+    /** 音级数 */
+    public static final int PITCH_CLASSES = 12;
+    /** 默认帧长 */
+    public static final int DEFAULT_FRAME_SIZE = 8192;
+
+    /** 统计的最低频率，更低的频点分辨率不足以区分半音 */
+    private static final double MIN_FREQUENCY = 60d;
+    /** 统计的最高频率 */
+    private static final double MAX_FREQUENCY = 1000d;
+
+    private final int mFrameSize;
+    private final int mHopSize;
+    private final FFT mFFT;
+    private final float[] mWindow;
+    private final float[] mFrame;
+    private final float[] mRe;
+    private final float[] mIm;
+    /** 每个频点对应的音级，为 -1 时不统计 */
+    private final byte[] mBinPitchClass;
+    private final double[] mChroma = new double[PITCH_CLASSES];
+    private int mFill;
+    private int mFrameCount;
+
+    public Chromagram(int sampleRate) {
+        this(sampleRate, DEFAULT_FRAME_SIZE, DEFAULT_FRAME_SIZE / 2);
+    }
+
+    /**
+     * 创建色度图。
+     *
+     * @param sampleRate 采样率
+     * @param frameSize  帧长，必须为 2 的幂
+     * @param hopSize    相邻两帧的间隔，范围 1 ~ frameSize
+     */
+    public Chromagram(int sampleRate, int frameSize, int hopSize) {
+        if (hopSize <= 0 || hopSize > frameSize) {
+            throw new IllegalArgumentException("Invalid hop size: " + hopSize);
+        }
+        mFrameSize = frameSize;
+        mHopSize = hopSize;
+        mFFT = new FFT(frameSize);
+        mWindow = new float[frameSize];
+        for (int i = 0; i < frameSize; i++) {
+            mWindow[i] = (float) (0.5d - 0.5d * Math.cos(2 * Math.PI * i / (frameSize - 1)));
+        }
+        mFrame = new float[frameSize];
+        mRe = new float[frameSize];
+        mIm = new float[frameSize];
+        mBinPitchClass = new byte[frameSize / 2];
+        for (int bin = 0; bin < frameSize / 2; bin++) {
+            double frequency = (double) bin * sampleRate / frameSize;
+            if (frequency < MIN_FREQUENCY || frequency > MAX_FREQUENCY) {
+                mBinPitchClass[bin] = -1;
+            } else {
+                // MIDI 音高 = 69 + 12 * log2(f / 440)
+                long note = Math.round(69 + 12 * Math.log(frequency / 440d) / Math.log(2));
+                mBinPitchClass[bin] = (byte) (note % PITCH_CLASSES);
+            }
+        }
+    }
+
+    /**
+     * 送入 PCM 数据，每凑满一帧就计算一次并累加到色度图中。
+     *
+     * @param pcm    16 位单声道 PCM 数据
+     * @param offset 起始位置
+     * @param count  采样数
+     */
+    public void process(short[] pcm, int offset, int count) {
+        int end = offset + count;
+        while (offset < end) {
+            int n = Math.min(end - offset, mFrameSize - mFill);
+            for (int i = 0; i < n; i++) {
+                mFrame[mFill + i] = pcm[offset + i] / 32768f;
+            }
+            mFill += n;
+            offset += n;
+            if (mFill == mFrameSize) {
+                analyzeFrame();
+                System.arraycopy(mFrame, mHopSize, mFrame, 0, mFrameSize - mHopSize);
+                mFill = mFrameSize - mHopSize;
+            }
+        }
+    }
+
+    /**
+     * 将不足一帧的剩余数据补零后计算，在送完一段音频后调用，避免丢失最后一帧。
+     */
+    public void flush() {
+        if (mFill > mFrameSize - mHopSize || (mFrameCount == 0 && mFill > 0)) {
+            Arrays.fill(mFrame, mFill, mFrameSize, 0f);
+            analyzeFrame();
+        }
+        mFill = 0;
+    }
+
+    private void analyzeFrame() {
+        float[] re = mRe, im = mIm;
+        for (int i = 0; i < mFrameSize; i++) {
+            re[i] = mFrame[i] * mWindow[i];
+            im[i] = 0;
+        }
+        mFFT.transform(re, im);
+        // 先把幅度保存在实部中，再只统计谱峰，避免窗函数的旁瓣泄漏到相邻的音级
+        int bins = mBinPitchClass.length;
+        for (int bin = 0; bin < bins; bin++) {
+            re[bin] = (float) Math.sqrt(re[bin] * re[bin] + im[bin] * im[bin]);
+        }
+        byte[] pitchClasses = mBinPitchClass;
+        for (int bin = 1; bin < bins - 1; bin++) {
+            int pitchClass = pitchClasses[bin];
+            if (pitchClass < 0) continue;
+            float magnitude = re[bin];
+            if (magnitude > re[bin - 1] && magnitude >= re[bin + 1]) {
+                mChroma[pitchClass] += magnitude;
+            }
+        }
+        mFrameCount++;
+    }
+
+    /**
+     * 获取已计算的帧数。
+     *
+     * @return 帧数。
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 获取累加的色度图，归一化为最大值为 1。
+     *
+     * @param out 长度至少为 {@link #PITCH_CLASSES} 的数组，角标 0 为 C
+     */
+    public void getChroma(float[] out) {
+        double max = 0;
+        for (int i = 0; i < PITCH_CLASSES; i++) {
+            max = Math.max(max, mChroma[i]);
+        }
+        for (int i = 0; i < PITCH_CLASSES; i++) {
+            out[i] = max > 0 ? (float) (mChroma[i] / max) : 0f;
+        }
+    }
+
+    /**
+     * 清空已送入的数据和累加的结果，可以开始分析下一段音频。
+     */
+    public void reset() {
+        Arrays.fill(mChroma, 0d);
+        mFill = 0;
+        mFrameCount = 0;
+    }
+}
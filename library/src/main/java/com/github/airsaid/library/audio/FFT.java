@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+/**
+ * 基 2 快速傅里叶变换。旋转因子和位反转表在创建时计算好，变换在原数组上进行，不会创建任何对象。
+ * 同一个实例不要在多个线程中同时使用。
+ *
+ * @author airsaid
+ */
+public final class FFT {
+
+    private final int mSize;
+    private final float[] mCos;
+    private final float[] mSin;
+    private final int[] mReversed;
+
+    /**
+     * 创建变换。
+     *
+     * @param size 点数，必须为 2 的幂
+     */
+    public FFT(int size) {
+        if (size < 2 || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException("size must be a power of 2: " + size);
+        }
+        mSize = size;
+        mCos = new float[size / 2];
+        mSin = new float[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            mCos[i] = (float) Math.cos(angle);
+            mSin[i] = (float) Math.sin(angle);
+        }
+        int bits = Integer.numberOfTrailingZeros(size);
+        mReversed = new int[size];
+        for (int i = 0; i < size; i++) {
+            mReversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * 原地计算复数 FFT。
+     *
+     * @param re 实部，长度至少为 {@link #getSize()}
+     * @param im 虚部，长度至少为 {@link #getSize()}
+     */
+    public void transform(float[] re, float[] im) {
+        int n = mSize;
+        for (int i = 0; i < n; i++) {
+            int j = mReversed[i];
+            if (j > i) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int half = 1; half < n; half <<= 1) {
+            int step = n / (half * 2);
+            for (int start = 0; start < n; start += half * 2) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k, b = a + half;
+                    float cos = mCos[t], sin = mSin[t];
+                    float bre = re[b] * cos - im[b] * sin;
+                    float bim = re[b] * sin + im[b] * cos;
+                    re[b] = re[a] - bre;
+                    im[b] = im[a] - bim;
+                    re[a] += bre;
+                    im[a] += bim;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+/**
+ * 拨弦合成器。使用 Karplus-Strong 算法为和弦的每根弦合成声音：以噪声填充长度为一个周期的延迟线，
+ * 每经过一个周期做一次平均（低通）并衰减，得到逐渐变暗、变弱的拨弦音色。周期的小数部分由一阶全通滤波器补足，
+ * 保证高把位的音准。
+ *
+ * 所有延迟线在创建时按最低频率一次分配好，{@link #pluck(Chord, Tuning, int, boolean)} 和
+ * {@link #render(short[], int, int)} 都不会创建任何对象，可以直接在音频线程中按块（如 256 帧）调用。
+ * 两个方法之间已经同步，可以在不同线程中调用。
+ *
+ * @author airsaid
+ */
+public class PluckSynth {
+
+    /** 默认采样率 */
+    public static final int DEFAULT_SAMPLE_RATE = 44100;
+    /** 支持的最低频率（A0），更低的音会被限制为该频率 */
+    public static final double MIN_FREQUENCY = 27.5d;
+
+    /** 每根弦的音量。初始噪声的范围为 -1 ~ 1，六根弦叠加后不会超过满幅，输出时的限幅只作为保护 */
+    private static final float STRING_GAIN = 1f / Chord.STRING;
+
+    private final int mSampleRate;
+    private final float[][] mLines = new float[Chord.STRING][];
+    private final int[] mLengths = new int[Chord.STRING];
+    private final int[] mPositions = new int[Chord.STRING];
+    /** 距离开始发声的帧数，用于扫弦 */
+    private final int[] mStartDelays = new int[Chord.STRING];
+    /** 剩余的发声帧数，为 0 时不再计算 */
+    private final int[] mRemaining = new int[Chord.STRING];
+    private final float[] mLastOut = new float[Chord.STRING];
+    /** 全通滤波器的系数和状态 */
+    private final float[] mAllpassCoefficients = new float[Chord.STRING];
+    private final float[] mAllpassIn = new float[Chord.STRING];
+    private final float[] mAllpassOut = new float[Chord.STRING];
+
+    private float mSustain = 3f;
+    private float mDecay;
+    private int mSeed = 0x2545F491;
+
+    public PluckSynth() {
+        this(DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * 创建合成器。
+     *
+     * @param sampleRate 采样率
+     */
+    public PluckSynth(int sampleRate) {
+        mSampleRate = sampleRate;
+        int maxLength = (int) Math.ceil(sampleRate / MIN_FREQUENCY) + 1;
+        for (int i = 0; i < Chord.STRING; i++) {
+            mLines[i] = new float[maxLength];
+        }
+        updateDecay();
+    }
+
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    /**
+     * 设置余音的长度，即声音衰减 60 dB 所需的时间。
+     *
+     * @param seconds 时长，单位秒
+     */
+    public synchronized void setSustain(float seconds) {
+        mSustain = Math.max(0.05f, seconds);
+        updateDecay();
+    }
+
+    public float getSustain() {
+        return mSustain;
+    }
+
+    private void updateDecay() {
+        // 每帧的衰减系数，mSustain 秒后衰减到 0.001（-60 dB）
+        mDecay = (float) Math.pow(0.001d, 1d / (mSustain * mSampleRate));
+    }
+
+    /**
+     * 拨响和弦。正在发声的弦会被新的声音替换，闭弦会被止音。
+     *
+     * @param chord       和弦，品数据的顺序为 6 弦到 1 弦
+     * @param tuning      调弦
+     * @param strumMillis 扫弦时长，即第一根弦与最后一根弦发声的间隔，单位毫秒，为 0 时所有弦同时发声
+     * @param down        是否为下扫（从 6 弦到 1 弦），否则为上扫
+     */
+    public synchronized void pluck(Chord chord, Tuning tuning, int strumMillis, boolean down) {
+        int[] frets = chord.getFrets();
+        int played = 0;
+        for (int i = 0; i < Chord.STRING; i++) {
+            if (frets[i] >= 0) played++;
+        }
+        float interval = played > 1 ? strumMillis * mSampleRate / 1000f / (played - 1) : 0;
+        int order = 0;
+        for (int n = 0; n < Chord.STRING; n++) {
+            int i = down ? n : Chord.STRING - 1 - n;
+            if (frets[i] < 0) {
+                mRemaining[i] = 0;
+                continue;
+            }
+            pluckString(i, tuning.getFrequency(i, frets[i]), Math.round(order * interval));
+            order++;
+        }
+    }
+
+    /**
+     * 拨响一根弦。
+     *
+     * @param index      弦的角标，0 为 6 弦
+     * @param frequency  频率，单位 Hz
+     * @param delayFrames 开始发声前的帧数
+     */
+    public synchronized void pluckString(int index, double frequency, int delayFrames) {
+        double period = mSampleRate / Math.max(MIN_FREQUENCY, frequency);
+        // 平均滤波器带来半个采样的延迟，剩余的小数部分（0.1 ~ 1.1）由全通滤波器补足
+        int length = Math.max(2, (int) (period - 0.6d));
+        double fraction = period - 0.5d - length;
+        float[] line = mLines[index];
+        for (int j = 0; j < length; j++) {
+            line[j] = nextNoise();
+        }
+        mLengths[index] = length;
+        mPositions[index] = 0;
+        mLastOut[index] = 0;
+        mAllpassCoefficients[index] = (float) ((1d - fraction) / (1d + fraction));
+        mAllpassIn[index] = 0;
+        mAllpassOut[index] = 0;
+        mStartDelays[index] = Math.max(0, delayFrames);
+        mRemaining[index] = (int) (mSustain * mSampleRate);
+    }
+
+    /**
+     * 停止所有弦的声音。
+     */
+    public synchronized void stop() {
+        for (int i = 0; i < Chord.STRING; i++) {
+            mRemaining[i] = 0;
+        }
+    }
+
+    /**
+     * 返回是否没有任何弦在发声。
+     *
+     * @return 没有声音时返回 true。
+     */
+    public synchronized boolean isIdle() {
+        for (int i = 0; i < Chord.STRING; i++) {
+            if (mRemaining[i] > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 合成一块 16 位 PCM 数据，不会创建任何对象。
+     *
+     * @param out    输出数组
+     * @param offset 写入的起始位置
+     * @param frames 帧数
+     */
+    public synchronized void render(short[] out, int offset, int frames) {
+        for (int f = 0; f < frames; f++) {
+            out[offset + f] = 0;
+        }
+        for (int i = 0; i < Chord.STRING; i++) {
+            if (mRemaining[i] > 0) {
+                renderString(i, out, offset, frames);
+            }
+        }
+    }
+
+    private void renderString(int i, short[] out, int offset, int frames) {
+        float[] line = mLines[i];
+        int length = mLengths[i];
+        int position = mPositions[i];
+        int remaining = mRemaining[i];
+        float last = mLastOut[i];
+        float coefficient = mAllpassCoefficients[i];
+        float apIn = mAllpassIn[i];
+        float apOut = mAllpassOut[i];
+        float decay = mDecay;
+        int f = Math.min(frames, mStartDelays[i]);
+        mStartDelays[i] -= f;
+        for (; f < frames && remaining > 0; f++, remaining--) {
+            float current = line[position];
+            float average = decay * 0.5f * (current + last);
+            last = current;
+            float filtered = coefficient * average + apIn - coefficient * apOut;
+            apIn = average;
+            apOut = filtered;
+            line[position] = filtered;
+            if (++position == length) position = 0;
+
+            int sample = out[offset + f] + (int) (current * STRING_GAIN * Short.MAX_VALUE);
+            out[offset + f] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+        mPositions[i] = position;
+        mRemaining[i] = remaining;
+        mLastOut[i] = last;
+        mAllpassIn[i] = apIn;
+        mAllpassOut[i] = apOut;
+    }
+
+    /**
+     * 生成 -1 ~ 1 之间的白噪声（xorshift），不使用 Random 以避免同步和对象创建。
+     */
+    private float nextNoise() {
+        int x = mSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        mSeed = x;
+        return x / (float) Integer.MAX_VALUE;
+    }
+}
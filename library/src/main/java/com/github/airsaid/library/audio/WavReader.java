@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * WAV 文件读取工具。以流的方式读取 16 位 PCM 格式的 RIFF/WAVE 数据，多声道会被混合为单声道。
+ * 读取使用创建时分配的缓冲区，不会为每次读取创建对象。
+ *
+ * @author airsaid
+ */
+public class WavReader {
+
+    private static final int BUFFER_FRAMES = 4096;
+
+    private final InputStream mIn;
+    private final int mSampleRate;
+    private final int mChannels;
+    private final byte[] mBuffer;
+    /** data 块中剩余的字节数 */
+    private long mRemaining;
+
+    /**
+     * 读取文件头，之后可以通过 {@link #read(short[], int, int)} 读取数据。
+     *
+     * @param in 输入流，不会被关闭
+     * @throws IOException 不是 16 位 PCM 格式的 WAV 数据或读取失败时抛出
+     */
+    public WavReader(InputStream in) throws IOException {
+        mIn = in;
+        byte[] header = new byte[12];
+        readFully(header, 12);
+        if (!ascii(header, 0, "RIFF") || !ascii(header, 8, "WAVE")) {
+            throw new IOException("Not a WAV stream");
+        }
+        int sampleRate = 0, channels = 0, bits = 0;
+        byte[] chunk = new byte[8];
+        while (true) {
+            readFully(chunk, 8);
+            long size = getInt(chunk, 4) & 0xFFFFFFFFL;
+            if (ascii(chunk, 0, "fmt ")) {
+                byte[] format = new byte[(int) size];
+                readFully(format, format.length);
+                if (getShort(format, 0) != 1) {
+                    throw new IOException("Unsupported WAV encoding: " + getShort(format, 0));
+                }
+                channels = getShort(format, 2);
+                sampleRate = getInt(format, 4);
+                bits = getShort(format, 14);
+                if ((size & 1) != 0) skip(1);
+            } else if (ascii(chunk, 0, "data")) {
+                if (channels <= 0 || bits != 16) {
+                    throw new IOException("Unsupported WAV format: " + channels + " channels, " + bits + " bits");
+                }
+                mRemaining = size;
+                break;
+            } else {
+                skip(size + (size & 1));
+            }
+        }
+        mSampleRate = sampleRate;
+        mChannels = channels;
+        mBuffer = new byte[BUFFER_FRAMES * channels * 2];
+    }
+
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    public int getChannels() {
+        return mChannels;
+    }
+
+    /**
+     * 读取 PCM 数据，多声道时取各声道的平均值。
+     *
+     * @param out    输出数组
+     * @param offset 写入的起始位置
+     * @param frames 最多读取的帧数
+     * @return 实际读取的帧数，读取完毕时返回 -1。
+     * @throws IOException 读取失败时抛出
+     */
+    public int read(short[] out, int offset, int frames) throws IOException {
+        int frameBytes = mChannels * 2;
+        frames = (int) Math.min(Math.min(frames, BUFFER_FRAMES), mRemaining / frameBytes);
+        if (frames <= 0) return -1;
+        readFully(mBuffer, frames * frameBytes);
+        mRemaining -= frames * frameBytes;
+        for (int f = 0, p = 0; f < frames; f++) {
+            int sum = 0;
+            for (int c = 0; c < mChannels; c++, p += 2) {
+                sum += getShort(mBuffer, p);
+            }
+            out[offset + f] = (short) (sum / mChannels);
+        }
+        return frames;
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = mIn.read(buffer, read, length - read);
+            if (n < 0) throw new EOFException();
+            read += n;
+        }
+    }
+
+    private void skip(long count) throws IOException {
+        while (count > 0) {
+            long n = mIn.skip(count);
+            if (n <= 0) {
+                if (mIn.read() < 0) throw new EOFException();
+                n = 1;
+            }
+            count -= n;
+        }
+    }
+
+    private static boolean ascii(byte[] buffer, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[offset + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int getInt(byte[] buffer, int p) {
+        return (buffer[p] & 0xFF) | (buffer[p + 1] & 0xFF) << 8
+                | (buffer[p + 2] & 0xFF) << 16 | buffer[p + 3] << 24;
+    }
+
+    private static short getShort(byte[] buffer, int p) {
+        return (short) ((buffer[p] & 0xFF) | buffer[p + 1] << 8);
+    }
+}
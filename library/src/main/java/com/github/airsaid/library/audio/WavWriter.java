@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.audio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * WAV 文件写入工具。将 16 位单声道 PCM 数据写为标准的 RIFF/WAVE 格式，用于离线检查合成的声音。
+ *
+ * @author airsaid
+ */
+public final class WavWriter {
+
+    /** 文件头的长度 */
+    public static final int HEADER_SIZE = 44;
+
+    private WavWriter() {}
+
+    /**
+     * 写入 WAV 文件。
+     *
+     * @param out        输出流，不会被关闭
+     * @param samples    PCM 数据
+     * @param count      采样数
+     * @param sampleRate 采样率
+     * @throws IOException 写入失败时抛出
+     */
+    public static void write(OutputStream out, short[] samples, int count, int sampleRate) throws IOException {
+        int dataSize = count * 2;
+        byte[] buffer = new byte[HEADER_SIZE + dataSize];
+        int p = 0;
+        p = putAscii(buffer, p, "RIFF");
+        p = putInt(buffer, p, 36 + dataSize);
+        p = putAscii(buffer, p, "WAVE");
+        p = putAscii(buffer, p, "fmt ");
+        p = putInt(buffer, p, 16);
+        // PCM，单声道
+        p = putShort(buffer, p, 1);
+        p = putShort(buffer, p, 1);
+        p = putInt(buffer, p, sampleRate);
+        p = putInt(buffer, p, sampleRate * 2);
+        p = putShort(buffer, p, 2);
+        p = putShort(buffer, p, 16);
+        p = putAscii(buffer, p, "data");
+        p = putInt(buffer, p, dataSize);
+        for (int i = 0; i < count; i++) {
+            p = putShort(buffer, p, samples[i]);
+        }
+        out.write(buffer, 0, p);
+    }
+
+    private static int putAscii(byte[] buffer, int p, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer[p++] = (byte) text.charAt(i);
+        }
+        return p;
+    }
+
+    private static int putInt(byte[] buffer, int p, int value) {
+        buffer[p++] = (byte) value;
+        buffer[p++] = (byte) (value >> 8);
+        buffer[p++] = (byte) (value >> 16);
+        buffer[p++] = (byte) (value >> 24);
+        return p;
+    }
+
+    private static int putShort(byte[] buffer, int p, int value) {
+        buffer[p++] = (byte) value;
+        buffer[p++] = (byte) (value >> 8);
+        return p;
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.chordpro;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.ChordPool;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ChordPro 格式的和弦谱解析器。
+ *
+ * 解析器按固定大小的缓冲区流式读取，只遍历一次输入，不会把整个文件读入内存，解析结果通过 {@link Listener} 回调。
+ * {@code {define: ...}} 中定义的和弦会转换为 {@link Chord}（品已按 base-fret 换算为绝对品），
+ * 并通过 {@link ChordPool} 合并，歌曲中出现的 {@code [Am]} 会回调对应定义的和弦。
+ *
+ * 解析器本身不保存解析状态，同一个实例可以在多个线程中同时解析不同的文件。
+ *
+ * @author airsaid
+ */
+public class ChordProParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 解析回调。回调在解析所在的线程中调用。
+     */
+    public interface Listener {
+
+        /**
+         * 解析到指令，如 {@code {title: Song}}。
+         *
+         * @param name  指令名称，如 title
+         * @param value 指令的值，没有值时为空字符串
+         */
+        void onDirective(String name, String value);
+
+        /**
+         * 解析到和弦定义。
+         *
+         * @param name  和弦名称
+         * @param chord 和弦对象
+         */
+        void onChordDefinition(String name, Chord chord);
+
+        /**
+         * 解析到歌词中的和弦，如 {@code [Am]}。
+         *
+         * @param name  和弦名称
+         * @param chord 之前通过 {@code {define}} 定义的和弦，没有定义时为 NULL
+         */
+        void onChord(String name, Chord chord);
+
+        /**
+         * 解析到一段歌词。
+         *
+         * @param text 歌词，只在回调期间有效，需要保存时请调用 toString()
+         */
+        void onLyrics(CharSequence text);
+
+        /**
+         * 一行结束。
+         */
+        void onLineEnd();
+    }
+
+    /**
+     * 空实现的 {@link Listener}，只需要重写关心的回调。
+     */
+    public static class SimpleListener implements Listener {
+
+        @Override
+        public void onDirective(String name, String value) {}
+
+        @Override
+        public void onChordDefinition(String name, Chord chord) {}
+
+        @Override
+        public void onChord(String name, Chord chord) {}
+
+        @Override
+        public void onLyrics(CharSequence text) {}
+
+        @Override
+        public void onLineEnd() {}
+    }
+
+    /**
+     * 并行解析多个文件时，为每个文件创建 {@link Listener}。
+     */
+    public interface ListenerFactory {
+
+        /**
+         * 为指定的文件创建回调，会在解析线程中调用。
+         *
+         * @param file 文件
+         * @return 回调对象。
+         */
+        Listener create(File file);
+    }
+
+    private final ChordPool mPool;
+
+    /**
+     * 创建解析器，使用默认的和弦池合并和弦。
+     */
+    public ChordProParser() {
+        this(ChordPool.getDefault());
+    }
+
+    /**
+     * 创建解析器。
+     *
+     * @param pool 和弦池，为 NULL 时不合并和弦
+     */
+    public ChordProParser(ChordPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * 解析指定的输入。不会关闭 Reader。
+     *
+     * @param reader   输入
+     * @param listener 解析回调
+     * @throws IOException 读取失败时抛出
+     */
+    public void parse(Reader reader, Listener listener) throws IOException {
+        Session session = new Session(listener);
+        char[] buffer = new char[BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            session.feed(buffer, 0, length);
+        }
+        session.finish();
+    }
+
+    /**
+     * 解析 UTF-8 编码的输入，例如通过 FileChannel 映射的文件。
+     *
+     * @param input    输入，解析后 position 会移动到 limit
+     * @param listener 解析回调
+     */
+    public void parse(ByteBuffer input, Listener listener) {
+        CharsetDecoder decoder = UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Session session = new Session(listener);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        boolean endOfInput = false;
+        while (true) {
+            CoderResult result = endOfInput ? decoder.flush(chars) : decoder.decode(input, chars, true);
+            chars.flip();
+            session.feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            chars.clear();
+            if (result.isUnderflow()) {
+                if (endOfInput) break;
+                endOfInput = true;
+            }
+        }
+        session.finish();
+    }
+
+    /**
+     * 使用所有 CPU 核心并行解析目录中的文件（不包括子目录），文件按 UTF-8 解码。
+     *
+     * @param directory 目录
+     * @param filter    文件过滤器，为 NULL 时解析所有文件
+     * @param factory   为每个文件创建解析回调
+     * @return 解析的文件数。
+     * @throws IOException 读取任意文件失败时抛出
+     */
+    public int parseDirectory(File directory, FileFilter filter, final ListenerFactory factory) throws IOException {
+        File[] files = directory.listFiles(filter);
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        List<File> list = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file.isFile()) list.add(file);
+        }
+        if (list.isEmpty()) {
+            return 0;
+        }
+        int threads = Math.min(list.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(list.size());
+            for (final File file : list) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+                        try {
+                            parse(reader, factory.create(file));
+                        } finally {
+                            reader.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new IOException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while parsing " + directory);
+                }
+            }
+            return list.size();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 单次解析的状态。
+     */
+    private final class Session {
+
+        private static final int STATE_TEXT = 0;
+        private static final int STATE_CHORD = 1;
+        private static final int STATE_DIRECTIVE = 2;
+        private static final int STATE_COMMENT = 3;
+
+        private final Listener mListener;
+        private final StringBuilder mText = new StringBuilder(128);
+        private final StringBuilder mToken = new StringBuilder(64);
+        private final Map<String, Chord> mDefinitions = new HashMap<>();
+        private final int[] mFrets = new int[Chord.STRING];
+        private final int[] mFingers = new int[Chord.STRING];
+
+        private int mState = STATE_TEXT;
+        /** 当前行是否只有空白字符 */
+        private boolean mLineBlank = true;
+        /** 当前行是否已经回调过内容 */
+        private boolean mLineHasContent;
+
+        Session(Listener listener) {
+            mListener = listener;
+        }
+
+        void feed(char[] buffer, int offset, int length) {
+            StringBuilder text = mText;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                char c = buffer[i];
+                if (c == '\r') continue;
+                switch (mState) {
+                    case STATE_TEXT:
+                        if (c == '\n') {
+                            endLine();
+                        } else if (c == '[') {
+                            flushLyrics();
+                            mState = STATE_CHORD;
+                        } else if (c == '{' && mLineBlank && !mLineHasContent) {
+                            text.setLength(0);
+                            mState = STATE_DIRECTIVE;
+                        } else if (c == '#' && mLineBlank && !mLineHasContent) {
+                            text.setLength(0);
+                            mState = STATE_COMMENT;
+                        } else {
+                            if (c != ' ' && c != '\t') mLineBlank = false;
+                            text.append(c);
+                        }
+                        break;
+                    case STATE_CHORD:
+                        if (c == ']' || c == '\n') {
+                            onChord();
+                            mState = STATE_TEXT;
+                            if (c == '\n') endLine();
+                        } else {
+                            mToken.append(c);
+                        }
+                        break;
+                    case STATE_DIRECTIVE:
+                        if (c == '}' || c == '\n') {
+                            onDirective();
+                            // 指令独占一行，后面的内容直到行尾都忽略
+                            mState = c == '\n' ? STATE_TEXT : STATE_COMMENT;
+                            if (c == '\n') resetLine();
+                        } else {
+                            mToken.append(c);
+                        }
+                        break;
+                    case STATE_COMMENT:
+                        if (c == '\n') {
+                            mState = STATE_TEXT;
+                            resetLine();
+                        }
+                        break;
+                }
+            }
+        }
+
+        void finish() {
+            switch (mState) {
+                case STATE_CHORD:
+                    onChord();
+                    break;
+                case STATE_DIRECTIVE:
+                    onDirective();
+                    break;
+            }
+            mState = STATE_TEXT;
+            if (mText.length() > 0 || mLineHasContent) {
+                endLine();
+            }
+        }
+
+        private void flushLyrics() {
+            if (mText.length() > 0) {
+                mListener.onLyrics(mText);
+                mText.setLength(0);
+            }
+            mLineHasContent = true;
+        }
+
+        private void endLine() {
+            flushLyrics();
+            mListener.onLineEnd();
+            resetLine();
+        }
+
+        private void resetLine() {
+            mText.setLength(0);
+            mLineBlank = true;
+            mLineHasContent = false;
+        }
+
+        private void onChord() {
+            String name = trim(mToken);
+            mToken.setLength(0);
+            mListener.onChord(name, mDefinitions.get(name));
+        }
+
+        private void onDirective() {
+            StringBuilder token = mToken;
+            int length = token.length();
+            int split = 0;
+            while (split < length && token.charAt(split) != ':' && !Character.isWhitespace(token.charAt(split))) {
+                split++;
+            }
+            String name = token.substring(0, split).trim().toLowerCase(Locale.ROOT);
+            if (split < length && token.charAt(split) != ':') {
+                // 名称与值之间可以是空白，也可以是冒号
+                int colon = split;
+                while (colon < length && Character.isWhitespace(token.charAt(colon))) colon++;
+                if (colon < length && token.charAt(colon) == ':') split = colon;
+            }
+            String value = split < length ? token.substring(split + 1).trim() : "";
+            token.setLength(0);
+            if (name.isEmpty()) return;
+            if ("define".equals(name)) {
+                define(value);
+            }
+            mListener.onDirective(name, value);
+        }
+
+        /**
+         * 解析和弦定义，支持以下两种格式：
+         * <pre>
+         * {define: Am base-fret 1 frets x 0 2 2 1 0 fingers 0 0 2 3 1 0}
+         * {define: Am 1 x 0 2 2 1 0}
+         * </pre>
+         */
+        private void define(String value) {
+            String[] tokens = value.split("\\s+");
+            if (tokens.length < 2) return;
+            String name = tokens[0];
+            int baseFret = 1;
+            int fretCount = 0;
+            int fingerCount = 0;
+            int i = 1;
+            if (isNumber(tokens[1])) {
+                // 旧格式：名称 + 起始品 + 品
+                baseFret = Math.max(1, Integer.parseInt(tokens[1]));
+                for (i = 2; i < tokens.length && fretCount < Chord.STRING; i++) {
+                    mFrets[fretCount++] = parseFret(tokens[i]);
+                }
+            } else {
+                while (i < tokens.length) {
+                    String keyword = tokens[i++].toLowerCase(Locale.ROOT);
+                    if ("base-fret".equals(keyword) && i < tokens.length && isNumber(tokens[i])) {
+                        baseFret = Math.max(1, Integer.parseInt(tokens[i++]));
+                    } else if ("frets".equals(keyword)) {
+                        while (i < tokens.length && fretCount < Chord.STRING && isFret(tokens[i])) {
+                            mFrets[fretCount++] = parseFret(tokens[i++]);
+                        }
+                    } else if ("fingers".equals(keyword)) {
+                        while (i < tokens.length && fingerCount < Chord.STRING && isFinger(tokens[i])) {
+                            mFingers[fingerCount++] = parseFinger(tokens[i++]);
+                        }
+                    }
+                }
+            }
+            if (fretCount != Chord.STRING) return;
+            for (int s = 0; s < Chord.STRING; s++) {
+                if (mFrets[s] > 0) mFrets[s] += baseFret - 1;
+            }
+            int[] fingers = fingerCount == Chord.STRING ? mFingers : null;
+            Chord chord = mPool != null
+                    ? mPool.intern(mFrets, fingers)
+                    : new Chord(mFrets.clone(), fingers != null ? fingers.clone() : null);
+            mDefinitions.put(name, chord);
+            mListener.onChordDefinition(name, chord);
+        }
+    }
+
+    private static String trim(StringBuilder builder) {
+        int start = 0, end = builder.length();
+        while (start < end && builder.charAt(start) <= ' ') start++;
+        while (end > start && builder.charAt(end - 1) <= ' ') end--;
+        return builder.substring(start, end);
+    }
+
+    private static boolean isNumber(String token) {
+        if (token.isEmpty() || token.length() > 3) return false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static boolean isFret(String token) {
+        return isNumber(token) || "x".equalsIgnoreCase(token) || "n".equalsIgnoreCase(token) || "-1".equals(token);
+    }
+
+    private static int parseFret(String token) {
+        return isNumber(token) ? Integer.parseInt(token) : -1;
+    }
+
+    private static boolean isFinger(String token) {
+        return isNumber(token) || "x".equalsIgnoreCase(token) || "n".equalsIgnoreCase(token)
+                || "-".equals(token) || "t".equalsIgnoreCase(token);
+    }
+
+    private static int parseFinger(String token) {
+        return isNumber(token) ? Integer.parseInt(token) : 0;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.chordpro;
+
+import com.github.airsaid.library.theory.Notes;
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.PackedChord;
+
+/**
+ * 和弦谱库的统计结果，由 {@link CorpusAnalyzer} 生成：指法的使用次数、指法之间的转换次数（二元组矩阵）以及调的分布。
+ *
+ * 指法按 {@link PackedChord} 区分，并按第一次出现的顺序编号，所有查询都以编号进行；转换以两个编号组成。
+ * 连续重复的同一个指法不算作转换，未定义的和弦会中断转换。统计结果创建后不可修改，可以在线程之间共享。
+ *
+ * @author airsaid
+ */
+public final class ChordStatistics {
+
+    /** 调的数量：12 个大调（0 ~ 11）与 12 个小调（12 ~ 23），编号为主音的音级，小调再加 12 */
+    public static final int KEY_COUNT = 24;
+
+    /** 打包的指法 -> 使用次数 */
+    private final LongCountMap mVoicings;
+    /** 前一个指法的编号（高 32 位）与后一个指法的编号（低 32 位） -> 转换次数 */
+    private final LongCountMap mTransitions;
+    private final long[] mKeys;
+    private final long mUnknownKeys;
+    private final long mSongCount;
+    private final long mChordCount;
+    private final long mUndefinedChordCount;
+
+    ChordStatistics(LongCountMap voicings, LongCountMap transitions, long[] keys, long unknownKeys,
+                    long songCount, long chordCount, long undefinedChordCount) {
+        mVoicings = voicings;
+        mTransitions = transitions;
+        mKeys = keys;
+        mUnknownKeys = unknownKeys;
+        mSongCount = songCount;
+        mChordCount = chordCount;
+        mUndefinedChordCount = undefinedChordCount;
+    }
+
+    /**
+     * 获取统计的歌曲数。
+     *
+     * @return 歌曲数。
+     */
+    public long getSongCount() {
+        return mSongCount;
+    }
+
+    /**
+     * 获取歌曲中出现的已定义和弦的总次数。
+     *
+     * @return 出现次数。
+     */
+    public long getChordCount() {
+        return mChordCount;
+    }
+
+    /**
+     * 获取歌曲中出现的未定义（或无法打包）和弦的总次数，这些和弦不参与指法和转换的统计。
+     *
+     * @return 出现次数。
+     */
+    public long getUndefinedChordCount() {
+        return mUndefinedChordCount;
+    }
+
+    /**
+     * 获取不同指法的数量，指法编号为 0 ~ 该值 - 1。
+     *
+     * @return 指法数量。
+     */
+    public int getVoicingCount() {
+        return mVoicings.size();
+    }
+
+    /**
+     * 获取指定编号的打包指法。
+     *
+     * @param index 指法编号
+     * @return 打包的指法，通过 {@link PackedChord#unpack(long)} 还原。
+     */
+    public long getVoicing(int index) {
+        return mVoicings.keyAt(index);
+    }
+
+    /**
+     * 获取指定编号的指法。
+     *
+     * @param index 指法编号
+     * @return 和弦对象，每次调用都会创建新的对象。
+     */
+    public Chord getChord(int index) {
+        return PackedChord.unpack(mVoicings.keyAt(index));
+    }
+
+    /**
+     * 获取指定编号的指法的使用次数。
+     *
+     * @param index 指法编号
+     * @return 使用次数。
+     */
+    public long getOccurrences(int index) {
+        return mVoicings.countAt(index);
+    }
+
+    /**
+     * 获取指定和弦的指法编号。
+     *
+     * @param chord 和弦对象
+     * @return 指法编号，没有出现过或无法打包时返回 -1。
+     */
+    public int indexOf(Chord chord) {
+        if (chord == null || !PackedChord.canPack(chord.getFrets(), chord.getFingers())) {
+            return -1;
+        }
+        return mVoicings.indexOf(PackedChord.pack(chord));
+    }
+
+    /**
+     * 获取使用次数最多的指法。
+     *
+     * @param max 最多返回的数量
+     * @return 指法编号，按使用次数从多到少排列。
+     */
+    public int[] getTopVoicings(int max) {
+        return mVoicings.top(max);
+    }
+
+    /**
+     * 获取不同转换的数量，转换编号为 0 ~ 该值 - 1。
+     *
+     * @return 转换数量。
+     */
+    public int getTransitionCount() {
+        return mTransitions.size();
+    }
+
+    /**
+     * 获取指定编号的转换的前一个指法。
+     *
+     * @param transition 转换编号
+     * @return 指法编号。
+     */
+    public int getTransitionFrom(int transition) {
+        return (int) (mTransitions.keyAt(transition) >>> 32);
+    }
+
+    /**
+     * 获取指定编号的转换的后一个指法。
+     *
+     * @param transition 转换编号
+     * @return 指法编号。
+     */
+    public int getTransitionTo(int transition) {
+        return (int) mTransitions.keyAt(transition);
+    }
+
+    /**
+     * 获取指定编号的转换的次数。
+     *
+     * @param transition 转换编号
+     * @return 转换次数。
+     */
+    public long getTransitionOccurrences(int transition) {
+        return mTransitions.countAt(transition);
+    }
+
+    /**
+     * 获取从一个指法转换到另一个指法的次数。
+     *
+     * @param from 前一个指法的编号
+     * @param to   后一个指法的编号
+     * @return 转换次数。
+     */
+    public long getTransitionOccurrences(int from, int to) {
+        return mTransitions.get(transitionKey(from, to));
+    }
+
+    /**
+     * 获取次数最多的转换。
+     *
+     * @param max 最多返回的数量
+     * @return 转换编号，按次数从多到少排列。
+     */
+    public int[] getTopTransitions(int max) {
+        return mTransitions.top(max);
+    }
+
+    /**
+     * 获取指定指法之间的转换矩阵，例如传入 {@link #getTopVoicings(int)} 的结果得到最常用指法的二元组矩阵。
+     *
+     * @param voicings 指法编号
+     * @return 按行存储的 n * n 矩阵，第 i 行第 j 列为 voicings[i] 转换到 voicings[j] 的次数。
+     */
+    public long[] getTransitionMatrix(int[] voicings) {
+        int n = voicings.length;
+        long[] matrix = new long[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                matrix[i * n + j] = mTransitions.get(transitionKey(voicings[i], voicings[j]));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * 获取指定调的歌曲数。
+     *
+     * @param key 调，0 ~ {@link #KEY_COUNT} - 1
+     * @return 歌曲数。
+     */
+    public long getKeyCount(int key) {
+        return mKeys[key];
+    }
+
+    /**
+     * 获取没有 {@code {key}} 指令或无法识别调的歌曲数。
+     *
+     * @return 歌曲数。
+     */
+    public long getUnknownKeyCount() {
+        return mUnknownKeys;
+    }
+
+    /**
+     * 获取调的名称，如 G、F#m。
+     *
+     * @param key 调，0 ~ {@link #KEY_COUNT} - 1
+     * @return 调的名称。
+     */
+    public static String getKeyName(int key) {
+        return Notes.NAMES[key % 12] + (key >= 12 ? "m" : "");
+    }
+
+    /**
+     * 解析 {@code {key}} 指令的值，如 G、Bb、F#m、C#min。
+     *
+     * @param value 指令的值
+     * @return 调，0 ~ {@link #KEY_COUNT} - 1，无法识别时返回 -1。
+     */
+    public static int parseKey(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && value.charAt(i) <= ' ') i++;
+        if (i == length) return -1;
+        int pitchClass;
+        switch (Character.toUpperCase(value.charAt(i++))) {
+            case 'C': pitchClass = 0; break;
+            case 'D': pitchClass = 2; break;
+            case 'E': pitchClass = 4; break;
+            case 'F': pitchClass = 5; break;
+            case 'G': pitchClass = 7; break;
+            case 'A': pitchClass = 9; break;
+            case 'B': pitchClass = 11; break;
+            default: return -1;
+        }
+        if (i < length) {
+            char c = value.charAt(i);
+            if (c == '#' || c == '♯') {
+                pitchClass++;
+                i++;
+            } else if (c == 'b' || c == '♭') {
+                pitchClass--;
+                i++;
+            }
+        }
+        pitchClass = (pitchClass + 12) % 12;
+        boolean minor = i < length && value.charAt(i) == 'm' && !value.startsWith("maj", i);
+        return minor ? pitchClass + 12 : pitchClass;
+    }
+
+    static long transitionKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.chordpro;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.PackedChord;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 和弦谱库的统计分析，每个 ChordPro 文件为一首歌曲，结果见 {@link ChordStatistics}。
+ *
+ * 文件由多个线程流式解析，每个线程从共享的计数器中领取下一个文件，并把统计累加到自己的局部结果中，
+ * 全部解析完成后再合并，期间线程之间不需要同步。指法以 {@link PackedChord} 作为 key 计数，
+ * 转换以两个局部编号组成的 long 作为 key，统计每次出现时都不会创建对象。
+ *
+ * 默认的解析器不使用和弦池，避免多个线程在合并和弦时竞争同一把锁。
+ *
+ * @author airsaid
+ */
+public class CorpusAnalyzer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ChordProParser mParser;
+    private final int mThreads;
+
+    /**
+     * 创建分析器，使用所有 CPU 核心。
+     */
+    public CorpusAnalyzer() {
+        this(new ChordProParser(null), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 创建分析器。
+     *
+     * @param parser  解析器
+     * @param threads 解析线程数
+     */
+    public CorpusAnalyzer(ChordProParser parser, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads <= 0");
+        }
+        mParser = parser;
+        mThreads = threads;
+    }
+
+    /**
+     * 分析目录中的文件（不包括子目录），文件按 UTF-8 解码。
+     *
+     * @param directory 目录
+     * @param filter    文件过滤器，为 NULL 时分析所有文件
+     * @return 统计结果。
+     * @throws IOException 读取任意文件失败时抛出
+     */
+    public ChordStatistics analyze(File directory, FileFilter filter) throws IOException {
+        File[] files = directory.listFiles(filter);
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        List<File> list = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file.isFile()) list.add(file);
+        }
+        return analyze(list);
+    }
+
+    /**
+     * 分析指定的文件，文件按 UTF-8 解码。
+     *
+     * @param files 文件列表
+     * @return 统计结果。
+     * @throws IOException 读取任意文件失败时抛出
+     */
+    public ChordStatistics analyze(final List<File> files) throws IOException {
+        int threads = Math.max(1, Math.min(files.size(), mThreads));
+        if (threads == 1) {
+            Aggregator aggregator = new Aggregator();
+            for (File file : files) {
+                parse(file, aggregator);
+            }
+            return merge(new Aggregator[]{aggregator});
+        }
+        final AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Aggregator>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Aggregator>() {
+                    @Override
+                    public Aggregator call() throws Exception {
+                        Aggregator aggregator = new Aggregator();
+                        int index;
+                        while ((index = next.getAndIncrement()) < files.size()) {
+                            parse(files.get(index), aggregator);
+                        }
+                        return aggregator;
+                    }
+                }));
+            }
+            Aggregator[] aggregators = new Aggregator[threads];
+            for (int t = 0; t < threads; t++) {
+                try {
+                    aggregators[t] = futures.get(t).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new IOException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while analyzing");
+                }
+            }
+            return merge(aggregators);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 分析单首歌曲。不会关闭 Reader。
+     *
+     * @param reader 输入
+     * @return 统计结果。
+     * @throws IOException 读取失败时抛出
+     */
+    public ChordStatistics analyze(Reader reader) throws IOException {
+        Aggregator aggregator = new Aggregator();
+        parse(reader, aggregator);
+        return merge(new Aggregator[]{aggregator});
+    }
+
+    private void parse(File file, Aggregator aggregator) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+        try {
+            parse(reader, aggregator);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void parse(Reader reader, Aggregator aggregator) throws IOException {
+        aggregator.beginSong();
+        mParser.parse(reader, aggregator);
+        aggregator.endSong();
+    }
+
+    /**
+     * 合并各个线程的局部结果：把局部指法编号映射为全局编号，再按全局编号累加转换次数。
+     */
+    private static ChordStatistics merge(Aggregator[] aggregators) {
+        LongCountMap voicings = aggregators[0].mVoicings;
+        LongCountMap transitions = aggregators[0].mTransitions;
+        long[] keys = aggregators[0].mKeys;
+        long unknownKeys = aggregators[0].mUnknownKeys;
+        long songCount = aggregators[0].mSongCount;
+        long chordCount = aggregators[0].mChordCount;
+        long undefinedChordCount = aggregators[0].mUndefinedChordCount;
+        // 第一个局部结果的编号直接作为全局编号
+        for (int a = 1; a < aggregators.length; a++) {
+            Aggregator aggregator = aggregators[a];
+            LongCountMap local = aggregator.mVoicings;
+            int[] ids = new int[local.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = voicings.add(local.keyAt(i), local.countAt(i));
+            }
+            LongCountMap localTransitions = aggregator.mTransitions;
+            for (int i = 0, size = localTransitions.size(); i < size; i++) {
+                long key = localTransitions.keyAt(i);
+                int from = ids[(int) (key >>> 32)];
+                int to = ids[(int) key];
+                transitions.add(ChordStatistics.transitionKey(from, to), localTransitions.countAt(i));
+            }
+            for (int k = 0; k < ChordStatistics.KEY_COUNT; k++) {
+                keys[k] += aggregator.mKeys[k];
+            }
+            unknownKeys += aggregator.mUnknownKeys;
+            songCount += aggregator.mSongCount;
+            chordCount += aggregator.mChordCount;
+            undefinedChordCount += aggregator.mUndefinedChordCount;
+        }
+        return new ChordStatistics(voicings, transitions, keys, unknownKeys,
+                songCount, chordCount, undefinedChordCount);
+    }
+
+    /**
+     * 单个线程的局部统计结果。
+     */
+    private static final class Aggregator extends ChordProParser.SimpleListener {
+
+        final LongCountMap mVoicings = new LongCountMap(1024);
+        final LongCountMap mTransitions = new LongCountMap(4096);
+        final long[] mKeys = new long[ChordStatistics.KEY_COUNT];
+        long mUnknownKeys;
+        long mSongCount;
+        long mChordCount;
+        long mUndefinedChordCount;
+
+        /** 当前歌曲的调，为 -1 时表示未知 */
+        private int mKey;
+        /** 上一个指法的局部编号，为 -1 时表示没有 */
+        private int mPrevious;
+
+        void beginSong() {
+            mKey = -1;
+            mPrevious = -1;
+        }
+
+        void endSong() {
+            if (mKey != -1) {
+                mKeys[mKey]++;
+            } else {
+                mUnknownKeys++;
+            }
+            mSongCount++;
+        }
+
+        @Override
+        public void onDirective(String name, String value) {
+            if (mKey == -1 && "key".equals(name)) {
+                mKey = ChordStatistics.parseKey(value);
+            }
+        }
+
+        @Override
+        public void onChord(String name, Chord chord) {
+            if (chord == null || !PackedChord.canPack(chord.getFrets(), chord.getFingers())) {
+                mUndefinedChordCount++;
+                mPrevious = -1;
+                return;
+            }
+            int id = mVoicings.add(PackedChord.pack(chord), 1);
+            mChordCount++;
+            if (mPrevious != -1 && mPrevious != id) {
+                mTransitions.add(ChordStatistics.transitionKey(mPrevious, id), 1);
+            }
+            mPrevious = id;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.chordpro;
+
+import java.util.Arrays;
+
+/**
+ * 以 long 为 key 的计数表。使用开放寻址的哈希表，key 和计数保存在按插入顺序排列的数组中，
+ * 计数时不会为每次出现创建对象。
+ *
+ * 每个 key 在数组中的角标在插入后不会改变，因此该表也可以作为字典使用：角标即 key 的编号。
+ * 不是线程安全的。
+ *
+ * @author airsaid
+ */
+final class LongCountMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** 哈希表，保存角标 + 1，为 0 时表示空位 */
+    private int[] mTable;
+    private long[] mKeys;
+    private long[] mCounts;
+    private int mSize;
+
+    LongCountMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 创建计数表。
+     *
+     * @param capacity 预计的 key 数
+     */
+    LongCountMap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        mTable = new int[tableSizeFor(capacity)];
+        mKeys = new long[capacity];
+        mCounts = new long[capacity];
+    }
+
+    /**
+     * 增加指定 key 的计数，key 不存在时插入。
+     *
+     * @param key   key
+     * @param delta 增加的计数
+     * @return key 的角标。
+     */
+    int add(long key, long delta) {
+        int[] table = mTable;
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) {
+                mCounts[entry - 1] += delta;
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = mSize;
+        if (index == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, index * 2);
+            mCounts = Arrays.copyOf(mCounts, index * 2);
+        }
+        mKeys[index] = key;
+        mCounts[index] = delta;
+        table[slot] = index + 1;
+        mSize = index + 1;
+        // 装载因子不超过 0.5
+        if (mSize * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return index;
+    }
+
+    /**
+     * 获取指定 key 的角标。
+     *
+     * @param key key
+     * @return 角标，不存在时返回 -1。
+     */
+    int indexOf(long key) {
+        int[] table = mTable;
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 获取指定 key 的计数。
+     *
+     * @param key key
+     * @return 计数，不存在时返回 0。
+     */
+    long get(long key) {
+        int index = indexOf(key);
+        return index != -1 ? mCounts[index] : 0;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    long keyAt(int index) {
+        return mKeys[index];
+    }
+
+    long countAt(int index) {
+        return mCounts[index];
+    }
+
+    /**
+     * 获取按计数从大到小排序的角标，计数相同时按插入顺序排列。
+     *
+     * @param max 最多返回的数量
+     * @return 角标数组。
+     */
+    int[] top(int max) {
+        int size = mSize;
+        int count = Math.min(max, size);
+        if (count <= 0) return new int[0];
+        // 计数和角标合并为一个 long 排序：计数占高位，角标取反后占低 32 位，使计数相同时角标小的排在前面
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            long value = Math.min(mCounts[i], Integer.MAX_VALUE);
+            sorted[i] = (value << 32) | (~i & 0xFFFFFFFFL);
+        }
+        Arrays.sort(sorted);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = ~(int) sorted[size - 1 - i];
+        }
+        return result;
+    }
+
+    private void rehash(int tableSize) {
+        int[] table = new int[tableSize];
+        int mask = tableSize - 1;
+        long[] keys = mKeys;
+        for (int i = 0; i < mSize; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        mTable = table;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(capacity * 2 - 1) * 2;
+        return Math.max(size, 2);
+    }
+
+    private static int hash(long key) {
+        // MurmurHash3 的 fmix64，打包和弦的低位变化较少，需要充分混合
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
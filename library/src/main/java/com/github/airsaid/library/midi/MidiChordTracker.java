@@ -0,0 +1,364 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.midi;
+
+import com.github.airsaid.library.audio.ChordRecognizer;
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+import java.util.List;
+
+/**
+ * MIDI 和弦跟踪器。解析原始的 MIDI 字节流（支持 running status，忽略系统实时消息和 SysEx），
+ * 用两个 long 组成的位集合保存当前按下的音（包括延音踏板保持的音），每次变化时识别和弦，
+ * 并从该和弦的指法中选出与上一个指法手的位置最近的一个，可以直接交给 ChordView 显示。
+ *
+ * 识别通过预先计算的表完成：以最低音的音级和 12 位音级掩码为角标，直接得到和弦，所有和弦的指法也在创建时计算好，
+ * 因此处理每个事件只需要几微秒，并且不会创建任何对象。第 10 通道（打击乐）的音会被忽略。
+ *
+ * 回调在调用 {@link #write(byte[], int, int)} 等方法的线程中执行，更新 ChordView 时需要切换到主线程。
+ * 同一个实例不要在多个线程中同时使用。
+ *
+ * @author airsaid
+ */
+public class MidiChordTracker {
+
+    /**
+     * 和弦变化回调。
+     */
+    public interface Listener {
+
+        /**
+         * 识别出的和弦发生了变化。
+         *
+         * @param match   识别结果
+         * @param voicing 选中的指法，该和弦没有可用的指法时为 NULL
+         */
+        void onChordChanged(ChordRecognizer.Match match, Chord voicing);
+    }
+
+    /** 打击乐通道 */
+    private static final int PERCUSSION_CHANNEL = 9;
+    /** 延音踏板控制器 */
+    private static final int CONTROL_SUSTAIN = 64;
+    /** 全部音符关闭控制器 */
+    private static final int CONTROL_ALL_NOTES_OFF = 123;
+    /** 选择指法时每个难度序号的代价，相对于每品的移动距离 */
+    private static final float RANK_WEIGHT = 0.3f;
+    private static final int MASK_COUNT = 1 << 12;
+
+    private final short[] mTable;
+    private final ChordRecognizer.Match[] mMatches;
+    private final Chord[][] mVoicings;
+    private final float[][] mCenters;
+
+    /** 按下的音（键仍被按住） */
+    private final long[] mPressed = new long[2];
+    /** 延音踏板保持的音 */
+    private final long[] mSustained = new long[2];
+    private boolean mSustain;
+    /** 上一次更新时发声的音，用于判断是否只是在松开音 */
+    private final long[] mHeld = new long[2];
+    private int mHeldMask;
+    private int mHeldBass = -1;
+
+    private int mStatus;
+    private int mData1;
+    private int mDataCount;
+    private boolean mInSysEx;
+
+    private int mCurrentId = -1;
+    private Chord mCurrentVoicing;
+    private float mCurrentCenter;
+    private Listener mListener;
+
+    private static short[] sTable;
+
+    public MidiChordTracker() {
+        this(new ChordRecognizer(44100), Tuning.STANDARD);
+    }
+
+    /**
+     * 创建跟踪器，会计算所有和弦在指定调弦下的指法。
+     *
+     * @param recognizer 用于获取指法的识别器，其中缓存的指法可以与其他地方共享
+     * @param tuning     调弦
+     */
+    public MidiChordTracker(ChordRecognizer recognizer, Tuning tuning) {
+        short[] table = getTable();
+        mTable = table;
+        mMatches = new ChordRecognizer.Match[ChordRecognizer.TEMPLATE_COUNT];
+        mVoicings = new Chord[ChordRecognizer.TEMPLATE_COUNT][];
+        mCenters = new float[ChordRecognizer.TEMPLATE_COUNT][];
+        for (int index = 0; index < table.length; index++) {
+            int id = table[index];
+            if (id < 0 || mMatches[id] != null) continue;
+            ChordRecognizer.Match match = ChordRecognizer.matchPitchClasses(index & (MASK_COUNT - 1), index >> 12);
+            List<Chord> voicings = recognizer.getVoicings(match, tuning, Integer.MAX_VALUE);
+            mMatches[id] = match;
+            mVoicings[id] = voicings.toArray(new Chord[voicings.size()]);
+            mCenters[id] = new float[voicings.size()];
+            for (int i = 0; i < voicings.size(); i++) {
+                mCenters[id][i] = getCenter(voicings.get(i).getFrets());
+            }
+        }
+    }
+
+    /**
+     * 以最低音的音级 × 4096 + 音级掩码为角标的和弦表，值为和弦编号，没有和弦时为 -1。所有实例共享。
+     */
+    private static synchronized short[] getTable() {
+        if (sTable == null) {
+            short[] table = new short[12 * MASK_COUNT];
+            for (int bass = 0; bass < 12; bass++) {
+                for (int mask = 0; mask < MASK_COUNT; mask++) {
+                    ChordRecognizer.Match match = (mask & 1 << bass) == 0
+                            ? null : ChordRecognizer.matchPitchClasses(mask, bass);
+                    table[bass * MASK_COUNT + mask] = (short) (match == null ? -1 : match.getId());
+                }
+            }
+            sTable = table;
+        }
+        return sTable;
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 送入原始的 MIDI 字节。
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param count  字节数
+     */
+    public void write(byte[] data, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            write(data[i] & 0xFF);
+        }
+    }
+
+    /**
+     * 送入一个原始的 MIDI 字节。
+     *
+     * @param b 字节，范围 0 ~ 255
+     */
+    public void write(int b) {
+        if (b >= 0xF8) {
+            // 系统实时消息可以插在任何位置，不影响其他消息
+            return;
+        }
+        if (b >= 0x80) {
+            mInSysEx = b == 0xF0;
+            // 系统公共消息会取消 running status
+            mStatus = b < 0xF0 ? b : 0;
+            mDataCount = 0;
+            return;
+        }
+        if (mInSysEx || mStatus == 0) return;
+        int type = mStatus & 0xF0;
+        if (type == 0xC0 || type == 0xD0) {
+            return;
+        }
+        if (mDataCount == 0) {
+            mData1 = b;
+            mDataCount = 1;
+        } else {
+            mDataCount = 0;
+            send(mStatus, mData1, b);
+        }
+    }
+
+    /**
+     * 处理一条已经解析好的通道消息。
+     *
+     * @param status 状态字节
+     * @param data1  第一个数据字节
+     * @param data2  第二个数据字节
+     */
+    public void send(int status, int data1, int data2) {
+        if ((status & 0x0F) == PERCUSSION_CHANNEL) return;
+        // 数据字节只有低 7 位有效，损坏的文件可能传入更大的值
+        data1 &= 0x7F;
+        data2 &= 0x7F;
+        switch (status & 0xF0) {
+            case 0x90:
+                if (data2 > 0) {
+                    set(mPressed, data1, true);
+                    set(mSustained, data1, mSustain);
+                } else {
+                    set(mPressed, data1, false);
+                }
+                break;
+            case 0x80:
+                set(mPressed, data1, false);
+                break;
+            case 0xB0:
+                if (data1 == CONTROL_SUSTAIN) {
+                    mSustain = data2 >= 64;
+                    if (mSustain) {
+                        mSustained[0] |= mPressed[0];
+                        mSustained[1] |= mPressed[1];
+                    } else {
+                        mSustained[0] = 0;
+                        mSustained[1] = 0;
+                    }
+                } else if (data1 == CONTROL_ALL_NOTES_OFF) {
+                    mPressed[0] = mPressed[1] = 0;
+                    mSustained[0] = mSustained[1] = 0;
+                } else {
+                    return;
+                }
+                break;
+            default:
+                return;
+        }
+        update();
+    }
+
+    /**
+     * 释放所有音并清空解析状态，不会回调。
+     */
+    public void reset() {
+        mPressed[0] = mPressed[1] = 0;
+        mSustained[0] = mSustained[1] = 0;
+        mSustain = false;
+        mHeld[0] = mHeld[1] = 0;
+        mHeldMask = 0;
+        mHeldBass = -1;
+        mStatus = 0;
+        mDataCount = 0;
+        mInSysEx = false;
+        mCurrentId = -1;
+        mCurrentVoicing = null;
+        mCurrentCenter = 0;
+    }
+
+    /**
+     * 获取当前发声的音级。
+     *
+     * @return 12 位的音级掩码，第 i 位表示音级 i（0 为 C）。
+     */
+    public int getHeldPitchClasses() {
+        return mHeldMask;
+    }
+
+    /**
+     * 获取当前发声的最低音。
+     *
+     * @return MIDI 音高，没有音时返回 -1。
+     */
+    public int getBassNote() {
+        return mHeldBass;
+    }
+
+    /**
+     * 获取当前识别出的和弦。
+     *
+     * @return 识别结果，还没有识别出和弦或所有音都已松开时返回 NULL。
+     */
+    public ChordRecognizer.Match getMatch() {
+        return mCurrentId == -1 ? null : mMatches[mCurrentId];
+    }
+
+    /**
+     * 获取当前选中的指法。
+     *
+     * @return 指法，还没有识别出和弦或没有可用的指法时返回 NULL。
+     */
+    public Chord getVoicing() {
+        return mCurrentVoicing;
+    }
+
+    private void update() {
+        long low = mPressed[0] | mSustained[0];
+        long high = mPressed[1] | mSustained[1];
+        int mask = 0;
+        // 只需要遍历已设置的位
+        for (long bits = low; bits != 0; bits &= bits - 1) {
+            mask |= 1 << (Long.numberOfTrailingZeros(bits) % 12);
+        }
+        for (long bits = high; bits != 0; bits &= bits - 1) {
+            mask |= 1 << ((64 + Long.numberOfTrailingZeros(bits)) % 12);
+        }
+        int bass = low != 0 ? Long.numberOfTrailingZeros(low)
+                : high != 0 ? 64 + Long.numberOfTrailingZeros(high) : -1;
+        // 发声的音是上一次的子集，说明只松开了音，没有按下新的音
+        boolean releasing = (low & ~mHeld[0]) == 0 && (high & ~mHeld[1]) == 0;
+        mHeld[0] = low;
+        mHeld[1] = high;
+        if (mask == mHeldMask && bass == mHeldBass) return;
+        mHeldMask = mask;
+        mHeldBass = bass;
+        if (bass == -1) {
+            // 所有音都已松开，之后按下的音重新识别，指法仍然选择上一个手的位置附近的
+            mCurrentId = -1;
+            return;
+        }
+
+        // 识别不出和弦时（如单音、双音），或正在逐个松开当前和弦的音时保持显示当前的和弦
+        int id = mTable[(bass % 12) * MASK_COUNT + mask];
+        if (id < 0 || id == mCurrentId) return;
+        if (mCurrentId != -1 && releasing) return;
+        mCurrentId = id;
+        Chord[] voicings = mVoicings[id];
+        float[] centers = mCenters[id];
+        int best = -1;
+        float bestCost = 0;
+        for (int i = 0; i < voicings.length; i++) {
+            float cost = mCurrentVoicing == null ? i : Math.abs(centers[i] - mCurrentCenter) + i * RANK_WEIGHT;
+            if (best == -1 || cost < bestCost) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        if (best != -1) {
+            mCurrentVoicing = voicings[best];
+            mCurrentCenter = centers[best];
+        } else {
+            mCurrentVoicing = null;
+        }
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onChordChanged(mMatches[id], mCurrentVoicing);
+        }
+    }
+
+    private static void set(long[] bits, int note, boolean value) {
+        int word = note >> 6;
+        long bit = 1L << (note & 63);
+        if (value) {
+            bits[word] |= bit;
+        } else {
+            bits[word] &= ~bit;
+        }
+    }
+
+    /**
+     * 获取按下的品的平均值，作为手的位置，空弦和弦为 0。
+     */
+    private static float getCenter(int[] frets) {
+        int sum = 0, count = 0;
+        for (int fret : frets) {
+            if (fret < 1) continue;
+            sum += fret;
+            count++;
+        }
+        return count == 0 ? 0f : (float) sum / count;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.midi;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 标准 MIDI 文件（SMF）读取工具。读取文件头和所有音轨后，通过 {@link #read(Handler)} 按时间顺序
+ * 回调所有音轨中的通道消息，同一时刻的消息按音轨顺序回调。元事件和 SysEx 会被跳过，速度变化单独回调。
+ *
+ * @author airsaid
+ */
+public class MidiFileReader {
+
+    /**
+     * 消息回调。
+     */
+    public interface Handler {
+
+        /**
+         * 通道消息。
+         *
+         * @param tick   绝对时间，单位为 tick
+         * @param status 状态字节
+         * @param data1  第一个数据字节
+         * @param data2  第二个数据字节，只有一个数据字节的消息为 0
+         */
+        void onMessage(long tick, int status, int data1, int data2);
+
+        /**
+         * 速度变化。
+         *
+         * @param tick                   绝对时间，单位为 tick
+         * @param microsecondsPerQuarter 每个四分音符的微秒数
+         */
+        void onTempo(long tick, int microsecondsPerQuarter);
+    }
+
+    /** 单个块允许的最大长度，超过时视为文件损坏，避免分配过大的数组 */
+    private static final int MAX_CHUNK_LENGTH = 16 * 1024 * 1024;
+
+    private final int mFormat;
+    private final int mDivision;
+    private final byte[][] mTracks;
+
+    /**
+     * 读取文件头和所有音轨的数据。
+     *
+     * @param in 输入流，不会被关闭
+     * @throws IOException 不是标准 MIDI 文件或读取失败时抛出
+     */
+    public MidiFileReader(InputStream in) throws IOException {
+        byte[] chunk = new byte[8];
+        readFully(in, chunk);
+        if (!isType(chunk, "MThd")) {
+            throw new IOException("Not a MIDI file");
+        }
+        byte[] header = new byte[getChunkLength(chunk)];
+        readFully(in, header);
+        if (header.length < 6) {
+            throw new IOException("Invalid MIDI header");
+        }
+        mFormat = getShort(header, 0);
+        int trackCount = getShort(header, 2);
+        mDivision = getShort(header, 4);
+        mTracks = new byte[trackCount][];
+        int track = 0;
+        while (track < trackCount) {
+            readFully(in, chunk);
+            byte[] data = new byte[getChunkLength(chunk)];
+            readFully(in, data);
+            // 跳过未知类型的块
+            if (isType(chunk, "MTrk")) {
+                mTracks[track++] = data;
+            }
+        }
+    }
+
+    public int getFormat() {
+        return mFormat;
+    }
+
+    public int getTrackCount() {
+        return mTracks.length;
+    }
+
+    /**
+     * 获取时间单位。
+     *
+     * @return 最高位为 0 时为每个四分音符的 tick 数，否则为 SMPTE 格式。
+     */
+    public int getDivision() {
+        return mDivision;
+    }
+
+    /**
+     * 按时间顺序回调所有音轨中的消息，可以多次调用。
+     *
+     * @param handler 回调对象
+     * @throws IOException 音轨数据有误时抛出
+     */
+    public void read(Handler handler) throws IOException {
+        int count = mTracks.length;
+        TrackCursor[] cursors = new TrackCursor[count];
+        for (int i = 0; i < count; i++) {
+            cursors[i] = new TrackCursor(mTracks[i]);
+            cursors[i].readDelta();
+        }
+        while (true) {
+            TrackCursor next = null;
+            for (int i = 0; i < count; i++) {
+                TrackCursor cursor = cursors[i];
+                if (!cursor.finished && (next == null || cursor.tick < next.tick)) {
+                    next = cursor;
+                }
+            }
+            if (next == null) return;
+            next.readEvent(handler);
+            next.readDelta();
+        }
+    }
+
+    /**
+     * 音轨的读取位置。
+     */
+    private static final class TrackCursor {
+
+        final byte[] data;
+        int position;
+        long tick;
+        int status;
+        boolean finished;
+
+        TrackCursor(byte[] data) {
+            this.data = data;
+        }
+
+        void readDelta() throws IOException {
+            if (position >= data.length) {
+                finished = true;
+                return;
+            }
+            tick += readVariable();
+        }
+
+        void readEvent(Handler handler) throws IOException {
+            int b = readByte();
+            if (b == 0xFF) {
+                int type = readByte();
+                int length = readVariable();
+                if (type == 0x2F) {
+                    // 音轨结束
+                    finished = true;
+                } else if (type == 0x51 && length == 3) {
+                    handler.onTempo(tick, (readByte() << 16) | (readByte() << 8) | readByte());
+                    length = 0;
+                }
+                skip(length);
+                return;
+            }
+            if (b == 0xF0 || b == 0xF7) {
+                skip(readVariable());
+                return;
+            }
+            int data1;
+            if (b < 0x80) {
+                if (status == 0) throw new IOException("Running status without status byte");
+                data1 = b;
+            } else {
+                status = b;
+                data1 = readByte();
+            }
+            int type = status & 0xF0;
+            int data2 = type == 0xC0 || type == 0xD0 ? 0 : readByte();
+            handler.onMessage(tick, status, data1, data2);
+        }
+
+        int readByte() throws IOException {
+            if (position >= data.length) throw new EOFException("Unexpected end of track");
+            return data[position++] & 0xFF;
+        }
+
+        int readVariable() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = readByte();
+                value = (value << 7) | (b & 0x7F);
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Variable-length quantity too long");
+        }
+
+        void skip(int length) throws IOException {
+            if (position + length > data.length) throw new EOFException("Unexpected end of track");
+            position += length;
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) throw new EOFException();
+            read += n;
+        }
+    }
+
+    private static boolean isType(byte[] chunk, String type) {
+        for (int i = 0; i < 4; i++) {
+            if (chunk[i] != type.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int getChunkLength(byte[] chunk) throws IOException {
+        int length = getInt(chunk, 4);
+        if (length < 0 || length > MAX_CHUNK_LENGTH) {
+            throw new IOException("Invalid chunk length: " + (length & 0xFFFFFFFFL));
+        }
+        return length;
+    }
+
+    private static int getInt(byte[] buffer, int p) {
+        return (buffer[p] & 0xFF) << 24 | (buffer[p + 1] & 0xFF) << 16
+                | (buffer[p + 2] & 0xFF) << 8 | (buffer[p + 3] & 0xFF);
+    }
+
+    private static int getShort(byte[] buffer, int p) {
+        return (buffer[p] & 0xFF) << 8 | (buffer[p + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.theory;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.ChordHelper;
+import com.github.airsaid.library.widget.PackedChord;
+
+import java.util.Arrays;
+
+/**
+ * 指法难度评分。分数越高越难弹，由以下几部分组成：
+ * <ul>
+ *     <li>手指跨度（最大品 - 最小品），超过 3 品的部分额外按平方计算</li>
+ *     <li>横按段数与横按覆盖的弦数（通过 {@link ChordHelper#getBarres(int[], int[], int[])} 计算）</li>
+ *     <li>按下的弦数</li>
+ *     <li>夹在发声的弦之间的闭弦，需要用手指额外制音</li>
+ *     <li>把位高低</li>
+ * </ul>
+ * 需要的手指超过 4 根的指法额外加上 {@link #UNPLAYABLE}，会排在所有可弹的指法之后。
+ *
+ * 批量方法直接处理 {@link PackedChord} 数组，每次调用只创建几个复用的临时数组，评分过程中不会为每个指法创建对象，
+ * 适合对大型指法库评分和排序。评分器不持有计算过程中的状态，同一个实例可以在多个线程中同时使用，但不要同时修改权重。
+ *
+ * @author airsaid
+ */
+public class DifficultyScorer {
+
+    /** 需要的手指超过 4 根时额外增加的分数 */
+    public static final float UNPLAYABLE = 100f;
+    /** 简单难度的最高分数（不包括） */
+    public static final float EASY_MAX = 3f;
+    /** 中等难度的最高分数（不包括） */
+    public static final float MEDIUM_MAX = 6f;
+
+    /** 简单 */
+    public static final int LEVEL_EASY = 0;
+    /** 中等 */
+    public static final int LEVEL_MEDIUM = 1;
+    /** 困难 */
+    public static final int LEVEL_HARD = 2;
+
+    /** 不需要额外计算的手指跨度 */
+    private static final int COMFORTABLE_STRETCH = 3;
+    /** 按弦的手指数 */
+    private static final int FINGERS = 4;
+    private static final int STRING = Chord.STRING;
+
+    private float mStretchWeight = 0.5f;
+    private float mOverStretchWeight = 1f;
+    private float mBarreWeight = 1.5f;
+    private float mBarreLengthWeight = 0.1f;
+    private float mNoteWeight = 0.25f;
+    private float mMutedInnerWeight = 0.75f;
+    private float mPositionWeight = 0.05f;
+
+    /**
+     * 计算和弦的难度分数。
+     *
+     * @param chord 和弦对象
+     * @return 难度分数，没有按下任何弦时为 0。
+     */
+    public float score(Chord chord) {
+        return score(chord.getFrets(), chord.getFingers(), new int[ChordHelper.MAX_BARRES]);
+    }
+
+    /**
+     * 计算打包指法的难度分数。
+     *
+     * @param packed 打包的指法
+     * @return 难度分数。
+     */
+    public float score(long packed) {
+        return score(packed, new int[STRING], new int[STRING], new int[ChordHelper.MAX_BARRES]);
+    }
+
+    /**
+     * 批量计算打包指法的难度分数。
+     *
+     * @param packed 打包的指法
+     * @param offset 起始角标
+     * @param count  数量
+     * @param out    难度分数，out[i] 对应 packed[offset + i]
+     */
+    public void scoreAll(long[] packed, int offset, int count, float[] out) {
+        int[] frets = new int[STRING];
+        int[] fingers = new int[STRING];
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        for (int i = 0; i < count; i++) {
+            out[i] = score(packed[offset + i], frets, fingers, barres);
+        }
+    }
+
+    /**
+     * 将打包指法按难度从低到高排序，难度相同时保持原来的顺序。
+     *
+     * @param packed 打包的指法
+     * @param from   起始角标（包括）
+     * @param to     截止角标（不包括）
+     */
+    public void sort(long[] packed, int from, int to) {
+        int count = to - from;
+        if (count < 2) return;
+        int[] frets = new int[STRING];
+        int[] fingers = new int[STRING];
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        // 分数转换为可按整数比较的值放在高 32 位，原角标放在低 32 位，排序一个 long 数组即可
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int bits = Float.floatToIntBits(score(packed[from + i], frets, fingers, barres));
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            keys[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(keys);
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = packed[from + (int) keys[i]];
+        }
+        System.arraycopy(sorted, 0, packed, from, count);
+    }
+
+    /**
+     * 查找最简单的指法，用于显示和弦的简单版本。
+     *
+     * @param packed 打包的指法
+     * @param offset 起始角标
+     * @param count  数量
+     * @return 最简单的指法的角标，count 为 0 时返回 -1。
+     */
+    public int findEasiest(long[] packed, int offset, int count) {
+        int[] frets = new int[STRING];
+        int[] fingers = new int[STRING];
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        int easiest = -1;
+        float best = Float.MAX_VALUE;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            float score = score(packed[i], frets, fingers, barres);
+            if (score < best) {
+                best = score;
+                easiest = i;
+            }
+        }
+        return easiest;
+    }
+
+    /**
+     * 获取难度分数对应的难度等级。
+     *
+     * @param score 难度分数
+     * @return {@link #LEVEL_EASY}、{@link #LEVEL_MEDIUM} 或 {@link #LEVEL_HARD}。
+     */
+    public static int getLevel(float score) {
+        if (score < EASY_MAX) return LEVEL_EASY;
+        if (score < MEDIUM_MAX) return LEVEL_MEDIUM;
+        return LEVEL_HARD;
+    }
+
+    private float score(long packed, int[] frets, int[] fingers, int[] barres) {
+        PackedChord.unpackFrets(packed, frets);
+        if (PackedChord.hasFingers(packed)) {
+            PackedChord.unpackFingers(packed, fingers);
+            return score(frets, fingers, barres);
+        }
+        return score(frets, null, barres);
+    }
+
+    private float score(int[] frets, int[] fingers, int[] barres) {
+        int least = ChordHelper.getLeastFret(frets);
+        if (least == -1) {
+            return 0f;
+        }
+        int stretch = ChordHelper.getLargestFret(frets) - least;
+        float score = mStretchWeight * stretch + mPositionWeight * (least - 1);
+        if (stretch > COMFORTABLE_STRETCH) {
+            int over = stretch - COMFORTABLE_STRETCH;
+            score += mOverStretchWeight * over * over;
+        }
+
+        int barreCount = ChordHelper.getBarres(frets, fingers, barres);
+        for (int i = 0; i < barreCount; i++) {
+            int barre = barres[i];
+            score += mBarreWeight + mBarreLengthWeight
+                    * (ChordHelper.getBarreString(barre) - ChordHelper.getBarreFromString(barre));
+        }
+
+        // 按下的弦数，以及不在横按段上、需要单独用一根手指按的弦数
+        int notes = 0, single = 0;
+        int first = -1, last = -1;
+        for (int index = 0; index < frets.length; index++) {
+            int fret = frets[index];
+            if (fret >= 0) {
+                if (first == -1) first = index;
+                last = index;
+            }
+            if (fret < 1) continue;
+            notes++;
+            if (!isCoveredByBarre(frets, index, barres, barreCount)) single++;
+        }
+        score += mNoteWeight * notes;
+        if (single + barreCount > FINGERS) {
+            score += UNPLAYABLE;
+        }
+
+        int mutedInner = 0;
+        for (int index = first + 1; index < last; index++) {
+            if (frets[index] < 0) mutedInner++;
+        }
+        return score + mMutedInnerWeight * mutedInner;
+    }
+
+    private static boolean isCoveredByBarre(int[] frets, int index, int[] barres, int barreCount) {
+        for (int i = 0; i < barreCount; i++) {
+            if (ChordHelper.isCoveredByBarre(frets, index, barres[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 设置手指跨度（每品）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setStretchWeight(float weight) {
+        mStretchWeight = weight;
+    }
+
+    /**
+     * 设置跨度超过 3 品时，超出部分（按平方计算）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setOverStretchWeight(float weight) {
+        mOverStretchWeight = weight;
+    }
+
+    /**
+     * 设置每个横按段的权重。
+     *
+     * @param weight 权重
+     */
+    public void setBarreWeight(float weight) {
+        mBarreWeight = weight;
+    }
+
+    /**
+     * 设置横按段每多覆盖一根弦的权重。
+     *
+     * @param weight 权重
+     */
+    public void setBarreLengthWeight(float weight) {
+        mBarreLengthWeight = weight;
+    }
+
+    /**
+     * 设置每根按下的弦的权重。
+     *
+     * @param weight 权重
+     */
+    public void setNoteWeight(float weight) {
+        mNoteWeight = weight;
+    }
+
+    /**
+     * 设置每根夹在发声的弦之间的闭弦的权重。
+     *
+     * @param weight 权重
+     */
+    public void setMutedInnerWeight(float weight) {
+        mMutedInnerWeight = weight;
+    }
+
+    /**
+     * 设置把位高低（每品）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setPositionWeight(float weight) {
+        mPositionWeight = weight;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.theory;
+
+/**
+ * 音阶。以相对根音的音程（半音数）保存，通过 {@link #getPitchClassMask(int)} 得到指定根音下包含的音级。
+ *
+ * @author airsaid
+ */
+public final class Scale {
+
+    /** 大调（自然大调） */
+    public static final Scale MAJOR = new Scale("Major", 0, 2, 4, 5, 7, 9, 11);
+    /** 自然小调 */
+    public static final Scale NATURAL_MINOR = new Scale("Natural Minor", 0, 2, 3, 5, 7, 8, 10);
+    /** 和声小调 */
+    public static final Scale HARMONIC_MINOR = new Scale("Harmonic Minor", 0, 2, 3, 5, 7, 8, 11);
+    /** 多利亚调式 */
+    public static final Scale DORIAN = new Scale("Dorian", 0, 2, 3, 5, 7, 9, 10);
+    /** 混合利底亚调式 */
+    public static final Scale MIXOLYDIAN = new Scale("Mixolydian", 0, 2, 4, 5, 7, 9, 10);
+    /** 大调五声音阶 */
+    public static final Scale MAJOR_PENTATONIC = new Scale("Major Pentatonic", 0, 2, 4, 7, 9);
+    /** 小调五声音阶 */
+    public static final Scale MINOR_PENTATONIC = new Scale("Minor Pentatonic", 0, 3, 5, 7, 10);
+    /** 布鲁斯音阶 */
+    public static final Scale BLUES = new Scale("Blues", 0, 3, 5, 6, 7, 10);
+
+    private final String mName;
+    private final int mMask;
+
+    /**
+     * 创建音阶。
+     *
+     * @param name      名称
+     * @param intervals 相对根音的音程，范围 0 ~ 11
+     */
+    public Scale(String name, int... intervals) {
+        int mask = 0;
+        for (int interval : intervals) {
+            if (interval < 0 || interval > 11) {
+                throw new IllegalArgumentException("Interval out of range: " + interval);
+            }
+            mask |= 1 << interval;
+        }
+        mName = name;
+        mMask = mask;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 获取音阶中的音数。
+     *
+     * @return 音数。
+     */
+    public int size() {
+        return Integer.bitCount(mMask);
+    }
+
+    /**
+     * 获取根音为 C 时包含的音级。
+     *
+     * @return 12 位的音程掩码，第 i 位表示相对根音 i 个半音。
+     */
+    public int getIntervalMask() {
+        return mMask;
+    }
+
+    /**
+     * 获取指定根音下包含的音级。
+     *
+     * @param root 根音的音级，0 为 C
+     * @return 12 位的音级掩码，第 i 位表示音级 i。
+     */
+    public int getPitchClassMask(int root) {
+        return rotate(mMask, root);
+    }
+
+    /**
+     * 将音程掩码移动到指定的根音上。
+     *
+     * @param mask 12 位的音程掩码
+     * @param root 根音的音级
+     * @return 12 位的音级掩码。
+     */
+    public static int rotate(int mask, int root) {
+        root = ((root % 12) + 12) % 12;
+        return ((mask << root) | (mask >>> (12 - root))) & 0xFFF;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
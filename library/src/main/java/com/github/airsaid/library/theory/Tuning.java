@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.theory;
+
+import com.github.airsaid.library.widget.Chord;
+
+import java.util.Arrays;
+
+/**
+ * 调弦。保存每根空弦的 MIDI 音高，顺序与 {@link Chord#getFrets()} 相同，即角标 0 为 6 弦，角标 5 为 1 弦。
+ *
+ * @author airsaid
+ */
+public final class Tuning {
+
+    /** 标准调弦 E A D G B E */
+    public static final Tuning STANDARD = new Tuning(40, 45, 50, 55, 59, 64);
+    /** Drop D 调弦 D A D G B E */
+    public static final Tuning DROP_D = new Tuning(38, 45, 50, 55, 59, 64);
+    /** 降半音调弦 Eb Ab Db Gb Bb Eb */
+    public static final Tuning HALF_STEP_DOWN = new Tuning(39, 44, 49, 54, 58, 63);
+
+    private final int[] mNotes;
+
+    /**
+     * 创建调弦。
+     *
+     * @param notes 每根空弦的 MIDI 音高，从 6 弦到 1 弦，个数必须为 {@link Chord#STRING}
+     */
+    public Tuning(int... notes) {
+        if (notes.length != Chord.STRING) {
+            throw new IllegalArgumentException("Tuning must have " + Chord.STRING + " strings: " + notes.length);
+        }
+        mNotes = notes.clone();
+    }
+
+    /**
+     * 获取指定弦上指定品的 MIDI 音高。
+     *
+     * @param index 弦的角标，0 为 6 弦
+     * @param fret  品，0 为空弦
+     * @return MIDI 音高。
+     */
+    public int getNote(int index, int fret) {
+        return mNotes[index] + fret;
+    }
+
+    /**
+     * 获取指定弦上指定品的频率。
+     *
+     * @param index 弦的角标，0 为 6 弦
+     * @param fret  品，0 为空弦
+     * @return 频率，单位 Hz。
+     */
+    public double getFrequency(int index, int fret) {
+        return frequencyOf(getNote(index, fret));
+    }
+
+    /**
+     * 获取 MIDI 音高对应的频率（十二平均律，A4 = 440 Hz）。
+     *
+     * @param note MIDI 音高
+     * @return 频率，单位 Hz。
+     */
+    public static double frequencyOf(int note) {
+        return 440d * Math.pow(2d, (note - 69) / 12d);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Tuning)) return false;
+        return Arrays.equals(mNotes, ((Tuning) o).mNotes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(mNotes);
+    }
+
+    @Override
+    public String toString() {
+        return "Tuning" + Arrays.toString(mNotes);
+    }
+}
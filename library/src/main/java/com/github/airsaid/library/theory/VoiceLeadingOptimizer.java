@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.theory;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.ChordHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 声部进行优化器。为和弦进行中的每个和弦从候选指法中选出一个，使整首歌的换把移动和手指伸展最小。
+ *
+ * 代价由两部分组成：
+ * <ul>
+ *     <li>指法本身的代价：跨度（最大品 - 最小品）、横按段数（通过 {@link ChordHelper#getBarres(int[], int[], int[])} 计算）和把位高低</li>
+ *     <li>相邻两个指法之间的代价：手的位置（按下的品的平均值）的移动距离，以及需要变化的弦数</li>
+ * </ul>
+ * 通过动态规划求出总代价最小的指法序列，时间复杂度为 O(n * k²)，n 为和弦数，k 为每个和弦的候选指法数。
+ * 优化器不持有计算过程中的状态，同一个实例可以在多个线程中同时使用，但不要同时修改权重。
+ *
+ * @author airsaid
+ */
+public class VoiceLeadingOptimizer {
+
+    /**
+     * 和弦指法提供者，根据和弦名称获取所有可用的指法。
+     */
+    public interface VoicingProvider {
+
+        /**
+         * 获取指定和弦的候选指法。
+         *
+         * @param name 和弦名称
+         * @return 候选指法，没有可用的指法时返回 NULL 或空列表。
+         */
+        List<Chord> getVoicings(String name);
+    }
+
+    private float mMoveWeight = 1f;
+    private float mChangeWeight = 0.25f;
+    private float mStretchWeight = 0.5f;
+    private float mBarreWeight = 1.5f;
+    private float mPositionWeight = 0.05f;
+
+    /**
+     * 根据和弦名称优化整个和弦进行。
+     *
+     * @param names    和弦名称列表
+     * @param provider 和弦指法提供者
+     * @return 选中的指法列表，与和弦名称一一对应，可直接交给 ChordView 显示。
+     * @throws IllegalArgumentException 某个和弦没有可用的指法时抛出
+     */
+    public List<Chord> optimize(List<String> names, VoicingProvider provider) {
+        List<List<Chord>> candidates = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            List<Chord> voicings = provider.getVoicings(name);
+            if (voicings == null || voicings.isEmpty()) {
+                throw new IllegalArgumentException("No voicing for chord: " + name);
+            }
+            candidates.add(voicings);
+        }
+        return optimizeVoicings(candidates);
+    }
+
+    /**
+     * 从每一步的候选指法中选出总代价最小的指法序列。
+     *
+     * @param candidates 每一步的候选指法，不能为空
+     * @return 选中的指法列表，与每一步一一对应。
+     * @throws IllegalArgumentException 某一步没有候选指法时抛出
+     */
+    public List<Chord> optimizeVoicings(List<? extends List<Chord>> candidates) {
+        int steps = candidates.size();
+        if (steps == 0) {
+            return new ArrayList<>(0);
+        }
+        // 所有候选指法平铺存放，offsets[i] 为第 i 步的第一个候选
+        int[] offsets = new int[steps + 1];
+        for (int i = 0; i < steps; i++) {
+            int size = candidates.get(i).size();
+            if (size == 0) {
+                throw new IllegalArgumentException("No voicing for step: " + i);
+            }
+            offsets[i + 1] = offsets[i] + size;
+        }
+        int total = offsets[steps];
+        Chord[] chords = new Chord[total];
+        int[][] frets = new int[total][];
+        float[] centers = new float[total];
+        float[] costs = new float[total];
+        int[] parents = new int[total];
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        for (int i = 0; i < steps; i++) {
+            List<Chord> list = candidates.get(i);
+            for (int j = 0; j < list.size(); j++) {
+                int index = offsets[i] + j;
+                Chord chord = list.get(j);
+                chords[index] = chord;
+                frets[index] = chord.getFrets();
+                centers[index] = getCenter(frets[index]);
+                costs[index] = getVoicingCost(frets[index], chord.getFingers(), barres);
+            }
+        }
+
+        // costs[index] 依次累加为到达该指法的最小总代价
+        Arrays.fill(parents, 0, offsets[1], -1);
+        for (int i = 1; i < steps; i++) {
+            for (int to = offsets[i]; to < offsets[i + 1]; to++) {
+                float best = Float.MAX_VALUE;
+                int parent = -1;
+                for (int from = offsets[i - 1]; from < offsets[i]; from++) {
+                    float cost = costs[from] + getTransitionCost(frets[from], centers[from], frets[to], centers[to]);
+                    if (cost < best) {
+                        best = cost;
+                        parent = from;
+                    }
+                }
+                costs[to] += best;
+                parents[to] = parent;
+            }
+        }
+
+        int last = offsets[steps - 1];
+        for (int index = last + 1; index < total; index++) {
+            if (costs[index] < costs[last]) last = index;
+        }
+        Chord[] result = new Chord[steps];
+        for (int i = steps - 1, index = last; i >= 0; i--, index = parents[index]) {
+            result[i] = chords[index];
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    /**
+     * 计算指定指法序列的总代价，与 {@link #optimizeVoicings(List)} 使用相同的代价模型。
+     *
+     * @param voicings 指法序列
+     * @return 总代价。
+     */
+    public float getTotalCost(List<Chord> voicings) {
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        float total = 0f;
+        for (int i = 0; i < voicings.size(); i++) {
+            Chord chord = voicings.get(i);
+            total += getVoicingCost(chord.getFrets(), chord.getFingers(), barres);
+            if (i > 0) {
+                int[] previous = voicings.get(i - 1).getFrets();
+                total += getTransitionCost(previous, getCenter(previous), chord.getFrets(), getCenter(chord.getFrets()));
+            }
+        }
+        return total;
+    }
+
+    private float getVoicingCost(int[] frets, int[] fingers, int[] barres) {
+        int least = ChordHelper.getLeastFret(frets);
+        if (least == -1) {
+            return 0f;
+        }
+        int stretch = ChordHelper.getLargestFret(frets) - least;
+        int barreCount = ChordHelper.getBarres(frets, fingers, barres);
+        return mStretchWeight * stretch + mBarreWeight * barreCount + mPositionWeight * least;
+    }
+
+    private float getTransitionCost(int[] from, float fromCenter, int[] to, float toCenter) {
+        float cost = 0f;
+        // 空弦和弦没有把位，不计算移动距离
+        if (fromCenter > 0 && toCenter > 0) {
+            cost += mMoveWeight * Math.abs(fromCenter - toCenter);
+        }
+        int changes = 0;
+        int length = Math.min(from.length, to.length);
+        for (int i = 0; i < length; i++) {
+            if (from[i] != to[i]) changes++;
+        }
+        return cost + mChangeWeight * changes;
+    }
+
+    /**
+     * 获取按下的品的平均值，作为手的位置。
+     */
+    private static float getCenter(int[] frets) {
+        int sum = 0, count = 0;
+        for (int fret : frets) {
+            if (fret < 1) continue;
+            sum += fret;
+            count++;
+        }
+        return count == 0 ? 0f : (float) sum / count;
+    }
+
+    /**
+     * 设置换把移动距离（每品）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setMoveWeight(float weight) {
+        mMoveWeight = weight;
+    }
+
+    /**
+     * 设置相邻指法之间每根变化的弦的权重。
+     *
+     * @param weight 权重
+     */
+    public void setChangeWeight(float weight) {
+        mChangeWeight = weight;
+    }
+
+    /**
+     * 设置手指跨度（每品）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setStretchWeight(float weight) {
+        mStretchWeight = weight;
+    }
+
+    /**
+     * 设置每个横按段的权重。
+     *
+     * @param weight 权重
+     */
+    public void setBarreWeight(float weight) {
+        mBarreWeight = weight;
+    }
+
+    /**
+     * 设置把位高低（每品）的权重。
+     *
+     * @param weight 权重
+     */
+    public void setPositionWeight(float weight) {
+        mPositionWeight = weight;
+    }
+}
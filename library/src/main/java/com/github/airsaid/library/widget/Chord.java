@@ -16,22 +16,38 @@
 
 package com.github.airsaid.library.widget;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * 和铉。根据规则，当品数据为 -1 时表示闭弦，为 0 时表示空弦。
  *
+ * 和弦按品和指法比较是否相等，哈希值在第一次使用时计算并缓存，通过 setter 修改后会重新计算。
+ * 作为缓存的 key 或经过 {@link ChordPool} 共享后，不要再直接修改 {@link #getFrets()} 等返回的数组。
+ *
+ * 序列化时可以打包的和弦只写入一个 long（见 {@link PackedChord}），大量和弦可以通过
+ * {@link #writeChordList(Parcel, List)} 批量序列化。
+ *
  * @author airsaid
  */
-public class Chord {
+public class Chord implements Parcelable {
 
     /** 弦数 */
     public static final int STRING = 6;
 
+    /** 序列化时表示和弦为 NULL */
+    private static final long PARCEL_NULL = -2L;
+
     /** 品 */
     private int[] frets;
     /** 指法 */
     private int[] fingers;
+    /** 缓存的哈希值，为 0 时表示尚未计算 */
+    private int hash;
 
     public Chord() {}
 
@@ -50,6 +66,7 @@ public class Chord {
 
     public void setFrets(int[] frets) {
         this.frets = frets;
+        this.hash = 0;
     }
 
     public int[] getFingers() {
@@ -58,6 +75,7 @@ public class Chord {
 
     public void setFingers(int[] fingers) {
         this.fingers = fingers;
+        this.hash = 0;
     }
 
     /**
@@ -66,10 +84,7 @@ public class Chord {
      * @return 当该和弦中有空弦时则返回 true，否则返回 false。
      */
     public boolean isEmptyString() {
-        for (int fret : frets) {
-            if (fret == 0) return true;
-        }
-        return false;
+        return ChordHelper.isEmptyString(frets);
     }
 
     /**
@@ -78,10 +93,7 @@ public class Chord {
      * @return 当该和弦中有闭弦时则返回 true，否则返回 false
      */
     public boolean isClosedString() {
-        for (int fret : frets) {
-            if (fret == -1) return true;
-        }
-        return false;
+        return ChordHelper.isClosedString(frets);
     }
 
     /**
@@ -90,24 +102,7 @@ public class Chord {
      * @return 最小品，当没有找到时会返回 -1。（这种情况一般不会出现，除非 frets 数据有问题）
      */
     public int getLeastFret() {
-        int leastFret = -1;
-        for (int i = 0; i < frets.length; i++) {
-            int fret = frets[i];
-            // 不处理小于 1 品的情况
-            if (fret < 1) {
-                continue;
-            }
-            // 第一次为 leastFret 赋值
-            if (leastFret == -1) {
-                leastFret = fret;
-                continue;
-            }
-            // 对后面的数依次进行比较，得到最小的品
-            if (fret < leastFret) {
-                leastFret = fret;
-            }
-        }
-        return leastFret;
+        return ChordHelper.getLeastFret(frets);
     }
 
     /**
@@ -116,24 +111,7 @@ public class Chord {
      * @return 最大品，当没有找到时会返回 -1。（这种情况一般不会出现，除非 frets 数据有问题）
      */
     public int getLargestFret() {
-        int largest = -1;
-        for (int i = 0; i < frets.length; i++) {
-            int fret = frets[i];
-            // 不处理小于 1 品的情况
-            if (fret < 1) {
-                continue;
-            }
-            // 第一次为 largest 赋值
-            if (largest == -1) {
-                largest = fret;
-                continue;
-            }
-            // 对后面的数依次进行比较，得到最大的品
-            if (fret > largest) {
-                largest = fret;
-            }
-        }
-        return largest;
+        return ChordHelper.getLargestFret(frets);
     }
 
     /**
@@ -146,6 +124,108 @@ public class Chord {
         return frets[STRING - string];
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Chord chord = (Chord) o;
+        return hashCode() == chord.hashCode()
+                && Arrays.equals(frets, chord.frets)
+                && Arrays.equals(fingers, chord.fingers);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * Arrays.hashCode(frets) + Arrays.hashCode(fingers);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        long packed = PackedChord.canPack(frets, fingers) ? PackedChord.pack(frets, fingers) : PackedChord.NONE;
+        dest.writeLong(packed);
+        if (packed == PackedChord.NONE) {
+            dest.writeIntArray(frets);
+            dest.writeIntArray(fingers);
+        }
+    }
+
+    public static final Creator<Chord> CREATOR = new Creator<Chord>() {
+        @Override
+        public Chord createFromParcel(Parcel source) {
+            long packed = source.readLong();
+            if (packed != PackedChord.NONE) {
+                return PackedChord.unpack(packed);
+            }
+            return new Chord(source.createIntArray(), source.createIntArray());
+        }
+
+        @Override
+        public Chord[] newArray(int size) {
+            return new Chord[size];
+        }
+    };
+
+    /**
+     * 批量序列化和弦列表。可以打包的和弦被写入同一个 long 数组，其余的和弦在之后逐个写入。
+     *
+     * @param dest   Parcel 对象
+     * @param chords 和弦列表，元素可以为 NULL
+     */
+    public static void writeChordList(Parcel dest, List<Chord> chords) {
+        int size = chords.size();
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            Chord chord = chords.get(i);
+            if (chord == null) {
+                packed[i] = PARCEL_NULL;
+            } else if (PackedChord.canPack(chord.frets, chord.fingers)) {
+                packed[i] = PackedChord.pack(chord.frets, chord.fingers);
+            } else {
+                packed[i] = PackedChord.NONE;
+            }
+        }
+        dest.writeLongArray(packed);
+        for (int i = 0; i < size; i++) {
+            if (packed[i] == PackedChord.NONE) {
+                Chord chord = chords.get(i);
+                dest.writeIntArray(chord.frets);
+                dest.writeIntArray(chord.fingers);
+            }
+        }
+    }
+
+    /**
+     * 读取通过 {@link #writeChordList(Parcel, List)} 序列化的和弦列表。
+     *
+     * @param source Parcel 对象
+     * @param pool   用于合并相同和弦的和弦池，为 NULL 时每个和弦都创建新的对象
+     * @return 和弦列表。
+     */
+    public static List<Chord> readChordList(Parcel source, ChordPool pool) {
+        long[] packed = source.createLongArray();
+        List<Chord> chords = new ArrayList<>(packed.length);
+        for (long value : packed) {
+            if (value == PARCEL_NULL) {
+                chords.add(null);
+            } else if (value == PackedChord.NONE) {
+                chords.add(new Chord(source.createIntArray(), source.createIntArray()));
+            } else {
+                chords.add(pool != null ? pool.intern(value) : PackedChord.unpack(value));
+            }
+        }
+        return chords;
+    }
+
     @Override
     public String toString() {
         return "Chord{" +
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.annotation.MainThread;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 和弦缓存管理器。统一管理 ChordView 相关的所有缓存（字形图集、和弦池等），
+ * 在系统内存不足时（{@link ComponentCallbacks2#onTrimMemory(int)}）按内存紧张程度成比例地释放缓存，
+ * 并提供每个缓存当前占用内存的统计。
+ *
+ * 在 Application 中调用 {@link #install(Context)} 开启。所有方法都应在主线程中调用。
+ *
+ * @author airsaid
+ */
+public class ChordCacheManager implements ComponentCallbacks2 {
+
+    /**
+     * 可以被释放的缓存。
+     */
+    public interface Cache {
+
+        /**
+         * 获取缓存的名称，用于统计。
+         *
+         * @return 名称。
+         */
+        String getName();
+
+        /**
+         * 获取缓存当前占用的内存（可以是估算值）。
+         *
+         * @return 字节数。
+         */
+        long getSizeBytes();
+
+        /**
+         * 释放缓存，只保留指定比例的内容。
+         *
+         * @param fraction 保留的比例，范围 0 ~ 1，为 0 时清空缓存
+         */
+        void trimToFraction(float fraction);
+    }
+
+    private static ChordCacheManager sInstance;
+
+    private final List<Cache> mCaches = new ArrayList<>();
+    private boolean mInstalled;
+
+    /**
+     * 获取缓存管理器，内置的字形图集和默认和弦池已经注册。
+     *
+     * @return 缓存管理器对象。
+     */
+    @MainThread
+    public static ChordCacheManager getInstance() {
+        if (sInstance == null) {
+            ChordCacheManager manager = new ChordCacheManager();
+            manager.register(GLYPH_ATLAS_CACHE);
+            manager.register(ChordPool.getDefault());
+            sInstance = manager;
+        }
+        return sInstance;
+    }
+
+    ChordCacheManager() {}
+
+    /**
+     * 监听系统的内存回调。重复调用不会重复监听。
+     *
+     * @param context 上下文对象
+     */
+    @MainThread
+    public void install(Context context) {
+        if (mInstalled) return;
+        context.getApplicationContext().registerComponentCallbacks(this);
+        mInstalled = true;
+    }
+
+    /**
+     * 停止监听系统的内存回调。
+     *
+     * @param context 上下文对象
+     */
+    @MainThread
+    public void uninstall(Context context) {
+        if (!mInstalled) return;
+        context.getApplicationContext().unregisterComponentCallbacks(this);
+        mInstalled = false;
+    }
+
+    /**
+     * 注册缓存。
+     *
+     * @param cache 缓存对象
+     */
+    @MainThread
+    public void register(Cache cache) {
+        if (!mCaches.contains(cache)) {
+            mCaches.add(cache);
+        }
+    }
+
+    /**
+     * 取消注册缓存。
+     *
+     * @param cache 缓存对象
+     */
+    @MainThread
+    public void unregister(Cache cache) {
+        mCaches.remove(cache);
+    }
+
+    /**
+     * 释放所有缓存，只保留指定比例的内容。
+     *
+     * @param fraction 保留的比例，范围 0 ~ 1
+     */
+    @MainThread
+    public void trimToFraction(float fraction) {
+        fraction = Math.max(0f, Math.min(1f, fraction));
+        for (int i = 0; i < mCaches.size(); i++) {
+            mCaches.get(i).trimToFraction(fraction);
+        }
+    }
+
+    /**
+     * 获取每个缓存当前占用的内存。
+     *
+     * @return 缓存名称与字节数，按注册顺序排列。
+     */
+    @MainThread
+    public Map<String, Long> getSizeBytes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (int i = 0; i < mCaches.size(); i++) {
+            Cache cache = mCaches.get(i);
+            sizes.put(cache.getName(), cache.getSizeBytes());
+        }
+        return sizes;
+    }
+
+    /**
+     * 获取所有缓存占用的内存之和。
+     *
+     * @return 字节数。
+     */
+    @MainThread
+    public long getTotalSizeBytes() {
+        long total = 0;
+        for (int i = 0; i < mCaches.size(); i++) {
+            total += mCaches.get(i).getSizeBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        float fraction = getRetainFraction(level);
+        if (fraction < 1f) {
+            trimToFraction(fraction);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        trimToFraction(0f);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {}
+
+    /**
+     * 根据内存紧张程度获取缓存应保留的比例。
+     *
+     * @param level onTrimMemory 的级别
+     * @return 保留的比例。
+     */
+    static float getRetainFraction(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            return 0f;
+        } else if (level >= TRIM_MEMORY_MODERATE) {
+            return 0.25f;
+        } else if (level >= TRIM_MEMORY_BACKGROUND) {
+            return 0.5f;
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // 界面已不可见，已绘制的内容不再需要
+            return 0.5f;
+        } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0.25f;
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return 0.5f;
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return 0.75f;
+        }
+        return 1f;
+    }
+
+    /** 字形图集的缓存 */
+    private static final Cache GLYPH_ATLAS_CACHE = new Cache() {
+        @Override
+        public String getName() {
+            return "GlyphAtlas";
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return GlyphAtlas.getCacheSizeBytes();
+        }
+
+        @Override
+        public void trimToFraction(float fraction) {
+            GlyphAtlas.trimCache((int) (GlyphAtlas.getCacheCount() * fraction));
+        }
+    };
+}
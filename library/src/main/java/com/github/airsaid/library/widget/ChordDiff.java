@@ -0,0 +1,418 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 和弦列表差异计算。使用 Myers 差分算法按值（品和指法）比较新旧两个和弦列表，得到最少的插入、删除、
+ * 移动和修改操作，编辑或移调后只需要对发生变化的 ChordView 重新设置和弦。
+ *
+ * 时间复杂度为 O(N + D²)（期望情况），N 为列表长度，D 为差异数，与 RecyclerView 的 DiffUtil 相同，
+ * 操作按从后往前的顺序回调，回调中的位置可以直接用于依次修改列表。
+ *
+ * @author airsaid
+ */
+public final class ChordDiff {
+
+    /**
+     * 列表更新回调。
+     */
+    public interface Callback {
+
+        /**
+         * 在指定位置插入了和弦。
+         *
+         * @param position 位置
+         * @param count    数量
+         */
+        void onInserted(int position, int count);
+
+        /**
+         * 删除了指定位置的和弦。
+         *
+         * @param position 位置
+         * @param count    数量
+         */
+        void onRemoved(int position, int count);
+
+        /**
+         * 和弦从一个位置移动到了另一个位置。
+         *
+         * @param fromPosition 原位置
+         * @param toPosition   新位置
+         */
+        void onMoved(int fromPosition, int toPosition);
+
+        /**
+         * 指定位置的和弦发生了变化，需要重新设置。
+         *
+         * @param position 位置
+         * @param count    数量
+         */
+        void onChanged(int position, int count);
+    }
+
+    private static final int OP_SNAKE = 0;
+    private static final int OP_REMOVE = 1;
+    private static final int OP_INSERT = 2;
+
+    private final int mOldSize;
+    private final int mNewSize;
+    /** 从后往前的编辑操作，高 2 位为类型，低位为旧列表（删除）或新列表（插入）中的角标 */
+    private final int[] mOps;
+    private final int mOpCount;
+    /** 旧列表中被移动的和弦在新列表中的角标，未移动时为 -1 */
+    private final int[] mOldToNew;
+    /** 新列表中被移动的和弦在旧列表中的角标，未移动时为 -1 */
+    private final int[] mNewToOld;
+
+    private ChordDiff(int oldSize, int newSize, int[] ops, int opCount, int[] oldToNew, int[] newToOld) {
+        mOldSize = oldSize;
+        mNewSize = newSize;
+        mOps = ops;
+        mOpCount = opCount;
+        mOldToNew = oldToNew;
+        mNewToOld = newToOld;
+    }
+
+    /**
+     * 计算两个和弦列表的差异。
+     *
+     * @param oldList     旧列表，元素可以为 NULL
+     * @param newList     新列表，元素可以为 NULL
+     * @param detectMoves 是否检测移动，为 false 时移动表示为删除和插入
+     * @return 差异结果。
+     */
+    public static ChordDiff calculate(List<Chord> oldList, List<Chord> newList, boolean detectMoves) {
+        int n = oldList.size(), m = newList.size();
+        int max = n + m;
+        // v[offset + k] 为对角线 k 上走得最远的 x，每一步只保存 [-d, d] 范围内的值，总共 O(D²) 的空间
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        int d = 0;
+        search:
+        for (; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && same(oldList.get(x), newList.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+                    break search;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+
+        // 从终点回溯，得到从后往前的编辑操作
+        int[] ops = new int[max];
+        int opCount = 0;
+        int x = n, y = m;
+        for (; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            boolean down = k == -d || (k != d && get(previous, d - 1, k - 1) < get(previous, d - 1, k + 1));
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = get(previous, d - 1, previousK);
+            int startX = down ? previousX : previousX + 1;
+            int startY = startX - k;
+            while (x > startX && y > startY) {
+                ops[opCount++] = op(OP_SNAKE, x - 1);
+                x--;
+                y--;
+            }
+            if (down) {
+                ops[opCount++] = op(OP_INSERT, y - 1);
+                y--;
+            } else {
+                ops[opCount++] = op(OP_REMOVE, x - 1);
+                x--;
+            }
+        }
+        while (x > 0 && y > 0) {
+            ops[opCount++] = op(OP_SNAKE, x - 1);
+            x--;
+            y--;
+        }
+
+        int[] oldToNew = new int[n];
+        int[] newToOld = new int[m];
+        Arrays.fill(oldToNew, -1);
+        Arrays.fill(newToOld, -1);
+        if (detectMoves) {
+            findMoves(oldList, newList, ops, opCount, oldToNew, newToOld);
+        }
+        return new ChordDiff(n, m, ops, opCount, oldToNew, newToOld);
+    }
+
+    /**
+     * 将被删除的和弦与值相同的被插入的和弦配对为移动。
+     */
+    private static void findMoves(List<Chord> oldList, List<Chord> newList, int[] ops, int opCount,
+                                  int[] oldToNew, int[] newToOld) {
+        Map<Chord, ArrayDeque<Integer>> inserted = new HashMap<>();
+        for (int i = opCount - 1; i >= 0; i--) {
+            if (type(ops[i]) != OP_INSERT) continue;
+            int index = index(ops[i]);
+            Chord chord = newList.get(index);
+            ArrayDeque<Integer> indexes = inserted.get(chord);
+            if (indexes == null) {
+                indexes = new ArrayDeque<>();
+                inserted.put(chord, indexes);
+            }
+            indexes.addLast(index);
+        }
+        if (inserted.isEmpty()) return;
+        for (int i = opCount - 1; i >= 0; i--) {
+            if (type(ops[i]) != OP_REMOVE) continue;
+            int index = index(ops[i]);
+            ArrayDeque<Integer> indexes = inserted.get(oldList.get(index));
+            if (indexes == null || indexes.isEmpty()) continue;
+            int newIndex = indexes.pollFirst();
+            oldToNew[index] = newIndex;
+            newToOld[newIndex] = index;
+        }
+    }
+
+    /**
+     * 获取差异操作的数量（插入、删除和移动的和弦数，修改视为一次删除加一次插入）。
+     *
+     * @return 操作数量。
+     */
+    public int getEditCount() {
+        int count = 0;
+        for (int i = 0; i < mOpCount; i++) {
+            if (type(mOps[i]) != OP_SNAKE) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 将差异依次回调给指定的对象。相邻的同类操作会合并为一次回调。
+     *
+     * @param callback 回调对象
+     */
+    public void dispatchUpdatesTo(Callback callback) {
+        Batch batch = new Batch(callback);
+        // 当前列表 = 旧列表 [0, x) + tokens 中从后往前的内容，tokens 中的占位符还没有对应的和弦
+        int capacity = mOldSize + mNewSize;
+        boolean[] placeholder = new boolean[capacity];
+        int[] placeholderOfNew = new int[mNewSize];
+        int[] tokenOfOld = new int[mOldSize];
+        int[] placeholders = new int[capacity];
+        int placeholderCount = 0;
+        int size = 0;
+        int x = mOldSize;
+
+        for (int i = 0; i < mOpCount; i++) {
+            int op = mOps[i];
+            int type = type(op);
+            int index = index(op);
+            if (type == OP_SNAKE) {
+                size++;
+                x--;
+            } else if (type == OP_REMOVE) {
+                int newIndex = mOldToNew[index];
+                if (newIndex == -1) {
+                    // 删除后紧接着在同一位置插入，视为修改
+                    if (i + 1 < mOpCount && type(mOps[i + 1]) == OP_INSERT && mNewToOld[index(mOps[i + 1])] == -1) {
+                        batch.changed(x - 1);
+                        size++;
+                        i++;
+                    } else {
+                        batch.removed(x - 1);
+                    }
+                    x--;
+                } else if (placeholderOfNew[newIndex] > 0) {
+                    // 目标位置已处理，移动到占位符处
+                    int token = placeholderOfNew[newIndex] - 1;
+                    int target = x - 1 + countPhysicalAfter(token, size, placeholders, placeholderCount);
+                    batch.moved(x - 1, target);
+                    placeholder[token] = false;
+                    placeholderCount = removeValue(placeholders, placeholderCount, token);
+                    x--;
+                } else {
+                    // 目标位置还未处理，暂时保留在原处
+                    tokenOfOld[index] = size + 1;
+                    size++;
+                    x--;
+                }
+            } else {
+                int oldIndex = mNewToOld[index];
+                if (oldIndex == -1) {
+                    if (i + 1 < mOpCount && type(mOps[i + 1]) == OP_REMOVE && mOldToNew[index(mOps[i + 1])] == -1) {
+                        batch.changed(x - 1);
+                        size++;
+                        x--;
+                        i++;
+                    } else {
+                        batch.inserted(x);
+                        size++;
+                    }
+                } else if (oldIndex >= x) {
+                    // 原来的和弦已被保留在后面，移动到当前位置
+                    int token = tokenOfOld[oldIndex] - 1;
+                    int from = x + countPhysicalAfter(token, size, placeholders, placeholderCount);
+                    batch.moved(from, x);
+                    // 原 token 的位置移动到了最前面：标记为占位符并追加新的 token
+                    placeholder[token] = true;
+                    placeholders[placeholderCount++] = token;
+                    size++;
+                } else {
+                    // 原来的和弦还未处理，先放置占位符
+                    placeholder[size] = true;
+                    placeholders[placeholderCount++] = size;
+                    placeholderOfNew[index] = size + 1;
+                    size++;
+                }
+            }
+        }
+        batch.flush();
+    }
+
+    /**
+     * 计算 tokens 中位于指定 token 之后（即列表中位于它之前）的实际和弦数。
+     */
+    private static int countPhysicalAfter(int token, int size, int[] placeholders, int placeholderCount) {
+        int count = size - 1 - token;
+        for (int i = 0; i < placeholderCount; i++) {
+            if (placeholders[i] > token) count--;
+        }
+        return count;
+    }
+
+    private static int removeValue(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                values[i] = values[count - 1];
+                return count - 1;
+            }
+        }
+        return count;
+    }
+
+    private static boolean same(Chord a, Chord b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int get(int[] v, int d, int k) {
+        return v[k + d];
+    }
+
+    private static int op(int type, int index) {
+        return (type << 30) | index;
+    }
+
+    private static int type(int op) {
+        return op >>> 30;
+    }
+
+    private static int index(int op) {
+        return op & 0x3FFFFFFF;
+    }
+
+    /**
+     * 合并相邻的同类回调。
+     */
+    private static final class Batch {
+
+        private static final int NONE = 0;
+        private static final int INSERT = 1;
+        private static final int REMOVE = 2;
+        private static final int CHANGE = 3;
+
+        private final Callback mCallback;
+        private int mType = NONE;
+        private int mPosition;
+        private int mCount;
+
+        Batch(Callback callback) {
+            mCallback = callback;
+        }
+
+        void inserted(int position) {
+            if (mType == INSERT && position == mPosition) {
+                mCount++;
+                return;
+            }
+            start(INSERT, position);
+        }
+
+        void removed(int position) {
+            if (mType == REMOVE && position + 1 == mPosition) {
+                mPosition = position;
+                mCount++;
+                return;
+            }
+            start(REMOVE, position);
+        }
+
+        void changed(int position) {
+            if (mType == CHANGE && position + 1 == mPosition) {
+                mPosition = position;
+                mCount++;
+                return;
+            }
+            start(CHANGE, position);
+        }
+
+        void moved(int from, int to) {
+            flush();
+            if (from != to) {
+                mCallback.onMoved(from, to);
+            }
+        }
+
+        private void start(int type, int position) {
+            flush();
+            mType = type;
+            mPosition = position;
+            mCount = 1;
+        }
+
+        void flush() {
+            switch (mType) {
+                case INSERT:
+                    mCallback.onInserted(mPosition, mCount);
+                    break;
+                case REMOVE:
+                    mCallback.onRemoved(mPosition, mCount);
+                    break;
+                case CHANGE:
+                    mCallback.onChanged(mPosition, mCount);
+                    break;
+            }
+            mType = NONE;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.widget;
+
+/**
+ * 和弦编辑的计算部分，供 {@link ChordView} 的编辑模式使用：把触摸坐标映射到弦和品，修改和弦，
+ * 以及比较编辑前后的布局得到需要重绘的区域。所有方法都是无状态的，不创建任何对象。
+ *
+ * 点击结果编码为一个 int：高位为弦的角标（0 = 6 弦），低 8 位为品，品为 0 表示点击的是网格上方的空弦、闭弦区域。
+ *
+ * @author airsaid
+ */
+final class ChordEditor {
+
+    /** 没有点击到任何弦 */
+    static final int NO_HIT = -1;
+
+    /** 弦数 */
+    private static final int STRING = Chord.STRING;
+
+    private ChordEditor() {}
+
+    /**
+     * 根据布局中预先计算好的网格几何信息，将触摸坐标映射到弦和品。只做几次算术运算，与和弦内容无关。
+     *
+     * @param layout 布局对象
+     * @param x      x 轴坐标
+     * @param y      y 轴坐标
+     * @return 点击结果，没有点击到时返回 {@link #NO_HIT}。
+     */
+    static int hitTest(ChordLayout layout, float x, float y) {
+        if (y < 0 || layout.columnWidth <= 0 || layout.rowHeight <= 0) {
+            return NO_HIT;
+        }
+        // 每根弦占据以其为中心、一个格宽的区域
+        float left = layout.fretWidth + layout.spec.gridLineWidth / 2;
+        int index = (int) Math.floor((x - left) / layout.columnWidth + 0.5f);
+        if (index < 0 || index >= STRING) {
+            return NO_HIT;
+        }
+        if (y < layout.gridTop) {
+            return hit(index, 0);
+        }
+        int row = (int) ((y - layout.gridTop) / layout.rowHeight);
+        if (row >= layout.row) {
+            return NO_HIT;
+        }
+        return hit(index, layout.baseFret + row);
+    }
+
+    /**
+     * 获取点击的弦的角标。
+     *
+     * @param hit 点击结果
+     * @return 角标（0 = 6 弦）。
+     */
+    static int getHitIndex(int hit) {
+        return hit >>> 8;
+    }
+
+    /**
+     * 获取点击的品。
+     *
+     * @param hit 点击结果
+     * @return 品，为 0 时表示点击的是空弦、闭弦区域。
+     */
+    static int getHitFret(int hit) {
+        return hit & 0xFF;
+    }
+
+    /**
+     * 按点击结果直接修改和弦的品数组：
+     * <ul>
+     *     <li>点击网格：该弦没有按在该品时按下该品，已经按在该品时松开（变为空弦）</li>
+     *     <li>点击空弦、闭弦区域：空弦变为闭弦，闭弦或按下的弦变为空弦</li>
+     * </ul>
+     * 被修改的弦的指法清零。
+     *
+     * @param chord 和弦对象，会被直接修改
+     * @param hit   点击结果
+     * @return 修改后该弦的品。
+     */
+    static int apply(Chord chord, int hit) {
+        int index = getHitIndex(hit);
+        int fret = getHitFret(hit);
+        int[] frets = chord.getFrets();
+        int current = frets[index];
+        int result;
+        if (fret == 0) {
+            result = current == 0 ? -1 : 0;
+        } else {
+            result = current == fret ? 0 : fret;
+        }
+        frets[index] = result;
+        int[] fingers = chord.getFingers();
+        if (fingers != null) {
+            fingers[index] = 0;
+        }
+        // 重新设置数组使缓存的哈希值失效
+        chord.setFrets(frets);
+        return result;
+    }
+
+    /**
+     * 比较编辑前后的布局，计算需要重绘的区域：被编辑的弦的空弦、闭弦符号，以及位置、文字或可见性发生变化的节点和横按。
+     *
+     * @param from       编辑前的布局
+     * @param to         编辑后的布局
+     * @param index      被编辑的弦的角标
+     * @param markerSize 空弦、闭弦符号的宽度
+     * @param inset      额外扩展的距离，如边框宽度
+     * @param out        长度为 4 的数组，依次写入 left、top、right、bottom
+     * @return 只需重绘 out 区域时返回 true；网格本身发生变化（如显示的品窗口移动）需要重绘整个 View 时返回 false。
+     */
+    static boolean getDirtyRect(ChordLayout from, ChordLayout to, int index, float markerSize, float inset, float[] out) {
+        if (from.row != to.row || from.baseFret != to.baseFret || from.drawStrings != to.drawStrings
+                || from.drawHead != to.drawHead || from.fretWidth != to.fretWidth || from.gridTop != to.gridTop
+                || from.columnWidth != to.columnWidth || from.rowHeight != to.rowHeight) {
+            return false;
+        }
+        out[0] = Float.MAX_VALUE;
+        out[1] = Float.MAX_VALUE;
+        out[2] = -Float.MAX_VALUE;
+        out[3] = -Float.MAX_VALUE;
+        float radius = to.spec.noteRadius + inset;
+        if (to.drawStrings) {
+            float cx = to.fretWidth + to.columnWidth * index;
+            union(out, cx - markerSize / 2 - inset, 0, cx + markerSize / 2 + inset, to.stringHeight);
+        }
+        for (int i = 0; i < STRING; i++) {
+            if (from.noteVisible[i] == to.noteVisible[i] && from.noteX[i] == to.noteX[i]
+                    && from.noteY[i] == to.noteY[i] && equals(from.noteText[i], to.noteText[i])) {
+                continue;
+            }
+            if (from.noteVisible[i]) unionCircle(out, from.noteX[i], from.noteY[i], radius);
+            if (to.noteVisible[i]) unionCircle(out, to.noteX[i], to.noteY[i], radius);
+        }
+        for (int i = 0, count = Math.max(from.barreCount, to.barreCount); i < count; i++) {
+            boolean fromVisible = i < from.barreCount;
+            boolean toVisible = i < to.barreCount;
+            if (fromVisible && toVisible && from.barres[i] == to.barres[i]) {
+                continue;
+            }
+            if (fromVisible) unionBarre(out, from, i, radius);
+            if (toVisible) unionBarre(out, to, i, radius);
+        }
+        return true;
+    }
+
+    private static void unionCircle(float[] out, float cx, float cy, float radius) {
+        union(out, cx - radius, cy - radius, cx + radius, cy + radius);
+    }
+
+    private static void unionBarre(float[] out, ChordLayout layout, int i, float radius) {
+        float start = Math.min(layout.barreStartX[i], layout.barreEndX[i]);
+        float end = Math.max(layout.barreStartX[i], layout.barreEndX[i]);
+        union(out, Math.min(start - radius, layout.barreLeft[i]), layout.barreY[i] - radius,
+                Math.max(end + radius, layout.barreRight[i]), layout.barreY[i] + radius);
+    }
+
+    private static void union(float[] out, float left, float top, float right, float bottom) {
+        out[0] = Math.min(out[0], left);
+        out[1] = Math.min(out[1], top);
+        out[2] = Math.max(out[2], right);
+        out[3] = Math.max(out[3], bottom);
+    }
+
+    private static int hit(int index, int fret) {
+        return (index << 8) | fret;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
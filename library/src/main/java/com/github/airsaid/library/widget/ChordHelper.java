@@ -17,10 +17,23 @@
 package com.github.airsaid.library.widget;
 
 /**
+ * 和弦辅助类。
+ *
+ * 静态方法直接操作品数组（角标 0 = 6 弦，角标 5 = 1 弦），不持有任何状态、不创建任何对象，可以在任意线程中并发调用。
+ * 对于打包后的和弦，可以先通过 {@link PackedChord#unpackFrets(long, int[])} 解包到复用的数组中再调用。
+ * 实例方法保留用于兼容，等价于对 {@link Chord#getFrets()} 调用对应的静态方法。
+ *
  * @author airsaid
  */
 public class ChordHelper {
 
+    /** 表示没有横按 */
+    public static final int NO_BARRE = 0;
+    /** 一个和弦最多可能包含的横按段数 */
+    public static final int MAX_BARRES = Chord.STRING / 2 + 1;
+    /** 可以横按的手指（食指 ~ 小指） */
+    private static final int BARRE_FINGERS = 4;
+
     /**
      * 获取横按和弦所需要的信息。分别是品、和截止弦。
      *
@@ -28,35 +41,11 @@ public class ChordHelper {
      * @return 信息数组，当是横按情况时，角标 0 处存储的是品，角标 1 处存储的是截止弦。当非横按时返回 NULL。
      */
     public int[] getBarreChordData(Chord chord) {
-        int[] data = new int[2];
-
-        // 判断是否有空弦
-        boolean emptyString = chord.isEmptyString();
-        if (emptyString) {
-            int withFirstString = getWithFirstString(chord);
-            // 判断 1 弦处是否是和弦中最小的品，并且更高的弦与 1 弦品相同且相连
-            if (firstStringLeast(chord) && withFirstString > 1) {
-                // 横按：1 弦 -> 相连的最高弦
-                data[0] = chord.getLeastFret();
-                data[1] = withFirstString;
-            } else {
-                // 非横按
-                return null;
-            }
-        } else {
-            // 判断是否有闭弦
-            if (chord.isClosedString()) {
-                // 横按：1 弦 -> 最高弦（如果最高弦处是闭弦，则再倒退一弦，直到非闭弦处）
-                data[0] = chord.getLeastFret();
-                data[1] = getMaxUnClosedString(chord);
-            } else {
-                // 横按：1 弦 -> 吉他的最高弦
-                data[0] = chord.getLeastFret();
-                data[1] = Chord.STRING;
-            }
+        int barre = getBarre(chord.getFrets());
+        if (barre == NO_BARRE) {
+            return null;
         }
-
-        return data;
+        return new int[]{getBarreFret(barre), getBarreString(barre)};
     }
 
     /**
@@ -66,8 +55,7 @@ public class ChordHelper {
      * @return 1 弦处是最小的品则返回 true，否则返回 false。
      */
     public boolean firstStringLeast(Chord chord) {
-        int[] frets = chord.getFrets();
-        return frets[frets.length - 1] == chord.getLeastFret();
+        return firstStringLeast(chord.getFrets());
     }
 
     /**
@@ -79,12 +67,7 @@ public class ChordHelper {
      * @return 最大弦。
      */
     public int getWithFirstString(Chord chord) {
-        int string = 1;
-        int[] frets = chord.getFrets();
-        while (frets[frets.length - 1] == frets[frets.length - 1 - string]) {
-            string += 1;
-        }
-        return string;
+        return getWithFirstString(chord.getFrets());
     }
 
     /**
@@ -96,12 +79,300 @@ public class ChordHelper {
      * @return 弦。
      */
     public int getMaxUnClosedString(Chord chord) {
-        int[] frets = chord.getFrets();
+        return getMaxUnClosedString(chord.getFrets());
+    }
+
+    /**
+     * 获取主横按，只根据品判断，不创建任何对象。
+     *
+     * 主横按位于和弦的最小品上，两端的弦都按在该品上，中间的弦都按在不低于该品的位置（不能是空弦或闭弦）。
+     * 有空弦时横按还必须从 1 弦开始（如 Csus4），否则更可能是用几根手指分别按下（如 A 和弦）。
+     * 最小品上有多段时取靠近 1 弦的一段。
+     *
+     * @param frets 品数组
+     * @return 横按段，通过 {@link #getBarreFret(int)} 和 {@link #getBarreString(int)} 读取。非横按时返回 {@link #NO_BARRE}。
+     */
+    public static int getBarre(int[] frets) {
+        int length = frets.length;
+        int least = -1;
+        boolean open = false;
+        int best = NO_BARRE;
+        // 从 1 弦向 6 弦扫描，当前段的品为 fret，两端的角标为 start 和 end
+        int fret = 0, start = -1, end = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            int value = frets[i];
+            if (value == 0) open = true;
+            if (start != -1 && value < fret) {
+                // 遇到空弦、闭弦或更低的品时，当前段结束
+                best = lowerBarre(best, fret, length - start, length - end);
+                start = -1;
+            }
+            if (value < 1) continue;
+            if (least == -1 || value < least) least = value;
+            if (start == -1) {
+                fret = value;
+                start = end = i;
+            } else if (value == fret) {
+                end = i;
+            }
+        }
+        if (start != -1) {
+            best = lowerBarre(best, fret, length - start, length - end);
+        }
+        if (best == NO_BARRE || getBarreFret(best) != least || (open && getBarreFromString(best) != 1)) {
+            return NO_BARRE;
+        }
+        return best;
+    }
+
+    /**
+     * 返回品较低的横按段，品相同时保留已有的（更靠近 1 弦的）横按段。只覆盖一根弦时不算横按。
+     */
+    private static int lowerBarre(int best, int fret, int from, int to) {
+        if (from == to) return best;
+        if (best != NO_BARRE && getBarreFret(best) <= fret) return best;
+        return barre(fret, from, to, 1);
+    }
+
+    /**
+     * 分析和弦中的所有横按段，结果按起始弦从小到大写入指定的数组，不创建任何对象。
+     *
+     * 每个横按段由同一根手指在同一品上按住两端的弦，中间的弦都按在不低于该品的位置（不能是空弦或闭弦），
+     * 例如 A 和弦用食指按住 2 ~ 4 弦，或 A 型横按中食指的主横按和无名指的小横按。
+     * 只扫描一遍品数组：每根手指（1 ~ 4）保存一个正在延伸的段，遇到更低的品时结束。
+     *
+     * 没有指法数据（为 NULL，或按下的弦都没有手指）时只能根据品判断，结果与 {@link #getBarre(int[])} 相同。
+     *
+     * @param frets   品数组
+     * @param fingers 指法数组，可以为 NULL
+     * @param out     用于存放横按段的数组，长度至少为 {@link #MAX_BARRES}
+     * @return 横按段的数量。
+     */
+    public static int getBarres(int[] frets, int[] fingers, int[] out) {
+        int length = frets.length;
+        if (fingers == null || fingers.length != length) {
+            return primaryBarre(frets, out);
+        }
+        int count = 0;
+        boolean hasFingers = false;
+        // 每根手指占 16 位：低 8 位为段的起点角标 + 1（为 0 时表示没有正在延伸的段），高 8 位为终点角标
+        long segments = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int fret = frets[i];
+            int finger = fingers[i];
+            for (int f = 1; f <= BARRE_FINGERS && segments != 0; f++) {
+                int segment = (int) (segments >>> ((f - 1) * 16)) & 0xFFFF;
+                if (segment == 0) continue;
+                int start = (segment & 0xFF) - 1;
+                int segmentFret = frets[start];
+                // 遇到空弦、闭弦或更低的品时，手指无法继续横按；同一根手指换了品时上一段也结束
+                if (fret < segmentFret || (f == finger && fret != segmentFret)) {
+                    count = addBarre(out, count, length, segmentFret, start, segment >>> 8, f);
+                    segments &= ~(0xFFFFL << ((f - 1) * 16));
+                }
+            }
+            if (fret < 1 || finger < 1) continue;
+            hasFingers = true;
+            if (finger > BARRE_FINGERS) continue;
+            int shift = (finger - 1) * 16;
+            int segment = (int) (segments >>> shift) & 0xFFFF;
+            int start = segment == 0 ? i : (segment & 0xFF) - 1;
+            segments = (segments & ~(0xFFFFL << shift)) | (long) ((i << 8) | (start + 1)) << shift;
+        }
+        for (int f = 1; f <= BARRE_FINGERS; f++) {
+            int segment = (int) (segments >>> ((f - 1) * 16)) & 0xFFFF;
+            if (segment == 0) continue;
+            int start = (segment & 0xFF) - 1;
+            count = addBarre(out, count, length, frets[start], start, segment >>> 8, f);
+        }
+        return hasFingers ? count : primaryBarre(frets, out);
+    }
+
+    private static int primaryBarre(int[] frets, int[] out) {
+        int barre = getBarre(frets);
+        if (barre == NO_BARRE) {
+            return 0;
+        }
+        out[0] = barre;
+        return 1;
+    }
+
+    /**
+     * 按起始弦的顺序插入横按段，两端是同一根弦时忽略。
+     */
+    private static int addBarre(int[] out, int count, int length, int fret, int start, int end, int finger) {
+        if (start == end || count == out.length) return count;
+        int barre = barre(fret, length - start, length - end, finger);
+        int i = count;
+        while (i > 0 && getBarreFromString(out[i - 1]) > length - start) {
+            out[i] = out[i - 1];
+            i--;
+        }
+        out[i] = barre;
+        return count + 1;
+    }
+
+    /**
+     * 返回指定角标处的节点是否被横按段覆盖（即不需要单独绘制）。
+     *
+     * @param frets 品数组
+     * @param index 角标（0 = 6 弦）
+     * @param barre 横按段
+     * @return 被覆盖时返回 true，否则返回 false。
+     */
+    public static boolean isCoveredByBarre(int[] frets, int index, int barre) {
+        int string = frets.length - index;
+        return frets[index] == getBarreFret(barre)
+                && string >= getBarreFromString(barre) && string <= getBarreString(barre);
+    }
+
+    /**
+     * 获取横按段的品。
+     *
+     * @param barre 横按段
+     * @return 品。
+     */
+    public static int getBarreFret(int barre) {
+        return (barre >>> 16) & 0xFF;
+    }
+
+    /**
+     * 获取横按段的起始弦（较细的一端）。
+     *
+     * @param barre 横按段
+     * @return 起始弦。
+     */
+    public static int getBarreFromString(int barre) {
+        return (barre >>> 8) & 0xFF;
+    }
+
+    /**
+     * 获取横按段的截止弦（较粗的一端）。
+     *
+     * @param barre 横按段
+     * @return 截止弦。
+     */
+    public static int getBarreString(int barre) {
+        return barre & 0xFF;
+    }
+
+    /**
+     * 获取按住横按段的手指。主横按总是食指（1）。
+     *
+     * @param barre 横按段
+     * @return 手指。
+     */
+    public static int getBarreFinger(int barre) {
+        return barre >>> 24;
+    }
+
+    private static int barre(int fret, int from, int to, int finger) {
+        return (finger << 24) | (fret << 16) | (from << 8) | to;
+    }
+
+    /**
+     * 获取 1 弦处的品是否是整个和弦中最小的品。
+     *
+     * @param frets 品数组
+     * @return 1 弦处是最小的品则返回 true，否则返回 false。
+     */
+    public static boolean firstStringLeast(int[] frets) {
+        return frets[frets.length - 1] == getLeastFret(frets);
+    }
+
+    /**
+     * 获取同 1 弦处相同品的最大弦。当所有弦的品都相同时返回弦数。
+     *
+     * @param frets 品数组
+     * @return 最大弦。
+     */
+    public static int getWithFirstString(int[] frets) {
+        int string = 1;
+        int first = frets[frets.length - 1];
+        while (string < frets.length && first == frets[frets.length - 1 - string]) {
+            string += 1;
+        }
+        return string;
+    }
+
+    /**
+     * 获取最大的非闭弦的弦。
+     *
+     * @param frets 品数组
+     * @return 弦，当所有弦都是闭弦时返回 0。
+     */
+    public static int getMaxUnClosedString(int[] frets) {
         int string = frets.length;
-        while (frets[frets.length - string] == -1) {
+        while (string > 0 && frets[frets.length - string] == -1) {
             string -= 1;
         }
         return string;
     }
 
+    /**
+     * 返回是否有空弦。
+     *
+     * @param frets 品数组
+     * @return 有空弦时返回 true，否则返回 false。
+     */
+    public static boolean isEmptyString(int[] frets) {
+        for (int fret : frets) {
+            if (fret == 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 返回是否有闭弦。
+     *
+     * @param frets 品数组
+     * @return 有闭弦时返回 true，否则返回 false。
+     */
+    public static boolean isClosedString(int[] frets) {
+        for (int fret : frets) {
+            if (fret == -1) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取最小的品（不包括空弦和闭弦）。
+     *
+     * @param frets 品数组
+     * @return 最小品，当没有找到时会返回 -1。
+     */
+    public static int getLeastFret(int[] frets) {
+        int leastFret = -1;
+        for (int fret : frets) {
+            // 不处理小于 1 品的情况
+            if (fret < 1) {
+                continue;
+            }
+            if (leastFret == -1 || fret < leastFret) {
+                leastFret = fret;
+            }
+        }
+        return leastFret;
+    }
+
+    /**
+     * 获取最大的品（不包括空弦和闭弦）。
+     *
+     * @param frets 品数组
+     * @return 最大品，当没有找到时会返回 -1。
+     */
+    public static int getLargestFret(int[] frets) {
+        int largest = -1;
+        for (int fret : frets) {
+            // 不处理小于 1 品的情况
+            if (fret < 1) {
+                continue;
+            }
+            if (fret > largest) {
+                largest = fret;
+            }
+        }
+        return largest;
+    }
+
 }
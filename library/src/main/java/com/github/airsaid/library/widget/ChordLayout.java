@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import java.util.Arrays;
+
+/**
+ * 和弦布局。保存渲染一个和弦所需的全部几何信息（网格区域、品文字、节点及横按位置），
+ * 在和弦或尺寸变化时计算一次，绘制时直接读取，不再重复计算。
+ *
+ * 布局只依赖于和弦与 {@link Spec}，计算过程不访问 View、Paint 或任何可变的共享状态，因此可以在后台线程中
+ * 通过 {@link #compute(Chord, Spec)} 预先计算，再在主线程中交给 {@link ChordView#setChordLayout(ChordLayout)} 绘制。
+ * 布局创建后不可修改，可以安全地在线程之间传递。计算期间不要修改和弦对象。
+ *
+ * 节点相关的数组均按 frets 的角标存储（0 = 6 弦，1 = 5 弦，以此类推）。
+ *
+ * 显示的品窗口在计算布局时确定一次：最大品未超过 {@link Spec} 的显示品数时从 1 品开始显示，否则从最小品开始；
+ * 跨度超过显示品数的和弦会自动增加行数，因此节点所在的行只需用品减去起始品即可得到。
+ *
+ * @author airsaid
+ */
+public final class ChordLayout {
+
+    /** 弦数 */
+    private static final int STRING = Chord.STRING;
+    /** 默认显示品数 */
+    static final int DEFAULT_FRET_COUNT = 4;
+    /** 简单模式下从 1 品开始显示时的行数 */
+    private static final int SIMPLE_FRET_COUNT = 3;
+
+    /** 该布局对应的和弦，可能为 NULL */
+    final Chord chord;
+    /** 计算该布局时使用的规格 */
+    final Spec spec;
+
+    /** 是否需要绘制弦区域（空弦、闭弦符号） */
+    final boolean drawStrings;
+    /** 是否需要绘制琴头 */
+    final boolean drawHead;
+    /** 最大品是否超过了显示品数，超过时需要绘制品文字 */
+    final boolean exceedDefaultFret;
+    /** 最小品 */
+    final int leastFret;
+    /** 第一行对应的品 */
+    final int baseFret;
+    /** 行数 */
+    final int row;
+
+    /** 品文字区域的宽度 */
+    final float fretWidth;
+    /** 弦区域的高度 */
+    final float stringHeight;
+    /** 琴头的高度 */
+    final float headHeight;
+    /** 网格区域宽度 */
+    final float gridWidth;
+    /** 网格区域高度 */
+    final float gridHeight;
+    /** 网格区域顶部位置 */
+    final float gridTop;
+    /** 网格每格的宽度 */
+    final float columnWidth;
+    /** 网格每格的高度 */
+    final float rowHeight;
+
+    /** 品文字，为 NULL 时不绘制品文字 */
+    final String[] fretTexts;
+    /** 品文字的 x 轴坐标 */
+    final float[] fretTextX;
+    /** 品文字的 y 轴坐标 */
+    final float[] fretTextY;
+
+    /** 节点是否可见 */
+    final boolean[] noteVisible = new boolean[STRING];
+    /** 节点圆心 x 轴坐标 */
+    final float[] noteX = new float[STRING];
+    /** 节点圆心 y 轴坐标 */
+    final float[] noteY = new float[STRING];
+    /** 节点文字（指法），为 NULL 时不绘制 */
+    final String[] noteText = new String[STRING];
+
+    /** 横按段数 */
+    final int barreCount;
+    /** 横按段 */
+    final int[] barres = new int[ChordHelper.MAX_BARRES];
+    /** 横按矩形区域 */
+    final float[] barreLeft = new float[ChordHelper.MAX_BARRES];
+    final float[] barreTop = new float[ChordHelper.MAX_BARRES];
+    final float[] barreRight = new float[ChordHelper.MAX_BARRES];
+    final float[] barreBottom = new float[ChordHelper.MAX_BARRES];
+    /** 横按两端节点圆心的 x 轴坐标 */
+    final float[] barreStartX = new float[ChordHelper.MAX_BARRES];
+    final float[] barreEndX = new float[ChordHelper.MAX_BARRES];
+    /** 横按两端节点圆心的 y 轴坐标 */
+    final float[] barreY = new float[ChordHelper.MAX_BARRES];
+    /** 横按两端节点的文字，为 NULL 时不绘制 */
+    final String[] barreText = new String[ChordHelper.MAX_BARRES];
+
+    private ChordLayout(Chord chord, Spec spec) {
+        this.chord = chord;
+        this.spec = spec;
+
+        int leastFret = chord != null ? chord.getLeastFret() : 1;
+        int largestFret = chord != null ? chord.getLargestFret() : 1;
+        this.leastFret = leastFret;
+        this.exceedDefaultFret = largestFret > spec.fretCount;
+        this.baseFret = exceedDefaultFret ? leastFret : 1;
+        this.row = getRow(spec.showMode, spec.fretCount, leastFret, baseFret, largestFret);
+        // 只要和弦中有闭弦或空弦则需要绘制弦区域
+        this.drawStrings = chord != null && (chord.isClosedString() || chord.isEmptyString());
+        // 从 1 品开始显示时绘制琴头
+        this.drawHead = chord != null && baseFret == 1;
+
+        this.stringHeight = drawStrings ? spec.stringMarkerHeight + spec.stringOffsetY : 0f;
+        this.headHeight = drawHead ? spec.headRadius : 0f;
+        this.fretWidth = chord != null ? spec.fretTextWidth(baseFret + row - 1) + spec.fretTextOffsetX : 0f;
+        this.gridWidth = spec.width - fretWidth - spec.noteRadius;
+        this.gridHeight = spec.height - stringHeight - headHeight;
+        this.gridTop = stringHeight + headHeight;
+        this.columnWidth = gridWidth / (STRING - 1);
+        this.rowHeight = gridHeight / row;
+
+        // 品文字：如果最高品未超过显示品数，则不绘制
+        if (exceedDefaultFret) {
+            // 简单模式下只展示第一个品数字
+            int count = spec.showMode == ChordView.SIMPLE_SHOW_MODE ? 1 : row;
+            fretTexts = new String[count];
+            fretTextX = new float[count];
+            fretTextY = new float[count];
+            for (int i = 0; i < count; i++) {
+                int fret = baseFret + i;
+                fretTexts[i] = String.valueOf(fret);
+                fretTextX[i] = fretWidth - spec.fretTextWidth(fret) - spec.fretTextOffsetX;
+                fretTextY[i] = gridTop + (rowHeight * (i + 1));
+            }
+        } else {
+            fretTexts = null;
+            fretTextX = null;
+            fretTextY = null;
+        }
+
+        int[] frets = chord != null ? chord.getFrets() : null;
+        int[] fingers = chord != null ? chord.getFingers() : null;
+
+        // 横按
+        barreCount = frets != null ? ChordHelper.getBarres(frets, fingers, barres) : 0;
+        for (int i = 0; i < barreCount; i++) {
+            int barre = barres[i];
+            int barreFret = ChordHelper.getBarreFret(barre);
+            int from = ChordHelper.getBarreFromString(barre);
+            int to = ChordHelper.getBarreString(barre);
+
+            float left = fretWidth + spec.gridLineWidth / 2 + (columnWidth * (STRING - to));
+            float top = getNoteY(barreFret) - spec.noteRadius;
+            barreLeft[i] = left;
+            barreTop[i] = top;
+            barreRight[i] = left + columnWidth * (to - from);
+            barreBottom[i] = top + spec.noteRadius * 2;
+            // 横按两端节点
+            barreStartX[i] = getNoteX(STRING - (from - 1));
+            barreEndX[i] = getNoteX(STRING - (to - 1));
+            barreY[i] = getNoteY(barreFret);
+            barreText[i] = fingers != null ? String.valueOf(ChordHelper.getBarreFinger(barre)) : null;
+        }
+
+        // 其他节点
+        if (frets == null) return;
+        for (int index = 0; index < frets.length; index++) {
+            int fret = frets[index];
+            // 不绘制闭弦和空弦情况
+            if (fret < 1) {
+                continue;
+            }
+            // 不绘制横按区域的节点
+            if (isCoveredByBarre(frets, index)) {
+                continue;
+            }
+            noteVisible[index] = true;
+            noteX[index] = getNoteX(index + 1);
+            noteY[index] = getNoteY(fret);
+            int finger = fingers != null ? fingers[index] : 0;
+            noteText[index] = finger > 0 ? String.valueOf(finger) : null;
+        }
+    }
+
+    /**
+     * 创建过渡动画中某一时刻的布局，网格等其他信息与 to 相同。
+     */
+    private ChordLayout(ChordLayout from, ChordLayout to, float fraction) {
+        this.chord = to.chord;
+        this.spec = to.spec;
+        this.drawStrings = to.drawStrings;
+        this.drawHead = to.drawHead;
+        this.exceedDefaultFret = to.exceedDefaultFret;
+        this.leastFret = to.leastFret;
+        this.baseFret = to.baseFret;
+        this.row = to.row;
+        this.fretWidth = to.fretWidth;
+        this.stringHeight = to.stringHeight;
+        this.headHeight = to.headHeight;
+        this.gridWidth = to.gridWidth;
+        this.gridHeight = to.gridHeight;
+        this.gridTop = to.gridTop;
+        this.columnWidth = to.columnWidth;
+        this.rowHeight = to.rowHeight;
+        this.fretTexts = to.fretTexts;
+        this.fretTextX = to.fretTextX;
+        this.fretTextY = to.fretTextY;
+
+        // 两个布局都有的横按和节点取插值位置，只有一方有的正在淡入或淡出，以透明度过半为准决定是否保留
+        boolean fromSide = fraction < 0.5f;
+        int both = Math.min(from.barreCount, to.barreCount);
+        barreCount = from.barreCount > to.barreCount ? (fromSide ? from.barreCount : both)
+                : (fromSide ? both : to.barreCount);
+        for (int i = 0; i < barreCount; i++) {
+            ChordLayout side = i < both ? (fromSide ? from : to) : (i < from.barreCount ? from : to);
+            barres[i] = side.barres[i];
+            barreText[i] = side.barreText[i];
+            if (i < both) {
+                barreLeft[i] = lerp(from.barreLeft[i], to.barreLeft[i], fraction);
+                barreTop[i] = lerp(from.barreTop[i], to.barreTop[i], fraction);
+                barreRight[i] = lerp(from.barreRight[i], to.barreRight[i], fraction);
+                barreBottom[i] = lerp(from.barreBottom[i], to.barreBottom[i], fraction);
+                barreStartX[i] = lerp(from.barreStartX[i], to.barreStartX[i], fraction);
+                barreEndX[i] = lerp(from.barreEndX[i], to.barreEndX[i], fraction);
+                barreY[i] = lerp(from.barreY[i], to.barreY[i], fraction);
+            } else {
+                barreLeft[i] = side.barreLeft[i];
+                barreTop[i] = side.barreTop[i];
+                barreRight[i] = side.barreRight[i];
+                barreBottom[i] = side.barreBottom[i];
+                barreStartX[i] = side.barreStartX[i];
+                barreEndX[i] = side.barreEndX[i];
+                barreY[i] = side.barreY[i];
+            }
+        }
+        for (int i = 0; i < STRING; i++) {
+            boolean fromVisible = from.noteVisible[i];
+            boolean toVisible = to.noteVisible[i];
+            if (fromVisible && toVisible) {
+                noteVisible[i] = true;
+                noteX[i] = lerp(from.noteX[i], to.noteX[i], fraction);
+                noteY[i] = lerp(from.noteY[i], to.noteY[i], fraction);
+                noteText[i] = fromSide ? from.noteText[i] : to.noteText[i];
+            } else if (fromVisible ? fromSide : toVisible && !fromSide) {
+                ChordLayout side = fromVisible ? from : to;
+                noteVisible[i] = true;
+                noteX[i] = side.noteX[i];
+                noteY[i] = side.noteY[i];
+                noteText[i] = side.noteText[i];
+            }
+        }
+    }
+
+    private static float lerp(float start, float end, float fraction) {
+        return start + (end - start) * fraction;
+    }
+
+    private boolean isCoveredByBarre(int[] frets, int index) {
+        for (int i = 0; i < barreCount; i++) {
+            if (ChordHelper.isCoveredByBarre(frets, index, barres[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 根据指定的规格计算和弦的布局。该方法是纯函数，可以在任意线程中并发调用。
+     *
+     * @param chord 和弦对象，可以为 NULL
+     * @param spec  布局规格，通过 {@link ChordView#getLayoutSpec()} 获取
+     * @return 布局对象。
+     */
+    public static ChordLayout compute(Chord chord, Spec spec) {
+        return new ChordLayout(chord, spec);
+    }
+
+    /**
+     * 获取过渡动画进行到指定进度时屏幕上显示的布局，用于在动画中途切换和弦时从当前位置继续过渡。
+     *
+     * @param from     过渡的起始布局
+     * @param to       过渡的目标布局
+     * @param fraction 过渡进度，0 为 from，1 为 to
+     * @return 布局对象。
+     */
+    static ChordLayout interpolate(ChordLayout from, ChordLayout to, float fraction) {
+        return new ChordLayout(from, to, fraction);
+    }
+
+    /**
+     * 获取该布局对应的和弦。
+     *
+     * @return 和弦对象。
+     */
+    public Chord getChord() {
+        return chord;
+    }
+
+    /**
+     * 获取计算该布局时使用的规格。
+     *
+     * @return 布局规格。
+     */
+    public Spec getSpec() {
+        return spec;
+    }
+
+    /**
+     * 获取指定弦上节点圆心的 x 轴坐标。
+     *
+     * @param string 弦（1 = 6 弦，2 = 5 弦，以此类推）
+     * @return x 轴坐标。
+     */
+    private float getNoteX(int string) {
+        float gridLineWidth = spec.gridLineWidth;
+        return ((fretWidth + gridLineWidth / 2) + (columnWidth * (string - 1)))
+                - (string == STRING ? gridLineWidth : gridLineWidth / 2);
+    }
+
+    /**
+     * 获取指定品上节点圆心的 y 轴坐标。
+     *
+     * @param fret 品
+     * @return y 轴坐标。
+     */
+    private float getNoteY(int fret) {
+        return gridTop + (rowHeight * (fret - baseFret + 1)) - (rowHeight / 2);
+    }
+
+    /**
+     * 获取行数。行数至少为显示品数，和弦的跨度超过显示品数时增加到能容纳所有品。
+     *
+     * @param showMode    显示模式
+     * @param fretCount   显示品数
+     * @param leastFret   最小品
+     * @param baseFret    第一行对应的品
+     * @param largestFret 最大品
+     * @return 行。
+     */
+    private static int getRow(int showMode, int fretCount, int leastFret, int baseFret, int largestFret) {
+        // 简单模式下，如果和弦中最大品和最小品的跨度未超过三品，且 1 品为最低品，则行数就为三行
+        if (showMode == ChordView.SIMPLE_SHOW_MODE && leastFret == 1 && largestFret <= SIMPLE_FRET_COUNT) {
+            return Math.min(SIMPLE_FRET_COUNT, fretCount);
+        }
+        return Math.max(fretCount, largestFret - baseFret + 1);
+    }
+
+    /**
+     * 布局规格。保存计算布局所需的 View 尺寸与样式的快照，创建后不可修改。
+     *
+     * 品文字的宽度在创建时由 UI 线程测量好，计算布局时只查表，不再使用 Paint。尺寸和样式相同的 View 的规格相等，
+     * 因此按一个 View 的规格计算的布局也可以交给其他同样大小、同样样式的 View 使用。
+     */
+    public static final class Spec {
+
+        /** View 宽度 */
+        final int width;
+        /** View 高度 */
+        final int height;
+        /** 显示模式 */
+        final int showMode;
+        /** 显示品数 */
+        final int fretCount;
+        /** 空弦、闭弦提示符号的高度 */
+        final float stringMarkerHeight;
+        /** 空弦、闭弦提示符号的 y 轴偏移量 */
+        final float stringOffsetY;
+        /** 琴头弧度 */
+        final float headRadius;
+        /** 品文字 x 轴偏移量 */
+        final float fretTextOffsetX;
+        /** 网格线的宽度 */
+        final float gridLineWidth;
+        /** 节点圆的半径 */
+        final float noteRadius;
+        /** 品文字宽度表，角标即品 */
+        private final float[] fretTextWidths;
+
+        Spec(int width, int height, int showMode, int fretCount, float stringMarkerHeight, float stringOffsetY,
+             float headRadius, float fretTextOffsetX, float gridLineWidth, float noteRadius, float[] fretTextWidths) {
+            this.width = width;
+            this.height = height;
+            this.showMode = showMode;
+            this.fretCount = fretCount;
+            this.stringMarkerHeight = stringMarkerHeight;
+            this.stringOffsetY = stringOffsetY;
+            this.headRadius = headRadius;
+            this.fretTextOffsetX = fretTextOffsetX;
+            this.gridLineWidth = gridLineWidth;
+            this.noteRadius = noteRadius;
+            this.fretTextWidths = fretTextWidths.clone();
+        }
+
+        /**
+         * 获取品文字的宽度。超出宽度表范围时按各位数字的宽度累加。
+         *
+         * @param fret 品
+         * @return 品文字宽度。
+         */
+        float fretTextWidth(int fret) {
+            if (fret >= 0 && fret < fretTextWidths.length) {
+                return fretTextWidths[fret];
+            }
+            float width = 0f;
+            int value = Math.abs(fret);
+            do {
+                width += fretTextWidths[value % 10];
+                value /= 10;
+            } while (value > 0);
+            return width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Spec spec = (Spec) o;
+            return width == spec.width
+                    && height == spec.height
+                    && showMode == spec.showMode
+                    && fretCount == spec.fretCount
+                    && Float.compare(spec.stringMarkerHeight, stringMarkerHeight) == 0
+                    && Float.compare(spec.stringOffsetY, stringOffsetY) == 0
+                    && Float.compare(spec.headRadius, headRadius) == 0
+                    && Float.compare(spec.fretTextOffsetX, fretTextOffsetX) == 0
+                    && Float.compare(spec.gridLineWidth, gridLineWidth) == 0
+                    && Float.compare(spec.noteRadius, noteRadius) == 0
+                    && Arrays.equals(fretTextWidths, spec.fretTextWidths);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + showMode;
+            result = 31 * result + fretCount;
+            result = 31 * result + Float.floatToIntBits(stringMarkerHeight);
+            result = 31 * result + Float.floatToIntBits(stringOffsetY);
+            result = 31 * result + Float.floatToIntBits(headRadius);
+            result = 31 * result + Float.floatToIntBits(fretTextOffsetX);
+            result = 31 * result + Float.floatToIntBits(gridLineWidth);
+            result = 31 * result + Float.floatToIntBits(noteRadius);
+            result = 31 * result + Arrays.hashCode(fretTextWidths);
+            return result;
+        }
+    }
+}
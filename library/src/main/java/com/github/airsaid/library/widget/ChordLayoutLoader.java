@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 和弦布局加载器。在后台 Executor 中批量计算和弦布局，完成后在主线程中回调，
+ * 适用于一次性展示大量和弦的和弦谱页面，避免布局计算阻塞 UI 线程的滚动。
+ *
+ * @author airsaid
+ */
+public class ChordLayoutLoader {
+
+    /** 每个后台任务计算的和弦数 */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * 布局加载完成的回调，在主线程中调用。
+     */
+    public interface Callback {
+
+        /**
+         * 布局加载完成。
+         *
+         * @param layouts 布局数组，与传入的和弦一一对应
+         */
+        void onLayoutsLoaded(ChordLayout[] layouts);
+    }
+
+    private final Executor mExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    /** 每次取消时自增，用于丢弃已取消的加载结果 */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    /**
+     * 创建布局加载器。
+     *
+     * @param executor 用于计算布局的后台 Executor，为线程池时多个批次会并行计算
+     */
+    public ChordLayoutLoader(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 在后台计算指定和弦的布局，完成后在主线程中回调。计算期间不要修改列表及其中的和弦。
+     *
+     * @param chords   和弦列表
+     * @param spec     布局规格，通过 {@link ChordView#getLayoutSpec()} 获取
+     * @param callback 完成回调
+     */
+    @MainThread
+    public void load(final List<Chord> chords, final ChordLayout.Spec spec, final Callback callback) {
+        final int generation = mGeneration.get();
+        final int size = chords.size();
+        final ChordLayout[] layouts = new ChordLayout[size];
+        if (size == 0) {
+            callback.onLayoutsLoaded(layouts);
+            return;
+        }
+        final int batches = (size + BATCH_SIZE - 1) / BATCH_SIZE;
+        final AtomicInteger remaining = new AtomicInteger(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            final int start = batch * BATCH_SIZE;
+            final int end = Math.min(size, start + BATCH_SIZE);
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (generation != mGeneration.get()) return;
+                    computeAll(chords, spec, layouts, start, end);
+                    // 最后一个完成的批次负责回调，AtomicInteger 保证了各批次写入的布局对主线程可见
+                    if (remaining.decrementAndGet() == 0) {
+                        mHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (generation == mGeneration.get()) {
+                                    callback.onLayoutsLoaded(layouts);
+                                }
+                            }
+                        });
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 取消所有尚未回调的加载。
+     */
+    @MainThread
+    public void cancelAll() {
+        mGeneration.incrementAndGet();
+    }
+
+    /**
+     * 在当前线程中计算指定和弦的布局。可以在任意线程中调用。
+     *
+     * @param chords 和弦列表
+     * @param spec   布局规格
+     * @return 布局数组，与传入的和弦一一对应。
+     */
+    public static ChordLayout[] computeAll(List<Chord> chords, ChordLayout.Spec spec) {
+        ChordLayout[] layouts = new ChordLayout[chords.size()];
+        computeAll(chords, spec, layouts, 0, layouts.length);
+        return layouts;
+    }
+
+    private static void computeAll(List<Chord> chords, ChordLayout.Spec spec, ChordLayout[] out, int start, int end) {
+        for (int i = start; i < end; i++) {
+            out[i] = ChordLayout.compute(chords.get(i), spec);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 和弦池。将品和指法相同的和弦合并为同一个对象，用于加载大量曲谱时减少内存占用，
+ * 合并后的和弦也可以直接作为缓存的 key 使用。
+ *
+ * 和弦池以 {@link PackedChord} 作为 key，容量有限，超出容量时丢弃最久未使用的和弦。
+ * 无法打包的和弦（如非 6 弦）不会被合并，原样返回。所有方法都是线程安全的。
+ *
+ * 从和弦池中取得的和弦是共享的，不要再修改它的品和指法。
+ *
+ * @author airsaid
+ */
+public class ChordPool implements ChordCacheManager.Cache {
+
+    /** 默认容量 */
+    public static final int DEFAULT_MAX_SIZE = 16 * 1024;
+    /** 估算的每个和弦占用的内存：和弦对象、两个数组、Long 以及 LinkedHashMap 的节点 */
+    private static final int ENTRY_BYTES = 16 + 2 * (16 + Chord.STRING * 4) + 16 + 40;
+
+    private static volatile ChordPool sDefault;
+
+    private final Map<Long, Chord> mChords;
+    private int mMaxSize;
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * 获取默认的和弦池。
+     *
+     * @return 和弦池对象。
+     */
+    public static ChordPool getDefault() {
+        if (sDefault == null) {
+            synchronized (ChordPool.class) {
+                if (sDefault == null) {
+                    sDefault = new ChordPool(DEFAULT_MAX_SIZE);
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * 创建和弦池。
+     *
+     * @param maxSize 最多保存的和弦数
+     */
+    public ChordPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        mChords = new LinkedHashMap<Long, Chord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chord> eldest) {
+                return size() > mMaxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取与指定和弦相等的共享和弦。池中没有时放入指定的和弦并返回它。
+     *
+     * @param chord 和弦对象，可以为 NULL
+     * @return 共享的和弦对象，无法打包时返回传入的和弦。
+     */
+    public Chord intern(Chord chord) {
+        if (chord == null || !PackedChord.canPack(chord.getFrets(), chord.getFingers())) {
+            return chord;
+        }
+        Long key = PackedChord.pack(chord);
+        synchronized (this) {
+            Chord shared = mChords.get(key);
+            if (shared != null) {
+                mHitCount++;
+                return shared;
+            }
+            mMissCount++;
+            mChords.put(key, chord);
+            return chord;
+        }
+    }
+
+    /**
+     * 获取指定品和指法的共享和弦。池中已有时不会创建新的和弦对象和数组。
+     *
+     * @param frets   品数组，池中没有时会复制一份
+     * @param fingers 指法数组，可以为 NULL，池中没有时会复制一份
+     * @return 共享的和弦对象，无法打包时返回新创建的和弦。
+     */
+    public Chord intern(int[] frets, int[] fingers) {
+        if (!PackedChord.canPack(frets, fingers)) {
+            return new Chord(frets != null ? frets.clone() : null, fingers != null ? fingers.clone() : null);
+        }
+        return intern(PackedChord.pack(frets, fingers));
+    }
+
+    /**
+     * 获取指定打包和弦的共享和弦。
+     *
+     * @param packed 打包后的和弦
+     * @return 共享的和弦对象。
+     */
+    public Chord intern(long packed) {
+        Long key = packed;
+        synchronized (this) {
+            Chord shared = mChords.get(key);
+            if (shared != null) {
+                mHitCount++;
+                return shared;
+            }
+            mMissCount++;
+            Chord chord = PackedChord.unpack(packed);
+            mChords.put(key, chord);
+            return chord;
+        }
+    }
+
+    /**
+     * 获取池中的和弦数。
+     *
+     * @return 和弦数。
+     */
+    public synchronized int size() {
+        return mChords.size();
+    }
+
+    /**
+     * 获取最多保存的和弦数。
+     *
+     * @return 和弦数。
+     */
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 修改最多保存的和弦数，超出部分会丢弃最久未使用的和弦。
+     *
+     * @param maxSize 最多保存的和弦数
+     */
+    public synchronized void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * 丢弃最久未使用的和弦，直到池中的和弦数不超过指定值。
+     *
+     * @param size 保留的和弦数
+     */
+    public synchronized void trimToSize(int size) {
+        Iterator<Long> iterator = mChords.keySet().iterator();
+        while (mChords.size() > size && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "ChordPool";
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return (long) mChords.size() * ENTRY_BYTES;
+    }
+
+    @Override
+    public synchronized void trimToFraction(float fraction) {
+        trimToSize((int) (mChords.size() * fraction));
+    }
+
+    /**
+     * 清空和弦池。
+     */
+    public synchronized void clear() {
+        mChords.clear();
+    }
+
+    /**
+     * 获取命中次数，即返回已有共享和弦的次数。
+     *
+     * @return 命中次数。
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * 获取未命中次数，即放入新和弦的次数。
+     *
+     * @return 未命中次数。
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.airsaid.library.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 压缩的和弦序列，用于保存和同步歌曲中的和弦。
+ *
+ * 歌曲通常只用到少数几个指法，但会重复很多次。序列只保存一份不重复的指法字典，每次出现只保存字典中的编号，
+ * 连续相同的和弦合并为一段。编码格式（所有整数均为无符号 varint）：
+ * <pre>
+ * 字典大小 D
+ * D 个打包指法（见 {@link PackedChord}），从小到大排列，第一个保存原值，之后保存与前一个的差
+ * 和弦总数 N
+ * 若干段：编号（0 表示 NULL，i + 1 表示字典中的第 i 个指法）、段长 - 1，直到累计 N 个和弦
+ * </pre>
+ *
+ * 解码时只还原字典，各段在遍历时才从字节数组中读取，因此遍历不会创建中间数组，也不会为每个和弦创建对象，
+ * 相同的指法返回同一个和弦对象（经过 {@link ChordPool} 合并时与其他地方的和弦也是同一个对象）。
+ * 序列创建后不可修改，可以在线程之间共享，返回的和弦是共享的，不要修改。
+ *
+ * @author airsaid
+ */
+public final class ChordSequence implements Iterable<Chord> {
+
+    private final byte[] mData;
+    /** 字典，角标即编号 */
+    private final Chord[] mVoicings;
+    /** 和弦总数 */
+    private final int mSize;
+    /** 第一段在字节数组中的位置 */
+    private final int mRunsOffset;
+
+    private ChordSequence(byte[] data, Chord[] voicings, int size, int runsOffset) {
+        mData = data;
+        mVoicings = voicings;
+        mSize = size;
+        mRunsOffset = runsOffset;
+    }
+
+    /**
+     * 编码和弦列表。
+     *
+     * @param chords 和弦列表，元素可以为 NULL
+     * @return 和弦序列，字典中的和弦就是列表中第一次出现的和弦对象。
+     * @throws IllegalArgumentException 和弦无法打包时抛出
+     */
+    public static ChordSequence encode(List<Chord> chords) {
+        int size = chords.size();
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            Chord chord = chords.get(i);
+            packed[i] = chord != null ? PackedChord.pack(chord) : PackedChord.NONE;
+        }
+        // 排序去重得到字典，NONE 为负数，排在最前面
+        long[] dictionary = packed.clone();
+        Arrays.sort(dictionary);
+        int first = 0;
+        while (first < size && dictionary[first] == PackedChord.NONE) first++;
+        int count = 0;
+        for (int i = first; i < size; i++) {
+            if (count == 0 || dictionary[i] != dictionary[count - 1]) {
+                dictionary[count++] = dictionary[i];
+            }
+        }
+
+        Output out = new Output(16 + count * 8 + size / 2);
+        out.writeVarint(count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            out.writeVarint(dictionary[i] - previous);
+            previous = dictionary[i];
+        }
+        out.writeVarint(size);
+        int runsOffset = out.size();
+        Chord[] voicings = new Chord[count];
+        int i = 0;
+        while (i < size) {
+            int end = i + 1;
+            while (end < size && packed[end] == packed[i]) end++;
+            int symbol = 0;
+            if (packed[i] != PackedChord.NONE) {
+                int index = Arrays.binarySearch(dictionary, 0, count, packed[i]);
+                if (voicings[index] == null) voicings[index] = chords.get(i);
+                symbol = index + 1;
+            }
+            out.writeVarint(symbol);
+            out.writeVarint(end - i - 1);
+            i = end;
+        }
+        return new ChordSequence(out.toByteArray(), voicings, size, runsOffset);
+    }
+
+    /**
+     * 解码通过 {@link #toByteArray()} 得到的数据。只还原字典，不会复制数据，之后不要再修改该数组。
+     *
+     * @param data 编码后的数据
+     * @param pool 用于合并相同和弦的和弦池，为 NULL 时每个指法都创建新的对象
+     * @return 和弦序列。
+     * @throws IllegalArgumentException 数据格式错误时抛出
+     */
+    public static ChordSequence decode(byte[] data, ChordPool pool) {
+        Input in = new Input(data, 0);
+        long count = in.readVarint();
+        if (count < 0 || count > data.length) {
+            throw new IllegalArgumentException("Invalid dictionary size: " + count);
+        }
+        Chord[] voicings = new Chord[(int) count];
+        long packed = 0;
+        for (int i = 0; i < count; i++) {
+            packed += in.readVarint();
+            voicings[i] = pool != null ? pool.intern(packed) : PackedChord.unpack(packed);
+        }
+        long size = in.readVarint();
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        return new ChordSequence(data, voicings, (int) size, in.mOffset);
+    }
+
+    /**
+     * 获取编码后的数据。
+     *
+     * @return 数据的副本。
+     */
+    public byte[] toByteArray() {
+        return mData.clone();
+    }
+
+    /**
+     * 获取编码后的字节数。
+     *
+     * @return 字节数。
+     */
+    public int getEncodedSize() {
+        return mData.length;
+    }
+
+    /**
+     * 获取和弦总数。
+     *
+     * @return 和弦数。
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 获取字典中不重复的指法数。
+     *
+     * @return 指法数。
+     */
+    public int getVoicingCount() {
+        return mVoicings.length;
+    }
+
+    /**
+     * 获取字典中的指法。
+     *
+     * @param index 编号
+     * @return 和弦对象。
+     */
+    public Chord getVoicing(int index) {
+        return mVoicings[index];
+    }
+
+    /**
+     * 解码为完整的和弦列表。
+     *
+     * @return 和弦列表，元素可能为 NULL。
+     */
+    public List<Chord> toList() {
+        List<Chord> chords = new ArrayList<>(mSize);
+        for (Cursor cursor = iterator(); cursor.hasNext(); ) {
+            chords.add(cursor.next());
+        }
+        return chords;
+    }
+
+    /**
+     * 获取从头开始遍历的游标。
+     *
+     * @return 游标对象。
+     */
+    @Override
+    public Cursor iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * 和弦序列的游标，直接从字节数组中按段读取，不会解码整个序列。
+     */
+    public final class Cursor implements Iterator<Chord> {
+
+        private final Input mInput = new Input(mData, mRunsOffset);
+        private int mPosition;
+        private Chord mChord;
+        /** 当前段中剩余的和弦数 */
+        private int mRemaining;
+
+        private Cursor() {}
+
+        @Override
+        public boolean hasNext() {
+            return mPosition < mSize;
+        }
+
+        @Override
+        public Chord next() {
+            if (mPosition >= mSize) {
+                throw new NoSuchElementException();
+            }
+            if (mRemaining == 0) {
+                readRun();
+            }
+            mRemaining--;
+            mPosition++;
+            return mChord;
+        }
+
+        /**
+         * 跳过指定数量的和弦，整段跳过时不读取和弦。
+         *
+         * @param count 和弦数
+         * @return 实际跳过的和弦数。
+         */
+        public int skip(int count) {
+            int skipped = 0;
+            count = Math.min(count, mSize - mPosition);
+            while (skipped < count) {
+                if (mRemaining == 0) {
+                    readRun();
+                }
+                int step = Math.min(mRemaining, count - skipped);
+                mRemaining -= step;
+                mPosition += step;
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        /**
+         * 获取下一个和弦的位置。
+         *
+         * @return 位置，0 ~ {@link #size()}。
+         */
+        public int getPosition() {
+            return mPosition;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void readRun() {
+            long symbol = mInput.readVarint();
+            long length = mInput.readVarint() + 1;
+            if (symbol < 0 || symbol > mVoicings.length || length <= 0 || length > mSize - mPosition) {
+                throw new IllegalArgumentException("Invalid run at " + mPosition);
+            }
+            mChord = symbol == 0 ? null : mVoicings[(int) symbol - 1];
+            mRemaining = (int) length;
+        }
+    }
+
+    /**
+     * 从字节数组中按顺序读取 varint。
+     */
+    private static final class Input {
+
+        private final byte[] mData;
+        /** 下一个字节的位置 */
+        private int mOffset;
+
+        Input(byte[] data, int offset) {
+            mData = data;
+            mOffset = offset;
+        }
+
+        /**
+         * 读取无符号 varint。
+         *
+         * @return 整数值，超过 63 位时为负数。
+         * @throws IllegalArgumentException 数据不完整时抛出
+         */
+        long readVarint() {
+            byte[] data = mData;
+            int offset = mOffset;
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (offset >= data.length || shift > 63) {
+                    throw new IllegalArgumentException("Truncated data");
+                }
+                byte b = data[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            mOffset = offset;
+            return value;
+        }
+    }
+
+    /**
+     * 只在编码时使用的可增长字节数组。
+     */
+    private static final class Output {
+
+        private byte[] mBuffer;
+        private int mSize;
+
+        Output(int capacity) {
+            mBuffer = new byte[capacity];
+        }
+
+        void writeVarint(long value) {
+            if (mSize + 10 > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + 10));
+            }
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 和弦时间轴。按播放进度驱动一个或多个 {@link ChordView} 切换和弦。
+ *
+ * 时间轴在每一帧（API 16 以上使用 Choreographer，否则使用 Handler 模拟）读取 {@link Clock} 的播放进度，
+ * 当进度到达下一个和弦事件时立即切换。接下来的若干个和弦会在后台线程中提前计算好布局，
+ * 切换时只需要把布局交给 ChordView 绘制，不会在 UI 线程中做任何布局计算。
+ *
+ * 除 {@link Clock} 外，所有方法都必须在主线程中调用。
+ *
+ * @author airsaid
+ */
+public class ChordTimeline {
+
+    /** 默认预先计算的和弦数 */
+    private static final int DEFAULT_LOOK_AHEAD = 4;
+    /** 不支持 Choreographer 时的帧间隔 */
+    private static final long FALLBACK_FRAME_DELAY = 16;
+
+    /**
+     * 播放进度时钟，通常由音频播放器提供。
+     */
+    public interface Clock {
+
+        /**
+         * 获取当前的播放进度。
+         *
+         * @return 播放进度，单位毫秒。
+         */
+        long getPosition();
+    }
+
+    private final Clock mClock;
+    private final Executor mExecutor;
+    private final boolean mOwnExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private long[] mTimes = new long[16];
+    private Chord[] mChords = new Chord[16];
+    private int mCount;
+
+    private final List<ChordView> mViews = new ArrayList<>();
+    /** 每个 View 的预计算布局，按事件角标对 (mLookAhead + 1) 取余存放 */
+    private final List<AtomicReferenceArray<ChordLayout>> mLayouts = new ArrayList<>();
+
+    private int mLookAhead = DEFAULT_LOOK_AHEAD;
+    private boolean mAnimate;
+    private int mCurrentIndex = -1;
+    private boolean mRunning;
+
+    private Object mFrameCallback;
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            doFrame();
+        }
+    };
+
+    /**
+     * 创建时间轴，使用内部的单线程后台线程预先计算布局，不再使用时需调用 {@link #release()}。
+     *
+     * @param clock 播放进度时钟
+     */
+    public ChordTimeline(Clock clock) {
+        this(clock, Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ChordTimeline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true);
+    }
+
+    /**
+     * 创建时间轴，使用指定的 Executor 预先计算布局。
+     *
+     * @param clock    播放进度时钟
+     * @param executor 用于计算布局的后台 Executor
+     */
+    public ChordTimeline(Clock clock, Executor executor) {
+        this(clock, executor, false);
+    }
+
+    private ChordTimeline(Clock clock, Executor executor, boolean ownExecutor) {
+        mClock = clock;
+        mExecutor = executor;
+        mOwnExecutor = ownExecutor;
+    }
+
+    /**
+     * 添加和弦事件。事件必须按时间顺序添加。
+     *
+     * @param time  和弦开始的时间，单位毫秒
+     * @param chord 和弦对象
+     */
+    @MainThread
+    public void addEvent(long time, Chord chord) {
+        if (mCount > 0 && time < mTimes[mCount - 1]) {
+            throw new IllegalArgumentException("Events must be added in chronological order: " + time);
+        }
+        if (mCount == mTimes.length) {
+            mTimes = Arrays.copyOf(mTimes, mCount * 2);
+            mChords = Arrays.copyOf(mChords, mCount * 2);
+        }
+        mTimes[mCount] = time;
+        mChords[mCount] = chord;
+        mCount++;
+    }
+
+    /**
+     * 清空所有和弦事件。
+     */
+    @MainThread
+    public void clearEvents() {
+        Arrays.fill(mChords, 0, mCount, null);
+        mCount = 0;
+        mCurrentIndex = -1;
+        for (int i = 0; i < mLayouts.size(); i++) {
+            clear(mLayouts.get(i));
+        }
+    }
+
+    /**
+     * 获取和弦事件的数量。
+     *
+     * @return 事件数量。
+     */
+    public int getEventCount() {
+        return mCount;
+    }
+
+    /**
+     * 添加由时间轴驱动的 ChordView。
+     *
+     * @param view ChordView 对象
+     */
+    @MainThread
+    public void attach(ChordView view) {
+        if (mViews.contains(view)) return;
+        mViews.add(view);
+        mLayouts.add(new AtomicReferenceArray<ChordLayout>(mLookAhead + 1));
+        if (mRunning) {
+            prefetch(mCurrentIndex);
+        }
+    }
+
+    /**
+     * 移除由时间轴驱动的 ChordView。
+     *
+     * @param view ChordView 对象
+     */
+    @MainThread
+    public void detach(ChordView view) {
+        int index = mViews.indexOf(view);
+        if (index == -1) return;
+        mViews.remove(index);
+        mLayouts.remove(index);
+    }
+
+    /**
+     * 设置预先计算布局的和弦数。
+     *
+     * @param count 和弦数，至少为 1
+     */
+    @MainThread
+    public void setLookAhead(int count) {
+        mLookAhead = Math.max(1, count);
+        for (int i = 0; i < mLayouts.size(); i++) {
+            mLayouts.set(i, new AtomicReferenceArray<ChordLayout>(mLookAhead + 1));
+        }
+        if (mRunning) {
+            prefetch(mCurrentIndex);
+        }
+    }
+
+    /**
+     * 获取预先计算布局的和弦数。
+     *
+     * @return 和弦数。
+     */
+    public int getLookAhead() {
+        return mLookAhead;
+    }
+
+    /**
+     * 设置切换和弦时是否播放过渡动画。
+     *
+     * @param animate 是否播放过渡动画
+     */
+    public void setAnimate(boolean animate) {
+        mAnimate = animate;
+    }
+
+    /**
+     * 获取当前正在显示的和弦事件角标。
+     *
+     * @return 事件角标，还未到达第一个事件时返回 -1。
+     */
+    public int getCurrentIndex() {
+        return mCurrentIndex;
+    }
+
+    /**
+     * 开始跟随播放进度切换和弦。
+     */
+    @MainThread
+    public void start() {
+        if (mRunning) return;
+        mRunning = true;
+        mCurrentIndex = -1;
+        // 连同当前进度所在的事件一起预先计算，首帧即可直接使用
+        prefetch(findEvent(mClock.getPosition()) - 1);
+        scheduleFrame();
+    }
+
+    /**
+     * 停止跟随播放进度。
+     */
+    @MainThread
+    public void stop() {
+        if (!mRunning) return;
+        mRunning = false;
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        }
+        mHandler.removeCallbacks(mFrameRunnable);
+    }
+
+    /**
+     * 停止时间轴并释放内部的后台线程。
+     */
+    @MainThread
+    public void release() {
+        stop();
+        if (mOwnExecutor) {
+            ((ExecutorService) mExecutor).shutdownNow();
+        }
+    }
+
+    private void scheduleFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        ChordTimeline.this.doFrame();
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        } else {
+            mHandler.postDelayed(mFrameRunnable, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    private void doFrame() {
+        if (!mRunning) return;
+        int index = findEvent(mClock.getPosition());
+        if (index != mCurrentIndex) {
+            mCurrentIndex = index;
+            if (index != -1) {
+                apply(index);
+            }
+            prefetch(index);
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * 查找指定进度时应显示的事件。正常播放时从当前事件向后查找，跳转时使用二分查找。
+     *
+     * @param position 播放进度
+     * @return 事件角标，未到达第一个事件时返回 -1。
+     */
+    private int findEvent(long position) {
+        int index = mCurrentIndex;
+        if (index >= 0 && index < mCount && mTimes[index] <= position) {
+            while (index + 1 < mCount && mTimes[index + 1] <= position) {
+                index++;
+            }
+            return index;
+        }
+        int low = 0, high = mCount - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mTimes[mid] <= position) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将指定事件的和弦交给所有 View。已经预先计算好布局的直接使用，否则由 View 自行计算。
+     *
+     * @param index 事件角标
+     */
+    private void apply(int index) {
+        Chord chord = mChords[index];
+        for (int i = 0; i < mViews.size(); i++) {
+            ChordView view = mViews.get(i);
+            AtomicReferenceArray<ChordLayout> layouts = mLayouts.get(i);
+            ChordLayout layout = layouts.get(index % layouts.length());
+            if (layout != null && layout.chord == chord && view.getLayoutSpec().equals(layout.spec)) {
+                view.setChordLayout(layout, mAnimate);
+            } else {
+                view.setChord(chord, mAnimate);
+            }
+        }
+    }
+
+    /**
+     * 在后台线程中计算当前事件之后的若干个和弦的布局。
+     *
+     * @param index 当前事件角标
+     */
+    private void prefetch(int index) {
+        for (int i = 0; i < mViews.size(); i++) {
+            final ChordLayout.Spec spec = mViews.get(i).getLayoutSpec();
+            // 尚未完成测量的 View 没有可用的尺寸，交给 View 切换时自行计算
+            if (spec.width == 0 || spec.height == 0) continue;
+
+            final AtomicReferenceArray<ChordLayout> layouts = mLayouts.get(i);
+            int end = Math.min(mCount - 1, index + mLookAhead);
+            for (int event = Math.max(0, index + 1); event <= end; event++) {
+                final Chord chord = mChords[event];
+                final int slot = event % layouts.length();
+                ChordLayout layout = layouts.get(slot);
+                if (layout != null && layout.chord == chord && spec.equals(layout.spec)) continue;
+                mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        layouts.set(slot, ChordLayout.compute(chord, spec));
+                    }
+                });
+            }
+        }
+    }
+
+    private static void clear(AtomicReferenceArray<ChordLayout> layouts) {
+        for (int i = 0; i < layouts.length(); i++) {
+            layouts.set(i, null);
+        }
+    }
+}
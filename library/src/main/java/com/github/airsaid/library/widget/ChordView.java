@@ -16,11 +16,17 @@
 
 package com.github.airsaid.library.widget;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.*;
 import android.support.annotation.*;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
 import com.github.airsaid.library.R;
 
@@ -39,22 +45,69 @@ public class ChordView extends View {
     @Retention(RetentionPolicy.SOURCE)
     public @interface ShowMode {}
 
+    @IntDef({DETAIL_AUTO, DETAIL_FULL, DETAIL_REDUCED, DETAIL_MINIMAL})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface LevelOfDetail {}
+
     /** 弦数 */
     private static final int STRING = 6;
-    /** 品数 */
-    private static final int FRET = 4;
+    /** 预先测量文字宽度的最大品 */
+    private static final int MAX_MEASURED_FRET = 24;
     /** 默认显示模式 */
     public static final int NORMAL_SHOW_MODE = 1;
     /** 简单显示模式，默认只显示三品 */
     public static final int SIMPLE_SHOW_MODE = 2;
 
+    /** 根据 View 的尺寸自动选择细节等级 */
+    public static final int DETAIL_AUTO = 0;
+    /** 绘制所有细节 */
+    public static final int DETAIL_FULL = 1;
+    /** 不绘制节点文字、节点边框和横按边框，适用于较小的和弦 */
+    public static final int DETAIL_REDUCED = 2;
+    /** 在 {@link #DETAIL_REDUCED} 的基础上，横按与两端节点合并为一个图形，网格线不抗锯齿，适用于缩略图 */
+    public static final int DETAIL_MINIMAL = 3;
+    /** 自动模式下，较短边小于该值（dp）时使用 {@link #DETAIL_REDUCED} */
+    private static final int REDUCED_DETAIL_SIZE = 120;
+    /** 自动模式下，较短边小于该值（dp）时使用 {@link #DETAIL_MINIMAL} */
+    private static final int MINIMAL_DETAIL_SIZE = 64;
+
+    /**
+     * 编辑模式下和弦被修改的回调。
+     */
+    public interface OnChordEditListener {
+
+        /**
+         * 用户点击修改了一根弦。
+         *
+         * @param view  ChordView 对象
+         * @param chord 被修改的和弦
+         * @param index 被修改的弦的角标（0 = 6 弦）
+         * @param fret  修改后该弦的品，-1 为闭弦，0 为空弦
+         */
+        void onChordEdited(ChordView view, Chord chord, int index, int fret);
+    }
+
     /** 显示模式 */
     @ShowMode private int mShowMode;
-
-    /** 表示闭弦符号的图片，如果为 NULL，则不会绘制闭弦提示符号 */
+    /** 显示品数，和弦的跨度超过该值时自动增加行数 */
+    private int mFretCount = ChordLayout.DEFAULT_FRET_COUNT;
+    /** 设置的细节等级 */
+    @LevelOfDetail private int mLevelOfDetail;
+    /** 当前尺寸下实际使用的细节等级 */
+    @LevelOfDetail private int mDetail = DETAIL_FULL;
+
+    /** 表示闭弦符号的图片，如果为 NULL，则绘制内置的 X 符号 */
     private Bitmap mClosedStringBitmap;
-    /** 表示空弦符号的图片，如果为 NULL，则不会绘制空弦提示符号 */
+    /** 表示空弦符号的图片，如果为 NULL，则绘制内置的 O 符号 */
     private Bitmap mEmptyStringBitmap;
+    /** 内置空弦、闭弦符号的大小 */
+    private float mStringMarkerSize;
+    /** 内置空弦、闭弦符号的颜色 */
+    private int mStringMarkerColor;
+    /** 内置空弦、闭弦符号的线宽 */
+    private float mStringMarkerStrokeWidth;
+    /** 内置闭弦符号（X）的路径，以符号中心为原点，大小变化时重新创建 */
+    private Path mClosedStringPath;
     /** 空弦、闭弦提示符号的 y 轴偏移量 */
     private float mStringOffsetY;
 
@@ -99,10 +152,44 @@ public class ChordView extends View {
     /** 横按区域边框颜色 */
     private int mBarreStrokeColor;
 
+    /** 是否在切换和弦时播放过渡动画 */
+    private boolean mAnimateTransition;
+    /** 过渡动画时长 */
+    private long mTransitionDuration;
+
+    /** 是否处于编辑模式 */
+    private boolean mEditable;
+    private OnChordEditListener mOnChordEditListener;
+    /** 按下时点击到的弦和品，抬起时点击到同一位置才修改和弦 */
+    private int mDownHit = ChordEditor.NO_HIT;
+    /** 编辑后需要重绘的区域 */
+    private final float[] mDirtyRect = new float[4];
+
     private Chord mChord;
     private Paint mPaint;
-    private ChordHelper mChordHelper;
     private Path mHeadPath = new Path();
+    private RectF mBarreRect = new RectF();
+
+    /** 当前和弦的布局 */
+    private ChordLayout mLayout;
+    /** 当前尺寸和样式下的布局规格 */
+    private ChordLayout.Spec mLayoutSpec;
+    /** 尺寸或样式是否发生变化，需要重新创建布局规格 */
+    private boolean mLayoutDirty = true;
+    /** 过渡动画中上一个和弦的布局，非过渡状态时为 NULL */
+    private ChordLayout mFromLayout;
+    /** 过渡动画进度，0 为上一个和弦，1 为当前和弦 */
+    private float mTransitionFraction = 1f;
+    private ValueAnimator mTransitionAnimator;
+
+    /** 品文字和节点文字的字形图集，文字大小变化时重新获取 */
+    private GlyphAtlas mFretAtlas;
+    private GlyphAtlas mNoteAtlas;
+
+    /** 渲染监控，为 NULL 时不统计 */
+    private RenderMonitor mRenderMonitor;
+    /** 当前帧各阶段的耗时 */
+    private long[] mPhaseNanos;
 
     public ChordView(Context context) {
         this(context, null);
@@ -115,17 +202,22 @@ public class ChordView extends View {
     public ChordView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         initAttrs(attrs);
-        mChordHelper = new ChordHelper();
         mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mPaint.setColor(Color.WHITE);
+        initTransitionAnimator();
     }
 
     private void initAttrs(AttributeSet attrs) {
         TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.ChordView);
         setShowMode(a.getInt(R.styleable.ChordView_cv_showMode, NORMAL_SHOW_MODE));
+        setLevelOfDetail(a.getInt(R.styleable.ChordView_cv_levelOfDetail, DETAIL_AUTO));
+        setFretCount(a.getInt(R.styleable.ChordView_cv_fretCount, ChordLayout.DEFAULT_FRET_COUNT));
         setClosedStringImage(a.getResourceId(R.styleable.ChordView_cv_closedStringImage, 0));
         setEmptyStringImage(a.getResourceId(R.styleable.ChordView_cv_emptyStringImage, 0));
         setStringOffsetY(a.getDimension(R.styleable.ChordView_cv_stringOffsetY, 0f));
+        setStringMarkerSize(a.getDimension(R.styleable.ChordView_cv_stringMarkerSize, 30f));
+        setStringMarkerColor(a.getColor(R.styleable.ChordView_cv_stringMarkerColor, Color.WHITE));
+        setStringMarkerStrokeWidth(a.getDimension(R.styleable.ChordView_cv_stringMarkerStrokeWidth, 4f));
         setHeadRadius(a.getDimension(R.styleable.ChordView_cv_headRadius, 0f));
         setHeadColor(a.getColor(R.styleable.ChordView_cv_headColor, Color.WHITE));
         setFretTextSize(a.getDimension(R.styleable.ChordView_cv_fretTextSize, 40f));
@@ -144,17 +236,56 @@ public class ChordView extends View {
         setBarreAlpha(a.getInt(R.styleable.ChordView_cv_barreAlpha, 255));
         setBarreStrokeWidth(a.getDimension(R.styleable.ChordView_cv_barreStrokeWidth, 0f));
         setBarreStrokeColor(a.getColor(R.styleable.ChordView_cv_barreStrokeColor, Color.WHITE));
+        setAnimateTransition(a.getBoolean(R.styleable.ChordView_cv_animateTransition, false));
+        setTransitionDuration(a.getInt(R.styleable.ChordView_cv_transitionDuration, 200));
+        setEditable(a.getBoolean(R.styleable.ChordView_cv_editable, false));
         a.recycle();
     }
 
+    private void initTransitionAnimator() {
+        mTransitionAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mTransitionAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                // 使用 getAnimatedFraction() 而非 getAnimatedValue()，避免每帧装箱
+                mTransitionFraction = animation.getAnimatedFraction();
+                invalidate();
+            }
+        });
+        mTransitionAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                mTransitionFraction = 1f;
+                mFromLayout = null;
+                invalidate();
+            }
+        });
+    }
+
     /**
      * 设置和弦对象并根据该和弦开始渲染。
      *
      * @param chord 和弦对象
      */
     public void setChord(Chord chord) {
+        setChord(chord, mAnimateTransition);
+    }
+
+    /**
+     * 设置和弦对象并根据该和弦开始渲染。
+     *
+     * 当 animate 为 true 时，节点和横按会从上一个和弦的位置平滑过渡到新和弦的位置。两个和弦的布局均在此时计算好，
+     * 动画的每一帧只做插值与绘制。
+     *
+     * @param chord   和弦对象
+     * @param animate 是否播放过渡动画
+     */
+    public void setChord(Chord chord, boolean animate) {
+        ChordLayout from = getTransitionStart(animate);
+        mTransitionAnimator.cancel();
         mChord = chord;
-        invalidate();
+        mLayout = null;
+        startTransition(from);
     }
 
     /**
@@ -173,6 +304,7 @@ public class ChordView extends View {
      */
     public void setShowMode(@ShowMode int mode) {
         mShowMode = mode;
+        mLayoutDirty = true;
         invalidate();
     }
 
@@ -185,6 +317,167 @@ public class ChordView extends View {
         return mShowMode;
     }
 
+    /**
+     * 设置显示品数，默认为 4 品。最大品未超过该值的和弦从 1 品开始显示，否则从最小品开始显示；
+     * 跨度超过该值的和弦（如 5 品的扩展把位）会自动增加行数以显示所有节点。
+     *
+     * @param count 显示品数，必须大于 0
+     */
+    public void setFretCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count <= 0");
+        }
+        mFretCount = count;
+        mLayoutDirty = true;
+        invalidate();
+    }
+
+    /**
+     * 获取显示品数。
+     *
+     * @return 显示品数。
+     */
+    public int getFretCount() {
+        return mFretCount;
+    }
+
+    /**
+     * 设置细节等级。默认为 {@link #DETAIL_AUTO}，根据 View 的尺寸自动选择，小尺寸时省略看不清的细节以减少绘制开销。
+     * 细节等级与显示模式相互独立。
+     *
+     * @param level 细节等级
+     */
+    public void setLevelOfDetail(@LevelOfDetail int level) {
+        mLevelOfDetail = level;
+        updateDetail();
+    }
+
+    /**
+     * 获取设置的细节等级。
+     *
+     * @return 细节等级。
+     */
+    @LevelOfDetail public int getLevelOfDetail() {
+        return mLevelOfDetail;
+    }
+
+    /**
+     * 获取当前尺寸下实际使用的细节等级。
+     *
+     * @return {@link #DETAIL_FULL}、{@link #DETAIL_REDUCED} 或 {@link #DETAIL_MINIMAL}。
+     */
+    @LevelOfDetail public int getEffectiveLevelOfDetail() {
+        return mDetail;
+    }
+
+    private void updateDetail() {
+        int detail = mLevelOfDetail;
+        if (detail == DETAIL_AUTO) {
+            detail = DETAIL_FULL;
+            int width = getWidth(), height = getHeight();
+            if (width > 0 && height > 0) {
+                float size = Math.min(width, height) / getResources().getDisplayMetrics().density;
+                if (size < MINIMAL_DETAIL_SIZE) {
+                    detail = DETAIL_MINIMAL;
+                } else if (size < REDUCED_DETAIL_SIZE) {
+                    detail = DETAIL_REDUCED;
+                }
+            }
+        }
+        if (detail != mDetail) {
+            mDetail = detail;
+            invalidate();
+        }
+    }
+
+    /**
+     * 设置切换和弦时是否播放过渡动画。
+     *
+     * @param animate 是否播放过渡动画
+     */
+    public void setAnimateTransition(boolean animate) {
+        mAnimateTransition = animate;
+    }
+
+    /**
+     * 获取切换和弦时是否播放过渡动画。
+     *
+     * @return 播放过渡动画返回 true，否则返回 false。
+     */
+    public boolean isAnimateTransition() {
+        return mAnimateTransition;
+    }
+
+    /**
+     * 设置过渡动画的时长。
+     *
+     * @param duration 动画时长，单位毫秒
+     */
+    public void setTransitionDuration(long duration) {
+        mTransitionDuration = duration;
+    }
+
+    /**
+     * 获取过渡动画的时长。
+     *
+     * @return 动画时长，单位毫秒。
+     */
+    public long getTransitionDuration() {
+        return mTransitionDuration;
+    }
+
+    /**
+     * 设置是否处于编辑模式。编辑模式下点击网格按下或松开对应的品，点击网格上方的区域切换空弦和闭弦。
+     *
+     * 编辑会直接修改当前的和弦对象（没有和弦时创建一个全部为闭弦的和弦），因此不要对共享的和弦
+     * （如通过 {@link ChordPool} 获取的和弦）开启编辑模式。每次点击只重绘发生变化的节点、横按和符号区域。
+     *
+     * @param editable 是否处于编辑模式
+     */
+    public void setEditable(boolean editable) {
+        mEditable = editable;
+        mDownHit = ChordEditor.NO_HIT;
+    }
+
+    /**
+     * 获取是否处于编辑模式。
+     *
+     * @return 处于编辑模式返回 true，否则返回 false。
+     */
+    public boolean isEditable() {
+        return mEditable;
+    }
+
+    /**
+     * 设置编辑模式下和弦被修改的回调。
+     *
+     * @param listener 回调对象
+     */
+    public void setOnChordEditListener(OnChordEditListener listener) {
+        mOnChordEditListener = listener;
+    }
+
+    /**
+     * 设置渲染监控，用于统计绘制各阶段的耗时和布局计算次数。
+     *
+     * @param monitor 渲染监控对象，为 NULL 时关闭统计
+     */
+    public void setRenderMonitor(RenderMonitor monitor) {
+        mRenderMonitor = monitor;
+        if (monitor != null && mPhaseNanos == null) {
+            mPhaseNanos = new long[RenderMonitor.PHASE_COUNT];
+        }
+    }
+
+    /**
+     * 获取渲染监控。
+     *
+     * @return 渲染监控对象，没有设置时返回 NULL。
+     */
+    public RenderMonitor getRenderMonitor() {
+        return mRenderMonitor;
+    }
+
     /**
      * 通过图片资源 id 设置闭弦符号的图片。
      *
@@ -202,6 +495,7 @@ public class ChordView extends View {
      */
     public void setClosedStringBitmap(Bitmap bitmap) {
         mClosedStringBitmap = bitmap;
+        mLayoutDirty = true;
     }
 
     /**
@@ -230,6 +524,7 @@ public class ChordView extends View {
      */
     public void setEmptyStringBitmap(Bitmap bitmap) {
         mEmptyStringBitmap = bitmap;
+        mLayoutDirty = true;
     }
 
     /**
@@ -248,6 +543,7 @@ public class ChordView extends View {
      */
     public void setStringOffsetY(float offsetY) {
         mStringOffsetY = offsetY;
+        mLayoutDirty = true;
     }
 
     /**
@@ -259,6 +555,66 @@ public class ChordView extends View {
         return mStringOffsetY;
     }
 
+    /**
+     * 设置内置空弦（O）、闭弦（X）符号的大小。设置了符号图片时使用图片绘制。
+     *
+     * @param size 符号大小
+     */
+    public void setStringMarkerSize(float size) {
+        mStringMarkerSize = size;
+        mClosedStringPath = null;
+        mLayoutDirty = true;
+        invalidate();
+    }
+
+    /**
+     * 获取内置空弦、闭弦符号的大小。
+     *
+     * @return 符号大小。
+     */
+    public float getStringMarkerSize() {
+        return mStringMarkerSize;
+    }
+
+    /**
+     * 设置内置空弦、闭弦符号的颜色。
+     *
+     * @param color 颜色
+     */
+    public void setStringMarkerColor(@ColorInt int color) {
+        mStringMarkerColor = color;
+        invalidate();
+    }
+
+    /**
+     * 获取内置空弦、闭弦符号的颜色。
+     *
+     * @return 颜色。
+     */
+    @ColorInt public int getStringMarkerColor() {
+        return mStringMarkerColor;
+    }
+
+    /**
+     * 设置内置空弦、闭弦符号的线宽。
+     *
+     * @param strokeWidth 线宽
+     */
+    public void setStringMarkerStrokeWidth(float strokeWidth) {
+        mStringMarkerStrokeWidth = strokeWidth;
+        mClosedStringPath = null;
+        invalidate();
+    }
+
+    /**
+     * 获取内置空弦、闭弦符号的线宽。
+     *
+     * @return 线宽。
+     */
+    public float getStringMarkerStrokeWidth() {
+        return mStringMarkerStrokeWidth;
+    }
+
     /**
      * 设置琴头的弧度。
      *
@@ -266,6 +622,7 @@ public class ChordView extends View {
      */
     public void setHeadRadius(float radius) {
         mHeadRadius = radius;
+        mLayoutDirty = true;
     }
 
     /**
@@ -303,6 +660,8 @@ public class ChordView extends View {
      */
     public void setFretTextSize(float textSize) {
         mFretTextSize = textSize;
+        mFretAtlas = null;
+        mLayoutDirty = true;
     }
 
     /**
@@ -339,6 +698,7 @@ public class ChordView extends View {
      */
     public void setFretTextOffsetX(float offsetX) {
         mFretTextOffsetX = offsetX;
+        mLayoutDirty = true;
     }
 
     /**
@@ -357,6 +717,7 @@ public class ChordView extends View {
      */
     public void setGridLineWidth(float lineWidth) {
         mGridLineWidth = lineWidth;
+        mLayoutDirty = true;
     }
 
     /**
@@ -411,6 +772,7 @@ public class ChordView extends View {
      */
     public void setNoteRadius(float radius) {
         mNoteRadius = radius;
+        mLayoutDirty = true;
     }
 
     /**
@@ -429,6 +791,7 @@ public class ChordView extends View {
      */
     public void setNoteTextSize(float textSize) {
         mNoteTextSize = textSize;
+        mNoteAtlas = null;
     }
 
     /**
@@ -586,67 +949,381 @@ public class ChordView extends View {
         return mBarreStrokeColor;
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mTransitionAnimator.cancel();
+        mLayoutDirty = true;
+        updateDetail();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!mEditable || !isEnabled()) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mDownHit = ChordEditor.hitTest(getChordLayout(), event.getX(), event.getY());
+                return true;
+            case MotionEvent.ACTION_UP:
+                int hit = mDownHit;
+                mDownHit = ChordEditor.NO_HIT;
+                if (hit != ChordEditor.NO_HIT && hit == ChordEditor.hitTest(getChordLayout(), event.getX(), event.getY())) {
+                    edit(hit);
+                    performClick();
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mDownHit = ChordEditor.NO_HIT;
+                return true;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * 按点击结果修改和弦，只重绘发生变化的区域。
+     *
+     * @param hit 点击结果
+     */
+    private void edit(int hit) {
+        mTransitionAnimator.cancel();
+        ChordLayout from = getChordLayout();
+        if (mChord == null) {
+            mChord = new Chord(new int[]{-1, -1, -1, -1, -1, -1});
+        }
+        int index = ChordEditor.getHitIndex(hit);
+        int fret = ChordEditor.apply(mChord, hit);
+        mLayout = ChordLayout.compute(mChord, from.spec);
+        if (mRenderMonitor != null) mRenderMonitor.increment(RenderMonitor.COUNTER_LAYOUT);
+
+        float markerSize = Math.max(mStringMarkerSize,
+                Math.max(bitmapWidth(mClosedStringBitmap), bitmapWidth(mEmptyStringBitmap)));
+        float inset = Math.max(mNoteStrokeWidth, mBarreStrokeWidth) + 1;
+        float[] dirty = mDirtyRect;
+        if (from.chord == null || !ChordEditor.getDirtyRect(from, mLayout, index, markerSize, inset, dirty)) {
+            invalidate();
+        } else if (dirty[0] < dirty[2]) {
+            invalidate((int) Math.floor(dirty[0]), (int) Math.floor(dirty[1]),
+                    (int) Math.ceil(dirty[2]), (int) Math.ceil(dirty[3]));
+        }
+        if (mOnChordEditListener != null) {
+            mOnChordEditListener.onChordEdited(this, mChord, index, fret);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mTransitionAnimator.cancel();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.chord = mChord;
+        state.showMode = mShowMode;
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        setShowMode(savedState.showMode);
+        setChord(savedState.chord, false);
+    }
+
+    /**
+     * 保存和弦与显示模式，和弦按打包后的 long 序列化。
+     */
+    static class SavedState extends BaseSavedState {
+
+        Chord chord;
+        @ShowMode int showMode;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            showMode = in.readInt();
+            if (in.readInt() != 0) {
+                chord = Chord.CREATOR.createFromParcel(in);
+            }
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(showMode);
+            out.writeInt(chord != null ? 1 : 0);
+            if (chord != null) {
+                chord.writeToParcel(out, flags);
+            }
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        drawClosedEmptyString(canvas);
-        drawFrets(canvas);
-        drawHead(canvas);
-        drawGrid(canvas);
-        drawNotes(canvas);
-//        drawDebug(canvas);
+        if (mRenderMonitor != null) {
+            drawMonitored(canvas, mRenderMonitor);
+            return;
+        }
+        ChordLayout layout = getChordLayout();
+        drawClosedEmptyString(canvas, layout);
+        drawFrets(canvas, layout);
+        drawHead(canvas, layout);
+        drawGrid(canvas, layout);
+        drawNotes(canvas, layout);
+//        drawDebug(canvas, layout);
+    }
+
+    /**
+     * 与 {@link #onDraw(Canvas)} 相同，同时统计各阶段的耗时。
+     */
+    private void drawMonitored(Canvas canvas, RenderMonitor monitor) {
+        long[] nanos = mPhaseNanos;
+        long start = System.nanoTime();
+        ChordLayout layout = getChordLayout();
+        long time = System.nanoTime();
+        drawClosedEmptyString(canvas, layout);
+        long now = System.nanoTime();
+        nanos[RenderMonitor.PHASE_CLOSED_EMPTY_STRING] = now - time;
+        drawFrets(canvas, layout);
+        time = now;
+        now = System.nanoTime();
+        nanos[RenderMonitor.PHASE_FRETS] = now - time;
+        drawHead(canvas, layout);
+        time = now;
+        now = System.nanoTime();
+        nanos[RenderMonitor.PHASE_HEAD] = now - time;
+        drawGrid(canvas, layout);
+        time = now;
+        now = System.nanoTime();
+        nanos[RenderMonitor.PHASE_GRID] = now - time;
+        drawNotes(canvas, layout);
+        time = now;
+        now = System.nanoTime();
+        nanos[RenderMonitor.PHASE_NOTES] = now - time;
+        nanos[RenderMonitor.PHASE_TOTAL] = now - start;
+        monitor.onFrame(this, nanos);
+    }
+
+    /**
+     * 获取当前和弦的布局，当布局失效时重新计算。
+     *
+     * @return 布局对象。
+     */
+    private ChordLayout getChordLayout() {
+        ChordLayout.Spec spec = getLayoutSpec();
+        RenderMonitor monitor = mRenderMonitor;
+        if (mLayout == null || !spec.equals(mLayout.spec)) {
+            mLayout = ChordLayout.compute(mChord, spec);
+            if (monitor != null) monitor.increment(RenderMonitor.COUNTER_LAYOUT);
+        } else if (monitor != null) {
+            monitor.increment(RenderMonitor.COUNTER_LAYOUT_CACHE_HIT);
+        }
+        return mLayout;
+    }
+
+    /**
+     * 获取当前尺寸和样式下的布局规格。规格在尺寸或样式变化前保持不变，可以交给后台线程通过
+     * {@link ChordLayout#compute(Chord, ChordLayout.Spec)} 预先计算布局。
+     *
+     * 规格依赖于 View 的尺寸，应在 View 完成测量后获取。
+     *
+     * @return 布局规格。
+     */
+    @MainThread
+    public ChordLayout.Spec getLayoutSpec() {
+        if (mLayoutDirty || mLayoutSpec == null) {
+            mLayoutSpec = createLayoutSpec();
+            mLayoutDirty = false;
+        }
+        return mLayoutSpec;
+    }
+
+    private ChordLayout.Spec createLayoutSpec() {
+        GlyphAtlas atlas = getFretAtlas();
+        float[] fretTextWidths = new float[MAX_MEASURED_FRET + 1];
+        for (int i = 0; i < fretTextWidths.length; i++) {
+            fretTextWidths[i] = atlas.measureNumber(i);
+        }
+        float stringMarkerHeight = Math.max(getStringMarkerHeight(mClosedStringBitmap), getStringMarkerHeight(mEmptyStringBitmap));
+        return new ChordLayout.Spec(getWidth(), getHeight(), mShowMode, mFretCount, stringMarkerHeight,
+                mStringOffsetY, mHeadRadius, mFretTextOffsetX, mGridLineWidth, mNoteRadius, fretTextWidths);
+    }
+
+    /**
+     * 直接使用预先计算好的布局渲染和弦，UI 线程只负责绘制。
+     *
+     * 当布局的规格与当前规格不一致时（例如计算后 View 尺寸发生了变化），会按当前规格重新计算。
+     *
+     * @param layout 布局对象
+     */
+    @MainThread
+    public void setChordLayout(ChordLayout layout) {
+        setChordLayout(layout, mAnimateTransition);
+    }
+
+    /**
+     * 直接使用预先计算好的布局渲染和弦，UI 线程只负责绘制。
+     *
+     * 当布局的规格与当前规格不一致时（例如计算后 View 尺寸发生了变化），会按当前规格重新计算。
+     *
+     * @param layout  布局对象
+     * @param animate 是否播放过渡动画
+     */
+    @MainThread
+    public void setChordLayout(ChordLayout layout, boolean animate) {
+        ChordLayout from = getTransitionStart(animate);
+        mTransitionAnimator.cancel();
+        mChord = layout.chord;
+        mLayout = getLayoutSpec().equals(layout.spec) ? layout : null;
+        if (mLayout != null && mRenderMonitor != null) {
+            mRenderMonitor.increment(RenderMonitor.COUNTER_PRECOMPUTED_LAYOUT);
+        }
+        startTransition(from);
+    }
+
+    /**
+     * 获取过渡动画的起始布局，即当前显示在屏幕上的布局。上一个过渡还未结束时，从动画当前的位置开始过渡，
+     * 避免快速切换和弦时节点先跳回上一个目标位置。需要在取消上一个动画之前调用。
+     *
+     * @param animate 是否播放过渡动画
+     * @return 起始布局，不播放动画时返回 NULL。
+     */
+    private ChordLayout getTransitionStart(boolean animate) {
+        if (!animate || getWidth() <= 0 || getHeight() <= 0) {
+            return null;
+        }
+        ChordLayout to = getChordLayout();
+        ChordLayout from = mFromLayout;
+        if (from == null || from.chord == null || to.chord == null || mTransitionFraction >= 1f) {
+            return to;
+        }
+        return ChordLayout.interpolate(from, to, mTransitionFraction);
+    }
+
+    /**
+     * 从指定的布局开始过渡到当前和弦的布局。
+     *
+     * @param from 上一个和弦的布局，为 NULL 时不播放动画
+     */
+    private void startTransition(ChordLayout from) {
+        if (from != null && from.chord != null && mChord != null) {
+            mFromLayout = from;
+            mTransitionFraction = 0f;
+            getChordLayout();
+            mTransitionAnimator.setDuration(mTransitionDuration);
+            mTransitionAnimator.start();
+        }
+        invalidate();
     }
 
     /**
      * 绘制闭弦和空弦。
      *
      * @param canvas 画布对象
+     * @param layout 布局对象
      */
-    private void drawClosedEmptyString(Canvas canvas) {
-        if (!isDrawStrings()) return;
+    private void drawClosedEmptyString(Canvas canvas, ChordLayout layout) {
+        if (!layout.drawStrings || layout.chord == null) return;
 
+        int[] frets = layout.chord.getFrets();
+        float markerHeight = layout.spec.stringMarkerHeight;
         for (int i = 0; i < STRING; i++) {
-            Bitmap bitmap = getStringBitmap(i);
-            if (bitmap == null) continue;
-            float left = getFretWidth() - bitmap.getWidth() / 2 + (getGridColumnWidth() * i);
-            float top = Math.max(bitmapHeight(mClosedStringBitmap)
-                    , bitmapHeight(mEmptyStringBitmap)) / 2;
-            canvas.drawBitmap(bitmap, left, top, mPaint);
+            int fret = frets[i];
+            if (fret != -1 && fret != 0) continue;
+            float cx = layout.fretWidth + (layout.columnWidth * i);
+            Bitmap bitmap = fret == -1 ? mClosedStringBitmap : mEmptyStringBitmap;
+            if (bitmap != null) {
+                canvas.drawBitmap(bitmap, cx - bitmap.getWidth() / 2, markerHeight / 2, mPaint);
+            } else {
+                drawStringMarker(canvas, fret == -1, cx, markerHeight / 2 + mStringMarkerSize / 2);
+            }
         }
     }
 
     /**
-     * 绘制品文字。
+     * 绘制内置的空弦（O）、闭弦（X）符号。
      *
      * @param canvas 画布对象
+     * @param closed 是否是闭弦
+     * @param cx     符号中心的 x 轴坐标
+     * @param cy     符号中心的 y 轴坐标
      */
-    private void drawFrets(Canvas canvas) {
-        // 如果最高品未超过 4 品，则不绘制
-        if (!isExceedDefaultFret()) {
+    private void drawStringMarker(Canvas canvas, boolean closed, float cx, float cy) {
+        float radius = (mStringMarkerSize - mStringMarkerStrokeWidth) / 2;
+        if (radius <= 0) return;
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(mStringMarkerStrokeWidth);
+        mPaint.setColor(mStringMarkerColor);
+        if (!closed) {
+            canvas.drawCircle(cx, cy, radius, mPaint);
             return;
         }
+        if (mClosedStringPath == null) {
+            // X 的两条对角线落在与 O 相同大小的圆内
+            float d = radius * 0.7071f;
+            Path path = new Path();
+            path.moveTo(-d, -d);
+            path.lineTo(d, d);
+            path.moveTo(d, -d);
+            path.lineTo(-d, d);
+            mClosedStringPath = path;
+        }
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        canvas.save();
+        canvas.translate(cx, cy);
+        canvas.drawPath(mClosedStringPath, mPaint);
+        canvas.restore();
+        mPaint.setStrokeCap(Paint.Cap.BUTT);
+    }
+
+    /**
+     * 绘制品文字。
+     *
+     * @param canvas 画布对象
+     * @param layout 布局对象
+     */
+    private void drawFrets(Canvas canvas, ChordLayout layout) {
+        String[] texts = layout.fretTexts;
+        if (texts == null) return;
 
+        GlyphAtlas atlas = getFretAtlas();
         mPaint.setStyle(Paint.Style.FILL);
         mPaint.setTextSize(mFretTextSize);
         mPaint.setColor(mFretTextColor);
         mPaint.setAlpha(255);
-
-        int index = 1;
-        int leastFret = getLeastFret();
-        float fretWidth = getFretWidth();
-
-        for (int i = leastFret; i < STRING + leastFret; i++) {
-            String fret = String.valueOf(i);
-            float fretTextWidth = mPaint.measureText(fret);
-            float x = fretWidth - fretTextWidth - mFretTextOffsetX;
-            float y = getStringHeight() + getHeadHeight() + (getGridRowHeight() * index);
-            canvas.drawText(fret, x, y, mPaint);
-            // 简单模式下，如果和弦中的品超过三品，则就只展示第一个品数字
-            if (mShowMode == SIMPLE_SHOW_MODE) {
-                // 不继续绘制
-                break;
+        for (int i = 0; i < texts.length; i++) {
+            if (!atlas.drawText(canvas, texts[i], layout.fretTextX[i], layout.fretTextY[i], mPaint)) {
+                canvas.drawText(texts[i], layout.fretTextX[i], layout.fretTextY[i], mPaint);
             }
-            index++;
         }
     }
 
@@ -654,16 +1331,17 @@ public class ChordView extends View {
      * 绘制琴头。
      *
      * @param canvas 画布对象
+     * @param layout 布局对象
      */
-    private void drawHead(Canvas canvas) {
-        if (!isDrawHead()) return;
+    private void drawHead(Canvas canvas, ChordLayout layout) {
+        if (!layout.drawHead) return;
 
         mPaint.setStyle(Paint.Style.FILL);
         mPaint.setColor(mHeadColor);
 
-        float width = getGridWidth();
-        float x = getFretWidth();
-        float y = getStringHeight();
+        float width = layout.gridWidth;
+        float x = layout.fretWidth;
+        float y = layout.stringHeight;
         mHeadPath.rewind();
         mHeadPath.moveTo(x, y + mHeadRadius);
         mHeadPath.quadTo(x, y, x + mHeadRadius, y);
@@ -676,15 +1354,19 @@ public class ChordView extends View {
      * 绘制指板网格。
      *
      * @param canvas 画布对象
+     * @param layout 布局对象
      */
-    private void drawGrid(Canvas canvas) {
+    private void drawGrid(Canvas canvas, ChordLayout layout) {
+        // 缩略图中的网格线只有一两个像素宽，关闭抗锯齿既更清晰也更快
+        boolean antiAlias = mDetail != DETAIL_MINIMAL;
+        mPaint.setAntiAlias(antiAlias);
         mPaint.setStyle(Paint.Style.STROKE);
         mPaint.setStrokeWidth(mGridLineWidth);
         mPaint.setColor(mGridLineColor);
 
-        int row = getRow();
-        float width = getGridWidth(), height = getGridHeight();
-        float x = getFretWidth(), y = getStringHeight() + getHeadHeight();
+        int row = layout.row;
+        float width = layout.gridWidth, height = layout.gridHeight;
+        float x = layout.fretWidth, y = layout.gridTop;
         // 绘制横线
         float ry = y;
         float rh = (height - mGridLineWidth * (row + 1)) / (row);
@@ -698,240 +1380,144 @@ public class ChordView extends View {
             x = i != 0 ? x + cw + mGridLineWidth : x + mGridLineWidth / 2;
             canvas.drawLine(x, y, x, y + height, mPaint);
         }
+        if (!antiAlias) mPaint.setAntiAlias(true);
     }
 
     /**
-     * 绘制节点。
+     * 绘制节点。过渡动画中，两个和弦都有的节点和横按会按进度插值位置，只有一方有的则按进度淡入或淡出。
      *
      * @param canvas 画布对象
-     */
-    private void drawNotes(Canvas canvas) {
-        if (mChord == null) return;
-
-        int[] frets = mChord.getFrets();
-        int[] fingers = mChord.getFingers();
-
-        // 绘制横按
-        int[] barreChord = mChordHelper.getBarreChordData(mChord);
-        int barreFret = 0, barreString = 0;
-        // 判断是否有横按情况
-        if (barreChord != null) {
-            // 有横按情况，绘制横按矩形
-            barreFret = barreChord[0];
-            barreString = barreChord[1];
-
-            mPaint.setStyle(Paint.Style.FILL);
-            mPaint.setColor(mBarreColor);
-            mPaint.setAlpha(mBarreAlpha);
-
-            float left = getFretWidth() + mGridLineWidth / 2 + (getGridColumnWidth() * (STRING - barreString));
-            float top = getStringHeight() + getHeadHeight();
-            if (isExceedDefaultFret()) {
-                // 显示在 1 品位置
-                top += getGridRowHeight() / 2 - mNoteRadius;
-            } else {
-                // 显示在最小品位置
-                top += getGridRowHeight() * barreFret - (getGridRowHeight() / 2) - mNoteRadius;
+     * @param layout 布局对象
+     */
+    private void drawNotes(Canvas canvas, ChordLayout layout) {
+        ChordLayout from = mFromLayout;
+        float t = from != null ? mTransitionFraction : 1f;
+
+        // 绘制横按，两个和弦中相同序号的横按段之间插值
+        int fromBarres = from != null ? from.barreCount : 0;
+        for (int i = 0, count = Math.max(fromBarres, layout.barreCount); i < count; i++) {
+            boolean fromVisible = i < fromBarres;
+            boolean toVisible = i < layout.barreCount;
+            if (fromVisible && toVisible) {
+                drawBarre(canvas, lerp(from.barreLeft[i], layout.barreLeft[i], t), lerp(from.barreTop[i], layout.barreTop[i], t),
+                        lerp(from.barreRight[i], layout.barreRight[i], t), lerp(from.barreBottom[i], layout.barreBottom[i], t),
+                        lerp(from.barreStartX[i], layout.barreStartX[i], t), lerp(from.barreEndX[i], layout.barreEndX[i], t),
+                        lerp(from.barreY[i], layout.barreY[i], t), t < 0.5f ? from.barreText[i] : layout.barreText[i], 1f);
+                continue;
             }
-            float right = left + getGridColumnWidth() * (barreString - 1);
-            float bottom = top + mNoteRadius * 2;
-            canvas.drawRect(left, top, right, bottom, mPaint);
-
-            // 绘制横按边框
-            if (mBarreStrokeWidth > 0) {
-                mPaint.setAlpha(255);
-                mPaint.setColor(mBarreStrokeColor);
-                mPaint.setStyle(Paint.Style.STROKE);
-                mPaint.setStrokeWidth(mBarreStrokeWidth);
-                canvas.drawLine(left, top + mBarreStrokeWidth / 2, right, top + mBarreStrokeWidth / 2, mPaint);
-                canvas.drawLine(left, bottom - mBarreStrokeWidth / 2, right, bottom - mBarreStrokeWidth / 2, mPaint);
+            if (fromVisible) {
+                drawBarre(canvas, from.barreLeft[i], from.barreTop[i], from.barreRight[i], from.barreBottom[i],
+                        from.barreStartX[i], from.barreEndX[i], from.barreY[i], from.barreText[i], 1f - t);
+            }
+            if (toVisible) {
+                drawBarre(canvas, layout.barreLeft[i], layout.barreTop[i], layout.barreRight[i], layout.barreBottom[i],
+                        layout.barreStartX[i], layout.barreEndX[i], layout.barreY[i], layout.barreText[i], t);
             }
-
-            // 绘制横按两端节点
-            drawNote(canvas, barreFret, STRING, fingers != null ? 1 : 0, 255, 0, 0);
-            drawNote(canvas, barreFret, STRING - (barreString - 1), fingers != null ? 1 : 0, 255, 0, 0);
         }
+
         // 绘制其他节点
-        for (int index = 0; index < frets.length; index++) {
-            int fret = frets[index];
-            // 不绘制闭弦和空弦情况
-            if (fret < 1) {
+        for (int i = 0; i < STRING; i++) {
+            boolean fromVisible = from != null && from.noteVisible[i];
+            boolean toVisible = layout.noteVisible[i];
+            if (fromVisible && toVisible) {
+                drawNote(canvas, lerp(from.noteX[i], layout.noteX[i], t), lerp(from.noteY[i], layout.noteY[i], t),
+                        t < 0.5f ? from.noteText[i] : layout.noteText[i], mNoteAlpha, mNoteStrokeWidth, mNoteStrokeColor, 1f);
                 continue;
             }
-            // 不绘制横按区域的节点
-            if (barreChord != null && barreFret == fret && frets.length - index <= barreString) {
-                continue;
+            if (fromVisible) {
+                drawNote(canvas, from.noteX[i], from.noteY[i], from.noteText[i],
+                        mNoteAlpha, mNoteStrokeWidth, mNoteStrokeColor, 1f - t);
+            }
+            if (toVisible) {
+                drawNote(canvas, layout.noteX[i], layout.noteY[i], layout.noteText[i],
+                        mNoteAlpha, mNoteStrokeWidth, mNoteStrokeColor, t);
             }
-            drawNote(canvas, frets[index], index + 1, fingers != null ? fingers[index] : 0, mNoteAlpha, mNoteStrokeWidth, mNoteStrokeColor);
         }
     }
 
-    private void drawNote(Canvas canvas, int fret, int string, int finger, int alpha, float strokeWidth, int strokeColor) {
+    /**
+     * 绘制横按区域及其两端节点。
+     *
+     * @param canvas   画布对象
+     * @param fraction 透明度系数（0 ~ 1），用于过渡动画中的淡入淡出
+     */
+    private void drawBarre(Canvas canvas, float left, float top, float right, float bottom,
+                           float startX, float endX, float cy, String text, float fraction) {
+        mPaint.setStyle(Paint.Style.FILL);
+        if (mDetail == DETAIL_MINIMAL) {
+            // 横按与两端节点合并为一个圆角矩形
+            mPaint.setColor(mNoteColor);
+            mPaint.setAlpha(alpha(255, fraction));
+            mBarreRect.set(Math.min(startX, endX) - mNoteRadius, top, Math.max(startX, endX) + mNoteRadius, bottom);
+            canvas.drawRoundRect(mBarreRect, mNoteRadius, mNoteRadius, mPaint);
+            return;
+        }
+        mPaint.setColor(mBarreColor);
+        mPaint.setAlpha(alpha(mBarreAlpha, fraction));
+        canvas.drawRect(left, top, right, bottom, mPaint);
+
+        // 绘制横按边框
+        if (mBarreStrokeWidth > 0 && mDetail == DETAIL_FULL) {
+            mPaint.setColor(mBarreStrokeColor);
+            mPaint.setAlpha(alpha(Color.alpha(mBarreStrokeColor), fraction));
+            mPaint.setStyle(Paint.Style.STROKE);
+            mPaint.setStrokeWidth(mBarreStrokeWidth);
+            canvas.drawLine(left, top + mBarreStrokeWidth / 2, right, top + mBarreStrokeWidth / 2, mPaint);
+            canvas.drawLine(left, bottom - mBarreStrokeWidth / 2, right, bottom - mBarreStrokeWidth / 2, mPaint);
+        }
+
+        // 绘制横按两端节点
+        drawNote(canvas, startX, cy, text, 255, 0, 0, fraction);
+        drawNote(canvas, endX, cy, text, 255, 0, 0, fraction);
+    }
+
+    private void drawNote(Canvas canvas, float cx, float cy, String text, int alpha, float strokeWidth, int strokeColor,
+                          float fraction) {
         mPaint.setStyle(Paint.Style.FILL);
         mPaint.setColor(mNoteColor);
-        mPaint.setAlpha(alpha);
+        mPaint.setAlpha(alpha(alpha, fraction));
         // 绘制节点实心圆
-        float columnWidth = getGridColumnWidth();
-        float rowHeight = getGridRowHeight();
-        float cx = ((getFretWidth() + mGridLineWidth / 2) + (columnWidth * (string - 1)))
-                - (string == STRING ? mGridLineWidth : mGridLineWidth / 2);
-
-        int f = 1;
-        int leastFret = getLeastFret();
-        if (isExceedDefaultFret()) {
-            if (fret != leastFret) {
-                int result = fret % leastFret;
-                f = result != 0 ? result + 1 : fret - leastFret + 1;
-            }
-        } else {
-            f = fret;
-        }
-        float cy = (getStringHeight() + getHeadHeight()) + (rowHeight * f) - (rowHeight / 2);
         canvas.drawCircle(cx, cy, mNoteRadius, mPaint);
+        if (mDetail != DETAIL_FULL) return;
         // 绘制节点文字
-        if (mShowMode != SIMPLE_SHOW_MODE && finger > 0) {
+        if (mShowMode != SIMPLE_SHOW_MODE && text != null) {
             mPaint.setColor(mNoteTextColor);
-            mPaint.setTextSize(mNoteTextSize);
-            String fingerStr = String.valueOf(finger);
-            canvas.drawText(fingerStr, cx - mPaint.measureText(fingerStr) / 2,
-                    cy - (mPaint.ascent() + mPaint.descent()) / 2, mPaint);
+            mPaint.setAlpha(alpha(Color.alpha(mNoteTextColor), fraction));
+            GlyphAtlas atlas = getNoteAtlas();
+            float width = atlas.measureText(text);
+            if (width < 0 || !atlas.drawText(canvas, text, cx - width / 2,
+                    cy - (atlas.ascent() + atlas.descent()) / 2, mPaint)) {
+                mPaint.setTextSize(mNoteTextSize);
+                canvas.drawText(text, cx - mPaint.measureText(text) / 2,
+                        cy - (mPaint.ascent() + mPaint.descent()) / 2, mPaint);
+            }
         }
         // 绘制节点边框
         if (strokeWidth > 0) {
             mPaint.setStrokeWidth(strokeWidth);
             mPaint.setStyle(Paint.Style.STROKE);
             mPaint.setColor(strokeColor);
-            mPaint.setAlpha(255);
+            mPaint.setAlpha(alpha(255, fraction));
             canvas.drawCircle(cx, cy, mNoteRadius, mPaint);
         }
     }
 
-    /**
-     * 获取品文字区域的宽度。
-     *
-     * @return 品文字区域的宽度。
-     */
-    private float getFretWidth() {
-        if (mChord != null) {
-            mPaint.setTextSize(mFretTextSize);
-            String largestFret = String.valueOf(getLeastFret() + getRow() - 1);
-            return mPaint.measureText(largestFret) + mFretTextOffsetX;
-        }
-        return 0f;
+    private static float lerp(float start, float end, float fraction) {
+        return start + (end - start) * fraction;
     }
 
-    /**
-     * 获取最小品。
-     *
-     * @return 最小品。默认 1。
-     */
-    private int getLeastFret() {
-        return mChord != null ? mChord.getLeastFret() : 1;
+    private static int alpha(int alpha, float fraction) {
+        return fraction >= 1f ? alpha : (int) (alpha * fraction);
     }
 
     /**
-     * 获取最大品。
+     * 获取空弦或闭弦符号的高度。
      *
-     * @return 最大品，默认为 1。
+     * @param bitmap 符号图片，为 NULL 时使用内置符号
+     * @return 符号的高度。
      */
-    private int getLargestFret() {
-        return mChord != null ? mChord.getLargestFret() : 1;
-    }
-
-    /**
-     * 通过指定的弦获取其对应的空弦或闭弦表现图片 Bitmap。
-     *
-     * @param string 弦（0 = 6 弦，1 = 5 弦，以此类推）
-     * @return 空弦或闭弦表现图片。
-     */
-    @Nullable
-    private Bitmap getStringBitmap(int string) {
-        if (mChord != null) {
-            int[] frets = mChord.getFrets();
-            int fret = frets[string];
-            if (fret == -1) { // 闭弦
-                return mClosedStringBitmap;
-            } else if (fret == 0) { // 空弦
-                return mEmptyStringBitmap;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * 获取弦区域的高度。
-     *
-     * @return 弦区域的高度。
-     */
-    private float getStringHeight() {
-        return isDrawStrings() ? Math.max(bitmapHeight(mClosedStringBitmap),
-                bitmapHeight(mEmptyStringBitmap)) + mStringOffsetY : 0f;
-    }
-
-    /**
-     * 是否需要绘制弦区域。
-     *
-     * @return 返回 true，表示需要绘制，不需要绘制返回 false。
-     */
-    private boolean isDrawStrings() {
-        // 只要和弦中有闭弦或空弦则需要绘制
-        return mChord != null && (mChord.isClosedString() || mChord.isEmptyString());
-    }
-
-    /**
-     * 是否需要绘制琴头。
-     *
-     * @return 返回 true，表示需要绘制，不需要绘制返回 false。
-     */
-    private boolean isDrawHead() {
-        // 如果最大品未超过 5 品则认为需要绘制
-        return mChord != null && mChord.getLargestFret() <= 5;
-    }
-
-    /**
-     * 获取琴头高度。
-     *
-     * @return 琴头的高度，如果琴头不绘制时直接返回 0。
-     */
-    private float getHeadHeight() {
-        return isDrawHead() ? mHeadRadius : 0;
-    }
-
-    /**
-     * 获取网格区域宽度。
-     *
-     * @return 网格区域宽度。
-     */
-    private float getGridWidth() {
-        return getWidth() - getFretWidth() - mNoteRadius;
-    }
-
-    /**
-     * 获取网格区域高度。
-     *
-     * @return 网格区域高度。
-     */
-    private float getGridHeight() {
-        return getHeight() - getStringHeight() - getHeadHeight();
-    }
-
-    /**
-     * 获取网格每格的宽度。
-     *
-     * @return 网格每格的宽度。
-     */
-    private float getGridColumnWidth() {
-        int column = STRING - 1;
-        return getGridWidth() / column;
-    }
-
-    /**
-     * 获取网格每格的高度。
-     *
-     * @return 网格每格的高度。
-     */
-    private float getGridRowHeight() {
-        return getGridHeight() / getRow();
+    private float getStringMarkerHeight(Bitmap bitmap) {
+        return bitmap != null ? bitmap.getHeight() : mStringMarkerSize;
     }
 
     /**
@@ -944,51 +1530,28 @@ public class ChordView extends View {
         return bitmap != null ? bitmap.getWidth() : 0;
     }
 
-    /**
-     * 获取指定 Bitmap 的高度。
-     *
-     * @param bitmap 指定的 Bitmap 对象
-     * @return Bitmap 的高度。
-     */
-    private int bitmapHeight(Bitmap bitmap) {
-        return bitmap != null ? bitmap.getHeight() : 0;
-    }
-
-    /**
-     * 获取行数。
-     *
-     * @return 行。
-     */
-    private int getRow() {
-        // 简单模式下，如果和弦中最大品和最小品的跨度未超过三品，且 1 品为最低品，则行数就为三行
-        if (mShowMode == SIMPLE_SHOW_MODE) {
-            int leastFret = getLeastFret();
-            int largestFret = getLargestFret();
-            int diffFret = largestFret - leastFret;
-            if (diffFret < 3 && leastFret == 1) {
-                return 3;
-            }
+    private GlyphAtlas getFretAtlas() {
+        if (mFretAtlas == null) {
+            mFretAtlas = GlyphAtlas.obtain(mFretTextSize, mPaint.getTypeface());
         }
-        return 4;
+        return mFretAtlas;
     }
 
-    /**
-     * 最大品是否超过了默认显示品。
-     *
-     * @return 超过了，返回 true，否则返回 false。
-     */
-    private boolean isExceedDefaultFret() {
-        return getLargestFret() > FRET;
+    private GlyphAtlas getNoteAtlas() {
+        if (mNoteAtlas == null) {
+            mNoteAtlas = GlyphAtlas.obtain(mNoteTextSize, mPaint.getTypeface());
+        }
+        return mNoteAtlas;
     }
 
-    private void drawDebug(Canvas canvas) {
+    private void drawDebug(Canvas canvas, ChordLayout layout) {
         // draw grid rect
         mPaint.setStyle(Paint.Style.STROKE);
         mPaint.setColor(Color.RED);
         mPaint.setStrokeWidth(2f);
-        float left = getFretWidth();
-        float top = getStringHeight() + getHeadHeight();
-        canvas.drawRect(left, top, left + getGridWidth(), top + getGridHeight(), mPaint);
+        float left = layout.fretWidth;
+        float top = layout.gridTop;
+        canvas.drawRect(left, top, left + layout.gridWidth, top + layout.gridHeight, mPaint);
     }
 
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import com.github.airsaid.library.theory.Tuning;
+
+import java.util.Arrays;
+
+/**
+ * 指板音位表。根据调弦预先计算整个指板（空弦到最高品）上每个位置的音级，设置音阶、琶音或和弦后，
+ * 一次性算出所有需要高亮的位置，并按品排序（每个品的起始角标保存在 {@link #getFretStart(int)} 中），
+ * 绘制时只需要遍历可见的品，平移时不需要重新计算。
+ *
+ * @author airsaid
+ */
+public final class FretboardMap {
+
+    /** 不高亮 */
+    public static final int KIND_NONE = 0;
+    /** 音阶或琶音中的音 */
+    public static final int KIND_TONE = 1;
+    /** 根音 */
+    public static final int KIND_ROOT = 2;
+    /** 和弦中按下的位置，可以与上面两种组合 */
+    public static final int KIND_PRESSED = 4;
+
+    private final Tuning mTuning;
+    private final int mFretCount;
+    /** 每个位置的音级，角标为 fret * STRING + string */
+    private final byte[] mPitchClasses;
+    private final byte[] mKinds;
+
+    private int mNoteCount;
+    private final int[] mNoteFrets;
+    private final int[] mNoteStrings;
+    private final int[] mFretStart;
+
+    private int mRoot = -1;
+    private int mPitchClassMask;
+    private final int[] mPressed = new int[Chord.STRING];
+
+    /**
+     * 创建音位表。
+     *
+     * @param tuning    调弦
+     * @param fretCount 品数（不包括空弦）
+     */
+    public FretboardMap(Tuning tuning, int fretCount) {
+        mTuning = tuning;
+        mFretCount = fretCount;
+        int positions = (fretCount + 1) * Chord.STRING;
+        mPitchClasses = new byte[positions];
+        mKinds = new byte[positions];
+        mNoteFrets = new int[positions];
+        mNoteStrings = new int[positions];
+        mFretStart = new int[fretCount + 2];
+        for (int fret = 0; fret <= fretCount; fret++) {
+            for (int string = 0; string < Chord.STRING; string++) {
+                mPitchClasses[fret * Chord.STRING + string] = (byte) (tuning.getNote(string, fret) % 12);
+            }
+        }
+        Arrays.fill(mPressed, -1);
+    }
+
+    public Tuning getTuning() {
+        return mTuning;
+    }
+
+    /**
+     * 获取品数（不包括空弦）。
+     *
+     * @return 品数。
+     */
+    public int getFretCount() {
+        return mFretCount;
+    }
+
+    /**
+     * 设置要高亮的音级，如音阶或琶音。
+     *
+     * @param root           根音的音级，为 -1 时不区分根音
+     * @param pitchClassMask 12 位的音级掩码，为 0 时不高亮任何音级
+     */
+    public void setPitchClasses(int root, int pitchClassMask) {
+        mRoot = root;
+        mPitchClassMask = pitchClassMask;
+        rebuild();
+    }
+
+    /**
+     * 设置和弦中按下的位置。
+     *
+     * @param frets 品数组，顺序与 {@link Chord#getFrets()} 相同，为 NULL 时清除
+     */
+    public void setPressed(int[] frets) {
+        for (int i = 0; i < Chord.STRING; i++) {
+            mPressed[i] = frets != null && i < frets.length ? frets[i] : -1;
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        int count = 0;
+        for (int fret = 0; fret <= mFretCount; fret++) {
+            mFretStart[fret] = count;
+            for (int string = 0; string < Chord.STRING; string++) {
+                int position = fret * Chord.STRING + string;
+                int pitchClass = mPitchClasses[position];
+                int kind = KIND_NONE;
+                if ((mPitchClassMask & 1 << pitchClass) != 0) {
+                    kind = pitchClass == mRoot ? KIND_ROOT : KIND_TONE;
+                }
+                if (mPressed[string] == fret) {
+                    kind |= KIND_PRESSED;
+                }
+                mKinds[position] = (byte) kind;
+                if (kind != KIND_NONE) {
+                    mNoteFrets[count] = fret;
+                    mNoteStrings[count] = string;
+                    count++;
+                }
+            }
+        }
+        mFretStart[mFretCount + 1] = count;
+        mNoteCount = count;
+    }
+
+    /**
+     * 获取指定位置的高亮类型。
+     *
+     * @param string 弦的角标，0 为 6 弦
+     * @param fret   品，0 为空弦
+     * @return KIND_* 常量的组合。
+     */
+    public int getKind(int string, int fret) {
+        return mKinds[fret * Chord.STRING + string];
+    }
+
+    /**
+     * 获取指定位置的音级。
+     *
+     * @param string 弦的角标，0 为 6 弦
+     * @param fret   品，0 为空弦
+     * @return 音级，0 为 C。
+     */
+    public int getPitchClass(int string, int fret) {
+        return mPitchClasses[fret * Chord.STRING + string];
+    }
+
+    /**
+     * 获取需要高亮的位置数。
+     *
+     * @return 位置数。
+     */
+    public int getNoteCount() {
+        return mNoteCount;
+    }
+
+    /**
+     * 获取指定品上第一个高亮位置的角标，第 fret 品的位置为 [getFretStart(fret), getFretStart(fret + 1))。
+     *
+     * @param fret 品，范围 0 ~ getFretCount() + 1
+     * @return 角标。
+     */
+    public int getFretStart(int fret) {
+        return mFretStart[fret];
+    }
+
+    /**
+     * 获取高亮位置的品。
+     *
+     * @param index 角标
+     * @return 品。
+     */
+    public int getNoteFret(int index) {
+        return mNoteFrets[index];
+    }
+
+    /**
+     * 获取高亮位置的弦。
+     *
+     * @param index 角标
+     * @return 弦的角标，0 为 6 弦。
+     */
+    public int getNoteString(int index) {
+        return mNoteStrings[index];
+    }
+
+    /**
+     * 获取高亮位置的类型。
+     *
+     * @param index 角标
+     * @return KIND_* 常量的组合。
+     */
+    public int getNoteKind(int index) {
+        return mKinds[mNoteFrets[index] * Chord.STRING + mNoteStrings[index]];
+    }
+}
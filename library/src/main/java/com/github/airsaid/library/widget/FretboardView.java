@@ -0,0 +1,504 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.annotation.ColorInt;
+import android.util.AttributeSet;
+
+import com.github.airsaid.library.R;
+import com.github.airsaid.library.theory.Notes;
+import com.github.airsaid.library.theory.Scale;
+import com.github.airsaid.library.theory.Tuning;
+
+/**
+ * 用于渲染整个吉他指板的 Android 自定义 View，是 {@link ChordView} 的配套控件。横向显示空弦到最高品（最多 24 品），
+ * 可以高亮和弦按下的位置、音阶或琶音，节点的样式属性与 ChordView 相同（cv_noteColor 等）。
+ *
+ * 指板比 View 宽时可以横向拖动和滑动。高亮的位置由 {@link FretboardMap} 在设置时一次性算好并按品排序，
+ * 绘制时只遍历可见的品，平移过程中不做任何计算和对象创建。
+ *
+ * @author airsaid
+ */
+public class FretboardView extends ScrollableFretView {
+
+    /** 最大品数 */
+    public static final int MAX_FRET_COUNT = 24;
+    /** 弦数 */
+    private static final int STRING = Chord.STRING;
+    /** 带有品位标记的品，12 和 24 品为双点 */
+    private static final int[] INLAY_DOTS = new int[MAX_FRET_COUNT + 1];
+    /** 品数文字，避免绘制时创建字符串 */
+    private static final String[] FRET_TEXTS = new String[MAX_FRET_COUNT + 1];
+
+    static {
+        for (int fret = 0; fret <= MAX_FRET_COUNT; fret++) {
+            FRET_TEXTS[fret] = String.valueOf(fret);
+        }
+        int[] single = {3, 5, 7, 9, 15, 17, 19, 21};
+        for (int fret : single) {
+            INLAY_DOTS[fret] = 1;
+        }
+        INLAY_DOTS[12] = 2;
+        INLAY_DOTS[24] = 2;
+    }
+
+    private int mFretCount;
+    private float mFretWidth;
+    private float mStringGap;
+    private float mNutWidth;
+    private int mInlayColor;
+    private int mRootNoteColor;
+    private int mToneNoteColor;
+    private boolean mShowNoteNames;
+
+    private int mNoteColor;
+    private float mNoteRadius;
+    private float mNoteTextSize;
+    private int mNoteTextColor;
+    private float mNoteStrokeWidth;
+    private int mNoteStrokeColor;
+
+    private Tuning mTuning = Tuning.STANDARD;
+    private FretboardMap mMap;
+    private Chord mChord;
+    private int mRoot = -1;
+    private int mPitchClassMask;
+
+    private Paint mPaint;
+    /** 音名的宽度，设置文字大小时测量 */
+    private final float[] mNoteNameWidths = new float[12];
+
+    public FretboardView(Context context) {
+        this(context, null);
+    }
+
+    public FretboardView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public FretboardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        initAttrs(attrs);
+    }
+
+    private void initAttrs(AttributeSet attrs) {
+        TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.FretboardView);
+        mFretCount = Math.max(1, Math.min(MAX_FRET_COUNT, a.getInt(R.styleable.FretboardView_fv_fretCount, MAX_FRET_COUNT)));
+        setFretWidth(a.getDimension(R.styleable.FretboardView_fv_fretWidth, 120f));
+        setStringGap(a.getDimension(R.styleable.FretboardView_fv_stringGap, 60f));
+        setNutWidth(a.getDimension(R.styleable.FretboardView_fv_nutWidth, 12f));
+        setInlayColor(a.getColor(R.styleable.FretboardView_fv_inlayColor, 0x66FFFFFF));
+        setRootNoteColor(a.getColor(R.styleable.FretboardView_fv_rootNoteColor, 0xFFE53935));
+        setToneNoteColor(a.getColor(R.styleable.FretboardView_fv_toneNoteColor, 0xFF90A4AE));
+        setShowNoteNames(a.getBoolean(R.styleable.FretboardView_fv_showNoteNames, true));
+        setFretTextSize(a.getDimension(R.styleable.FretboardView_cv_fretTextSize, 30f));
+        setFretTextColor(a.getColor(R.styleable.FretboardView_cv_fretTextColor, Color.WHITE));
+        setGridLineWidth(a.getDimension(R.styleable.FretboardView_cv_gridLineWidth, 4f));
+        setGridLineColor(a.getColor(R.styleable.FretboardView_cv_gridLineColor, Color.WHITE));
+        setNoteColor(a.getColor(R.styleable.FretboardView_cv_noteColor, Color.WHITE));
+        setNoteRadius(a.getDimension(R.styleable.FretboardView_cv_noteRadius, 24f));
+        setNoteTextSize(a.getDimension(R.styleable.FretboardView_cv_noteTextSize, 24f));
+        setNoteTextColor(a.getColor(R.styleable.FretboardView_cv_noteTextColor, Color.BLACK));
+        setNoteStrokeWidth(a.getDimension(R.styleable.FretboardView_cv_noteStrokeWidth, 0f));
+        setNoteStrokeColor(a.getColor(R.styleable.FretboardView_cv_noteStrokeColor, Color.WHITE));
+        a.recycle();
+        rebuildMap();
+    }
+
+    /**
+     * 设置调弦。
+     *
+     * @param tuning 调弦
+     */
+    public void setTuning(Tuning tuning) {
+        mTuning = tuning;
+        rebuildMap();
+    }
+
+    public Tuning getTuning() {
+        return mTuning;
+    }
+
+    /**
+     * 设置显示的品数（不包括空弦）。
+     *
+     * @param count 品数，范围 1 ~ {@link #MAX_FRET_COUNT}
+     */
+    public void setFretCount(int count) {
+        mFretCount = Math.max(1, Math.min(MAX_FRET_COUNT, count));
+        rebuildMap();
+        requestLayout();
+    }
+
+    public int getFretCount() {
+        return mFretCount;
+    }
+
+    /**
+     * 高亮和弦按下的位置。
+     *
+     * @param chord 和弦对象，为 NULL 时清除
+     */
+    public void setChord(Chord chord) {
+        mChord = chord;
+        mMap.setPressed(chord != null ? chord.getFrets() : null);
+        invalidate();
+    }
+
+    public Chord getChord() {
+        return mChord;
+    }
+
+    /**
+     * 高亮音阶在整个指板上的位置。
+     *
+     * @param root  根音的音级，0 为 C
+     * @param scale 音阶
+     */
+    public void setScale(int root, Scale scale) {
+        setPitchClasses(root, scale.getPitchClassMask(root));
+    }
+
+    /**
+     * 高亮指定的音级。高亮和弦的琶音时传入和弦的根音和所有和弦音，
+     * 如 ChordRecognizer.Match 的 getRoot() 和 getPitchClassMask()。
+     *
+     * @param root           根音的音级，为 -1 时不区分根音
+     * @param pitchClassMask 12 位的音级掩码，为 0 时清除
+     */
+    public void setPitchClasses(int root, int pitchClassMask) {
+        mRoot = root;
+        mPitchClassMask = pitchClassMask;
+        mMap.setPitchClasses(root, pitchClassMask);
+        invalidate();
+    }
+
+    /**
+     * 获取音位表，可用于查询指定位置的音级和高亮类型。
+     *
+     * @return 音位表。
+     */
+    public FretboardMap getFretboardMap() {
+        return mMap;
+    }
+
+    private void rebuildMap() {
+        mMap = new FretboardMap(mTuning, mFretCount);
+        mMap.setPitchClasses(mRoot, mPitchClassMask);
+        mMap.setPressed(mChord != null ? mChord.getFrets() : null);
+        invalidate();
+    }
+
+    /**
+     * 平滑滚动，使指定的品显示在 View 的左侧。
+     *
+     * @param fret 品
+     */
+    public void smoothScrollToFret(int fret) {
+        smoothScrollToX((int) getFretLeft(Math.max(1, fret)) - getPaddingLeft());
+    }
+
+    public void setFretWidth(float width) {
+        mFretWidth = width;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getFretWidth() {
+        return mFretWidth;
+    }
+
+    public void setStringGap(float gap) {
+        mStringGap = gap;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getStringGap() {
+        return mStringGap;
+    }
+
+    public void setNutWidth(float width) {
+        mNutWidth = width;
+        invalidate();
+    }
+
+    public float getNutWidth() {
+        return mNutWidth;
+    }
+
+    public void setInlayColor(@ColorInt int color) {
+        mInlayColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getInlayColor() {
+        return mInlayColor;
+    }
+
+    /**
+     * 设置音阶或琶音中根音的颜色。
+     *
+     * @param color 颜色
+     */
+    public void setRootNoteColor(@ColorInt int color) {
+        mRootNoteColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getRootNoteColor() {
+        return mRootNoteColor;
+    }
+
+    /**
+     * 设置音阶或琶音中其他音的颜色。
+     *
+     * @param color 颜色
+     */
+    public void setToneNoteColor(@ColorInt int color) {
+        mToneNoteColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getToneNoteColor() {
+        return mToneNoteColor;
+    }
+
+    /**
+     * 设置是否在节点中显示音名。
+     *
+     * @param show 是否显示
+     */
+    public void setShowNoteNames(boolean show) {
+        mShowNoteNames = show;
+        invalidate();
+    }
+
+    public boolean isShowNoteNames() {
+        return mShowNoteNames;
+    }
+
+    /**
+     * 设置和弦按下位置的节点颜色。
+     *
+     * @param color 颜色
+     */
+    public void setNoteColor(@ColorInt int color) {
+        mNoteColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getNoteColor() {
+        return mNoteColor;
+    }
+
+    public void setNoteRadius(float radius) {
+        mNoteRadius = radius;
+        invalidate();
+    }
+
+    public float getNoteRadius() {
+        return mNoteRadius;
+    }
+
+    public void setNoteTextSize(float textSize) {
+        mNoteTextSize = textSize;
+        mPaint.setTextSize(textSize);
+        for (int i = 0; i < 12; i++) {
+            mNoteNameWidths[i] = mPaint.measureText(Notes.NAMES[i]);
+        }
+        invalidate();
+    }
+
+    public float getNoteTextSize() {
+        return mNoteTextSize;
+    }
+
+    public void setNoteTextColor(@ColorInt int color) {
+        mNoteTextColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getNoteTextColor() {
+        return mNoteTextColor;
+    }
+
+    public void setNoteStrokeWidth(float width) {
+        mNoteStrokeWidth = width;
+        invalidate();
+    }
+
+    public float getNoteStrokeWidth() {
+        return mNoteStrokeWidth;
+    }
+
+    public void setNoteStrokeColor(@ColorInt int color) {
+        mNoteStrokeColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getNoteStrokeColor() {
+        return mNoteStrokeColor;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = (int) Math.ceil(getContentWidth());
+        int height = (int) Math.ceil(getPaddingTop() + getPaddingBottom() + mStringGap * STRING
+                + getFretTextSize() * 1.5f);
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected float getContentWidth() {
+        return getPaddingLeft() + getPaddingRight() + getOpenWidth() + mNutWidth + mFretWidth * mFretCount;
+    }
+
+    /** 空弦区域的宽度 */
+    private float getOpenWidth() {
+        return mNoteRadius * 2.5f;
+    }
+
+    /** 琴枕右侧（第 1 品左侧）的 x 坐标 */
+    private float getNutRight() {
+        return getPaddingLeft() + getOpenWidth() + mNutWidth;
+    }
+
+    /** 指定品左侧品丝的 x 坐标 */
+    private float getFretLeft(int fret) {
+        return getNutRight() + (fret - 1) * mFretWidth;
+    }
+
+    /** 指定品上节点中心的 x 坐标，0 为空弦 */
+    private float getNoteX(int fret) {
+        return fret == 0 ? getPaddingLeft() + getOpenWidth() / 2 : getNutRight() + (fret - 0.5f) * mFretWidth;
+    }
+
+    /** 指定弦的 y 坐标，1 弦在最上方 */
+    private float getStringY(int string) {
+        return getPaddingTop() + mStringGap / 2 + (STRING - 1 - string) * mStringGap;
+    }
+
+    /** 指定 x 坐标所在的品，0 为空弦区域 */
+    private int getFretAt(float x) {
+        float nutRight = getNutRight();
+        if (x < nutRight) return 0;
+        return Math.min(mFretCount, 1 + (int) ((x - nutRight) / mFretWidth));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        // 画布已经按 scrollX 平移，只绘制落在 [scrollX, scrollX + width] 中的品
+        float left = getScrollX();
+        float right = left + getWidth();
+        int firstFret = getFretAt(left);
+        int lastFret = getFretAt(right);
+        drawInlays(canvas, firstFret, lastFret);
+        drawFrets(canvas, firstFret, lastFret, left, right);
+        drawNotes(canvas, firstFret, lastFret);
+    }
+
+    private void drawInlays(Canvas canvas, int firstFret, int lastFret) {
+        mPaint.setStyle(Paint.Style.FILL);
+        float top = getStringY(STRING - 1), bottom = getStringY(0);
+        float radius = mStringGap / 5;
+        GlyphAtlas atlas = getFretAtlas();
+        float textY = bottom + mStringGap / 2 - atlas.ascent();
+        for (int fret = Math.max(1, firstFret); fret <= lastFret; fret++) {
+            int dots = INLAY_DOTS[fret];
+            if (dots == 0) continue;
+            float cx = getNoteX(fret);
+            mPaint.setColor(mInlayColor);
+            if (dots == 1) {
+                canvas.drawCircle(cx, (top + bottom) / 2, radius, mPaint);
+            } else {
+                canvas.drawCircle(cx, top + mStringGap * 1.5f, radius, mPaint);
+                canvas.drawCircle(cx, bottom - mStringGap * 1.5f, radius, mPaint);
+            }
+            // 在带标记的品下方显示品数
+            mPaint.setColor(getFretTextColor());
+            atlas.drawText(canvas, FRET_TEXTS[fret], cx - atlas.measureNumber(fret) / 2, textY, mPaint);
+        }
+    }
+
+    private void drawFrets(Canvas canvas, int firstFret, int lastFret, float left, float right) {
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setColor(getGridLineColor());
+        float top = getStringY(STRING - 1), bottom = getStringY(0);
+        // 琴弦只绘制可见部分
+        float stringLeft = Math.max(left, getNutRight() - mNutWidth);
+        float stringRight = Math.min(right, getFretLeft(mFretCount + 1));
+        mPaint.setStrokeWidth(getGridLineWidth());
+        for (int string = 0; string < STRING; string++) {
+            float y = getStringY(string);
+            canvas.drawLine(stringLeft, y, stringRight, y, mPaint);
+        }
+        // 品丝
+        for (int fret = Math.max(1, firstFret); fret <= lastFret; fret++) {
+            float x = getFretLeft(fret + 1);
+            canvas.drawLine(x, top, x, bottom, mPaint);
+        }
+        // 琴枕
+        if (firstFret == 0) {
+            mPaint.setStrokeWidth(mNutWidth);
+            float x = getNutRight() - mNutWidth / 2;
+            canvas.drawLine(x, top, x, bottom, mPaint);
+        }
+    }
+
+    private void drawNotes(Canvas canvas, int firstFret, int lastFret) {
+        FretboardMap map = mMap;
+        for (int i = map.getFretStart(firstFret), end = map.getFretStart(lastFret + 1); i < end; i++) {
+            int fret = map.getNoteFret(i);
+            int string = map.getNoteString(i);
+            int kind = map.getNoteKind(i);
+            int color = (kind & FretboardMap.KIND_PRESSED) != 0 ? mNoteColor
+                    : (kind & FretboardMap.KIND_ROOT) != 0 ? mRootNoteColor : mToneNoteColor;
+            // 和弦按下的根音带有根音颜色的边框
+            boolean rootRing = kind == (FretboardMap.KIND_PRESSED | FretboardMap.KIND_ROOT);
+            drawNote(canvas, getNoteX(fret), getStringY(string), map.getPitchClass(string, fret), color, rootRing);
+        }
+    }
+
+    private void drawNote(Canvas canvas, float cx, float cy, int pitchClass, int color, boolean rootRing) {
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(color);
+        canvas.drawCircle(cx, cy, mNoteRadius, mPaint);
+        // 绘制音名
+        if (mShowNoteNames) {
+            mPaint.setColor(mNoteTextColor);
+            mPaint.setTextSize(mNoteTextSize);
+            canvas.drawText(Notes.NAMES[pitchClass], cx - mNoteNameWidths[pitchClass] / 2,
+                    cy - (mPaint.ascent() + mPaint.descent()) / 2, mPaint);
+        }
+        // 绘制节点边框
+        float strokeWidth = rootRing ? Math.max(mNoteStrokeWidth, mNoteRadius / 6) : mNoteStrokeWidth;
+        if (strokeWidth > 0) {
+            mPaint.setStrokeWidth(strokeWidth);
+            mPaint.setStyle(Paint.Style.STROKE);
+            mPaint.setColor(rootRing ? mRootNoteColor : mNoteStrokeColor);
+            canvas.drawCircle(cx, cy, mNoteRadius, mPaint);
+        }
+    }
+}
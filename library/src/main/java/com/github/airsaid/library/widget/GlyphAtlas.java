@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.support.annotation.MainThread;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 字形图集。将品文字（0 ~ 24）和指法文字（1 ~ 4 及拇指 T）预先绘制到一张 ALPHA_8 的 Bitmap 中，
+ * 绘制时只需要从图集中拷贝对应的区域，颜色由 Paint 决定，避免每一帧都重复测量和排版相同的文字。
+ *
+ * 图集按文字大小和字体共享，通过 {@link #obtain(float, Typeface)} 获取，只能在主线程中使用。
+ * 不在图集中的文字返回 false，由调用方自行绘制。
+ *
+ * @author airsaid
+ */
+public final class GlyphAtlas {
+
+    /** 图集中最大的数字 */
+    public static final int MAX_NUMBER = 24;
+    /** 最多缓存的图集数 */
+    private static final int MAX_CACHE_SIZE = 8;
+    /** 拇指 */
+    private static final int INDEX_THUMB = MAX_NUMBER + 1;
+    private static final int GLYPH_COUNT = MAX_NUMBER + 2;
+    /** 每个字形四周留出的像素，避免抗锯齿的边缘被相邻字形截断 */
+    private static final int PADDING = 1;
+
+    private static final Map<Key, GlyphAtlas> sCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Bitmap mBitmap;
+    private final float[] mWidths = new float[GLYPH_COUNT];
+    private final int[] mCellLeft = new int[GLYPH_COUNT];
+    private final int[] mCellWidth = new int[GLYPH_COUNT];
+    private final float mAscent;
+    private final float mDescent;
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+
+    private GlyphAtlas(float textSize, Typeface typeface) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(textSize);
+        paint.setTypeface(typeface);
+        mAscent = paint.ascent();
+        mDescent = paint.descent();
+        int cellHeight = (int) Math.ceil(mDescent - mAscent) + PADDING * 2;
+        int left = 0;
+        for (int i = 0; i < GLYPH_COUNT; i++) {
+            mWidths[i] = paint.measureText(textOf(i));
+            mCellLeft[i] = left;
+            mCellWidth[i] = (int) Math.ceil(mWidths[i]) + PADDING * 2;
+            left += mCellWidth[i];
+        }
+        mBitmap = Bitmap.createBitmap(Math.max(1, left), Math.max(1, cellHeight), Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < GLYPH_COUNT; i++) {
+            canvas.drawText(textOf(i), mCellLeft[i] + PADDING, PADDING - mAscent, paint);
+        }
+    }
+
+    /**
+     * 获取指定样式的图集，相同样式的图集会被共享。
+     *
+     * @param textSize 文字大小
+     * @param typeface 字体，可以为 NULL
+     * @return 图集对象。
+     */
+    @MainThread
+    public static GlyphAtlas obtain(float textSize, Typeface typeface) {
+        Key key = new Key(textSize, typeface);
+        GlyphAtlas atlas = sCache.get(key);
+        if (atlas == null) {
+            atlas = new GlyphAtlas(textSize, typeface);
+            sCache.put(key, atlas);
+            trimCache(MAX_CACHE_SIZE);
+        }
+        return atlas;
+    }
+
+    /**
+     * 丢弃最久未使用的图集，直到缓存的图集数不超过指定值。正在使用的图集不受影响，不会被回收。
+     *
+     * @param size 保留的图集数
+     */
+    @MainThread
+    public static void trimCache(int size) {
+        Iterator<GlyphAtlas> iterator = sCache.values().iterator();
+        while (sCache.size() > size && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 获取缓存的图集数。
+     *
+     * @return 图集数。
+     */
+    @MainThread
+    public static int getCacheCount() {
+        return sCache.size();
+    }
+
+    /**
+     * 获取所有缓存的图集占用的内存。
+     *
+     * @return 字节数。
+     */
+    @MainThread
+    public static long getCacheSizeBytes() {
+        long size = 0;
+        for (GlyphAtlas atlas : sCache.values()) {
+            size += atlas.getSizeBytes();
+        }
+        return size;
+    }
+
+    /**
+     * 获取图集 Bitmap 占用的内存。
+     *
+     * @return 字节数。
+     */
+    public int getSizeBytes() {
+        return mBitmap.getRowBytes() * mBitmap.getHeight();
+    }
+
+    /**
+     * 获取文字的宽度。
+     *
+     * @param text 文字
+     * @return 宽度，不在图集中时返回 -1。
+     */
+    public float measureText(String text) {
+        int index = indexOf(text);
+        return index == -1 ? -1 : mWidths[index];
+    }
+
+    /**
+     * 获取数字文字的宽度。
+     *
+     * @param number 数字，范围 0 ~ {@link #MAX_NUMBER}
+     * @return 宽度。
+     */
+    public float measureNumber(int number) {
+        return mWidths[number];
+    }
+
+    /**
+     * 获取字体的 ascent，与 {@link Paint#ascent()} 相同。
+     *
+     * @return ascent。
+     */
+    public float ascent() {
+        return mAscent;
+    }
+
+    /**
+     * 获取字体的 descent，与 {@link Paint#descent()} 相同。
+     *
+     * @return descent。
+     */
+    public float descent() {
+        return mDescent;
+    }
+
+    /**
+     * 绘制文字，参数与 {@link Canvas#drawText(String, float, float, Paint)} 相同。
+     *
+     * @param canvas 画布对象
+     * @param text   文字
+     * @param x      文字左侧的 x 轴坐标
+     * @param y      文字基线的 y 轴坐标
+     * @param paint  画笔，只使用其中的颜色和透明度
+     * @return 文字在图集中并已绘制时返回 true，否则返回 false。
+     */
+    public boolean drawText(Canvas canvas, String text, float x, float y, Paint paint) {
+        int index = indexOf(text);
+        if (index == -1) return false;
+        int left = mCellLeft[index];
+        mSrc.set(left, 0, left + mCellWidth[index], mBitmap.getHeight());
+        float dstLeft = x - PADDING;
+        float dstTop = y + mAscent - PADDING;
+        mDst.set(dstLeft, dstTop, dstLeft + mSrc.width(), dstTop + mSrc.height());
+        canvas.drawBitmap(mBitmap, mSrc, mDst, paint);
+        return true;
+    }
+
+    /**
+     * 获取文字在图集中的角标，不创建任何对象。
+     *
+     * @param text 文字
+     * @return 角标，不在图集中时返回 -1。
+     */
+    static int indexOf(String text) {
+        if (text == null) return -1;
+        int length = text.length();
+        if (length == 1) {
+            char c = text.charAt(0);
+            if (c >= '0' && c <= '9') return c - '0';
+            if (c == 'T') return INDEX_THUMB;
+        } else if (length == 2) {
+            char c0 = text.charAt(0), c1 = text.charAt(1);
+            if (c0 >= '1' && c0 <= '9' && c1 >= '0' && c1 <= '9') {
+                int number = (c0 - '0') * 10 + (c1 - '0');
+                if (number <= MAX_NUMBER) return number;
+            }
+        }
+        return -1;
+    }
+
+    private static String textOf(int index) {
+        return index == INDEX_THUMB ? "T" : String.valueOf(index);
+    }
+
+    private static final class Key {
+
+        final float textSize;
+        final Typeface typeface;
+
+        Key(float textSize, Typeface typeface) {
+            this.textSize = textSize;
+            this.typeface = typeface;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Float.compare(key.textSize, textSize) == 0
+                    && (typeface != null ? typeface.equals(key.typeface) : key.typeface == null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(textSize);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+/**
+ * 打包和弦。将 6 弦和弦的品和指法编码到一个 long 中，用于批量处理大量和弦时避免创建对象。
+ *
+ * 编码方式（低位在前）：
+ * <ul>
+ *     <li>0 ~ 35 位：每根弦 6 位，存储 品 + 1（因此品的范围为 -1 ~ 62），角标 0 = 6 弦</li>
+ *     <li>36 ~ 53 位：每根弦 3 位，存储指法（0 ~ 7）</li>
+ *     <li>54 位：是否有指法数据（指法为 NULL 时为 0）</li>
+ * </ul>
+ * 打包后的值总是非负数，{@link #NONE} 可用于表示无效值。所有方法都是无状态的，可以在任意线程中并发调用。
+ *
+ * @author airsaid
+ */
+public final class PackedChord {
+
+    /** 表示无效的打包和弦 */
+    public static final long NONE = -1L;
+
+    /** 最大可打包的品 */
+    public static final int MAX_FRET = 62;
+    /** 最大可打包的指法 */
+    public static final int MAX_FINGER = 7;
+
+    private static final int STRING = Chord.STRING;
+    private static final int FRET_BITS = 6;
+    private static final int FINGER_BITS = 3;
+    private static final int FINGER_SHIFT = STRING * FRET_BITS;
+    private static final int HAS_FINGERS_SHIFT = FINGER_SHIFT + STRING * FINGER_BITS;
+    private static final long FRET_MASK = (1L << FRET_BITS) - 1;
+    private static final long FINGER_MASK = (1L << FINGER_BITS) - 1;
+
+    private PackedChord() {}
+
+    /**
+     * 返回指定的品和指法是否可以打包。
+     *
+     * @param frets   品数组
+     * @param fingers 指法数组，可以为 NULL
+     * @return 可以打包时返回 true，否则返回 false。
+     */
+    public static boolean canPack(int[] frets, int[] fingers) {
+        if (frets == null || frets.length != STRING) return false;
+        if (fingers != null && fingers.length != STRING) return false;
+        for (int i = 0; i < STRING; i++) {
+            if (frets[i] < -1 || frets[i] > MAX_FRET) return false;
+            if (fingers != null && (fingers[i] < 0 || fingers[i] > MAX_FINGER)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 打包和弦。
+     *
+     * @param chord 和弦对象
+     * @return 打包后的和弦。
+     * @throws IllegalArgumentException 和弦无法打包时抛出
+     */
+    public static long pack(Chord chord) {
+        return pack(chord.getFrets(), chord.getFingers());
+    }
+
+    /**
+     * 打包品和指法。
+     *
+     * @param frets   品数组
+     * @param fingers 指法数组，可以为 NULL
+     * @return 打包后的和弦。
+     * @throws IllegalArgumentException 无法打包时抛出
+     */
+    public static long pack(int[] frets, int[] fingers) {
+        if (!canPack(frets, fingers)) {
+            throw new IllegalArgumentException("Chord can not be packed: frets must have "
+                    + STRING + " values in [-1, " + MAX_FRET + "], fingers in [0, " + MAX_FINGER + "]");
+        }
+        long packed = 0L;
+        for (int i = 0; i < STRING; i++) {
+            packed |= (long) (frets[i] + 1) << (i * FRET_BITS);
+            if (fingers != null) {
+                packed |= (long) fingers[i] << (FINGER_SHIFT + i * FINGER_BITS);
+            }
+        }
+        if (fingers != null) {
+            packed |= 1L << HAS_FINGERS_SHIFT;
+        }
+        return packed;
+    }
+
+    /**
+     * 解包为新的和弦对象。
+     *
+     * @param packed 打包后的和弦
+     * @return 和弦对象。
+     */
+    public static Chord unpack(long packed) {
+        int[] frets = new int[STRING];
+        unpackFrets(packed, frets);
+        int[] fingers = null;
+        if (hasFingers(packed)) {
+            fingers = new int[STRING];
+            unpackFingers(packed, fingers);
+        }
+        return new Chord(frets, fingers);
+    }
+
+    /**
+     * 将品解包到指定的数组中。
+     *
+     * @param packed 打包后的和弦
+     * @param out    长度至少为 6 的数组
+     */
+    public static void unpackFrets(long packed, int[] out) {
+        for (int i = 0; i < STRING; i++) {
+            out[i] = getFret(packed, i);
+        }
+    }
+
+    /**
+     * 将指法解包到指定的数组中。没有指法数据时全部为 0。
+     *
+     * @param packed 打包后的和弦
+     * @param out    长度至少为 6 的数组
+     */
+    public static void unpackFingers(long packed, int[] out) {
+        for (int i = 0; i < STRING; i++) {
+            out[i] = getFinger(packed, i);
+        }
+    }
+
+    /**
+     * 获取指定角标处的品。
+     *
+     * @param packed 打包后的和弦
+     * @param index  角标（0 = 6 弦）
+     * @return 品。
+     */
+    public static int getFret(long packed, int index) {
+        return (int) ((packed >>> (index * FRET_BITS)) & FRET_MASK) - 1;
+    }
+
+    /**
+     * 获取指定角标处的指法。
+     *
+     * @param packed 打包后的和弦
+     * @param index  角标（0 = 6 弦）
+     * @return 指法。
+     */
+    public static int getFinger(long packed, int index) {
+        return (int) ((packed >>> (FINGER_SHIFT + index * FINGER_BITS)) & FINGER_MASK);
+    }
+
+    /**
+     * 返回是否有指法数据。
+     *
+     * @param packed 打包后的和弦
+     * @return 有指法数据时返回 true，否则返回 false。
+     */
+    public static boolean hasFingers(long packed) {
+        return ((packed >>> HAS_FINGERS_SHIFT) & 1L) != 0;
+    }
+
+    /**
+     * 获取最小的品（不包括空弦和闭弦）。
+     *
+     * @param packed 打包后的和弦
+     * @return 最小品，当没有找到时会返回 -1。
+     */
+    public static int getLeastFret(long packed) {
+        int leastFret = -1;
+        for (int i = 0; i < STRING; i++) {
+            int fret = getFret(packed, i);
+            if (fret >= 1 && (leastFret == -1 || fret < leastFret)) {
+                leastFret = fret;
+            }
+        }
+        return leastFret;
+    }
+
+    /**
+     * 获取最大的品（不包括空弦和闭弦）。
+     *
+     * @param packed 打包后的和弦
+     * @return 最大品，当没有找到时会返回 -1。
+     */
+    public static int getLargestFret(long packed) {
+        int largest = -1;
+        for (int i = 0; i < STRING; i++) {
+            int fret = getFret(packed, i);
+            if (fret >= 1 && fret > largest) {
+                largest = fret;
+            }
+        }
+        return largest;
+    }
+}
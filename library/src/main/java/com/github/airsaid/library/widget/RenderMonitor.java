@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 渲染监控。统计 {@link ChordView} 每一帧各个绘制阶段的耗时，以及绘制次数、布局计算次数和缓存命中次数。
+ *
+ * 通过 {@link ChordView#setRenderMonitor(RenderMonitor)} 开启，多个 ChordView 可以共用同一个监控对象。
+ * 没有设置监控时 ChordView 不会产生任何额外开销。耗时按 2 的幂分桶统计在无锁的直方图中，
+ * 可以在任意线程中读取后上报。
+ *
+ * @author airsaid
+ */
+public class RenderMonitor {
+
+    /** 绘制闭弦和空弦 */
+    public static final int PHASE_CLOSED_EMPTY_STRING = 0;
+    /** 绘制品文字 */
+    public static final int PHASE_FRETS = 1;
+    /** 绘制琴头 */
+    public static final int PHASE_HEAD = 2;
+    /** 绘制网格 */
+    public static final int PHASE_GRID = 3;
+    /** 绘制节点 */
+    public static final int PHASE_NOTES = 4;
+    /** 整个 onDraw，包括布局计算 */
+    public static final int PHASE_TOTAL = 5;
+    /** 阶段数 */
+    public static final int PHASE_COUNT = 6;
+
+    /** 绘制次数 */
+    public static final int COUNTER_DRAW = 0;
+    /** 布局重新计算的次数 */
+    public static final int COUNTER_LAYOUT = 1;
+    /** 绘制时直接使用已计算布局的次数 */
+    public static final int COUNTER_LAYOUT_CACHE_HIT = 2;
+    /** 通过 {@link ChordView#setChordLayout(ChordLayout)} 使用预先计算的布局的次数 */
+    public static final int COUNTER_PRECOMPUTED_LAYOUT = 3;
+    /** 计数器数 */
+    public static final int COUNTER_COUNT = 4;
+
+    /** 直方图的桶数，第 i 个桶统计耗时在 [2^(i-1), 2^i) 纳秒之间的帧，最后一个桶包括所有更长的耗时 */
+    public static final int BUCKET_COUNT = 40;
+
+    /**
+     * 帧回调。在主线程中调用，回调中不要做耗时操作。
+     */
+    public interface Listener {
+
+        /**
+         * 一帧绘制完成。
+         *
+         * @param view        绘制的 ChordView
+         * @param phaseNanos  各阶段的耗时，单位纳秒，角标为 PHASE_* 常量。数组会被复用，只在回调期间有效
+         */
+        void onFrame(ChordView view, long[] phaseNanos);
+    }
+
+    private final AtomicLongArray mHistograms = new AtomicLongArray(PHASE_COUNT * BUCKET_COUNT);
+    private final AtomicLongArray mTotalNanos = new AtomicLongArray(PHASE_COUNT);
+    private final AtomicLongArray mMaxNanos = new AtomicLongArray(PHASE_COUNT);
+    private final AtomicLongArray mCounters = new AtomicLongArray(COUNTER_COUNT);
+    private volatile Listener mListener;
+
+    /**
+     * 设置帧回调。
+     *
+     * @param listener 回调对象，为 NULL 时移除
+     */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 记录一帧的各阶段耗时。
+     *
+     * @param view       绘制的 ChordView
+     * @param phaseNanos 各阶段的耗时
+     */
+    void onFrame(ChordView view, long[] phaseNanos) {
+        mCounters.incrementAndGet(COUNTER_DRAW);
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            record(phase, phaseNanos[phase]);
+        }
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onFrame(view, phaseNanos);
+        }
+    }
+
+    /**
+     * 记录指定阶段的一次耗时。
+     *
+     * @param phase PHASE_* 常量
+     * @param nanos 耗时，单位纳秒
+     */
+    void record(int phase, long nanos) {
+        mHistograms.incrementAndGet(phase * BUCKET_COUNT + bucketOf(nanos));
+        mTotalNanos.addAndGet(phase, nanos);
+        long max;
+        while (nanos > (max = mMaxNanos.get(phase))) {
+            if (mMaxNanos.compareAndSet(phase, max, nanos)) break;
+        }
+    }
+
+    /**
+     * 计数器加一。
+     *
+     * @param counter COUNTER_* 常量
+     */
+    void increment(int counter) {
+        mCounters.incrementAndGet(counter);
+    }
+
+    /**
+     * 获取计数器的值。
+     *
+     * @param counter COUNTER_* 常量
+     * @return 计数。
+     */
+    public long getCount(int counter) {
+        return mCounters.get(counter);
+    }
+
+    /**
+     * 获取指定阶段记录的次数。
+     *
+     * @param phase PHASE_* 常量
+     * @return 次数。
+     */
+    public long getSampleCount(int phase) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mHistograms.get(phase * BUCKET_COUNT + i);
+        }
+        return count;
+    }
+
+    /**
+     * 获取指定阶段的总耗时。
+     *
+     * @param phase PHASE_* 常量
+     * @return 总耗时，单位纳秒。
+     */
+    public long getTotalNanos(int phase) {
+        return mTotalNanos.get(phase);
+    }
+
+    /**
+     * 获取指定阶段的最大耗时。
+     *
+     * @param phase PHASE_* 常量
+     * @return 最大耗时，单位纳秒。
+     */
+    public long getMaxNanos(int phase) {
+        return mMaxNanos.get(phase);
+    }
+
+    /**
+     * 将指定阶段的直方图复制到数组中。
+     *
+     * @param phase PHASE_* 常量
+     * @param out   长度至少为 {@link #BUCKET_COUNT} 的数组
+     */
+    public void getHistogram(int phase, long[] out) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            out[i] = mHistograms.get(phase * BUCKET_COUNT + i);
+        }
+    }
+
+    /**
+     * 根据直方图估算指定阶段耗时的百分位数，结果为所在桶的上界，误差在 2 倍以内。
+     *
+     * @param phase      PHASE_* 常量
+     * @param percentile 百分位，范围 0 ~ 1，如 0.99
+     * @return 耗时，单位纳秒，没有记录时返回 0。
+     */
+    public long getPercentileNanos(int phase, double percentile) {
+        long total = getSampleCount(phase);
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * Math.min(1d, Math.max(0d, percentile)));
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mHistograms.get(phase * BUCKET_COUNT + i);
+            if (count >= target && count > 0) {
+                return i == BUCKET_COUNT - 1 ? getMaxNanos(phase) : (1L << i) - 1;
+            }
+        }
+        return getMaxNanos(phase);
+    }
+
+    /**
+     * 清空所有统计数据。
+     */
+    public void reset() {
+        for (int i = 0; i < mHistograms.length(); i++) {
+            mHistograms.set(i, 0);
+        }
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            mTotalNanos.set(i, 0);
+            mMaxNanos.set(i, 0);
+        }
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            mCounters.set(i, 0);
+        }
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos <= 0) return 0;
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+}
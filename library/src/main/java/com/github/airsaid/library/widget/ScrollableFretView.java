@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.ColorInt;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.OverScroller;
+
+/**
+ * 可以横向拖动和滑动的指板类 View 的基类，由 {@link FretboardView} 和 {@link TabView} 共用。
+ *
+ * 负责拖动、惯性滑动和滚动条，以及两者共有的品数文字和网格线样式（cv_fretTextSize 等），品数文字通过 {@link GlyphAtlas} 绘制。
+ * 子类只需要提供内容的总宽度，并在 onDraw 中根据 getScrollX() 只绘制可见的部分。
+ *
+ * @author airsaid
+ */
+abstract class ScrollableFretView extends View {
+
+    private float mFretTextSize;
+    private int mFretTextColor;
+    private float mGridLineWidth;
+    private int mGridLineColor;
+    private GlyphAtlas mFretAtlas;
+
+    private OverScroller mScroller;
+    private GestureDetector mGestureDetector;
+
+    ScrollableFretView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mScroller = new OverScroller(context);
+        mGestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                mScroller.forceFinished(true);
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                getParent().requestDisallowInterceptTouchEvent(true);
+                scrollTo(clampScrollX(getScrollX() + (int) distanceX), 0);
+                return true;
+            }
+
+            @Override
+            public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+                mScroller.fling(getScrollX(), 0, (int) -velocityX, 0, 0, getMaxScrollX(), 0, 0);
+                invalidateOnAnimation();
+                return true;
+            }
+        });
+        setHorizontalScrollBarEnabled(true);
+    }
+
+    public void setFretTextSize(float textSize) {
+        mFretTextSize = textSize;
+        mFretAtlas = null;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getFretTextSize() {
+        return mFretTextSize;
+    }
+
+    public void setFretTextColor(@ColorInt int color) {
+        mFretTextColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getFretTextColor() {
+        return mFretTextColor;
+    }
+
+    public void setGridLineWidth(float width) {
+        mGridLineWidth = width;
+        invalidate();
+    }
+
+    public float getGridLineWidth() {
+        return mGridLineWidth;
+    }
+
+    public void setGridLineColor(@ColorInt int color) {
+        mGridLineColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getGridLineColor() {
+        return mGridLineColor;
+    }
+
+    /**
+     * 获取内容的总宽度，包括左右内边距。
+     *
+     * @return 宽度。
+     */
+    protected abstract float getContentWidth();
+
+    /**
+     * 立即滚动到指定位置，会停止正在进行的滑动。
+     *
+     * @param x 滚动位置，超出范围时会被限制
+     */
+    void scrollToX(int x) {
+        mScroller.forceFinished(true);
+        scrollTo(clampScrollX(x), 0);
+    }
+
+    /**
+     * 平滑滚动到指定位置。
+     *
+     * @param x 滚动位置，超出范围时会被限制
+     */
+    void smoothScrollToX(int x) {
+        x = clampScrollX(x);
+        mScroller.startScroll(getScrollX(), 0, x - getScrollX(), 0);
+        invalidateOnAnimation();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        scrollTo(clampScrollX(getScrollX()), 0);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (getMaxScrollX() == 0) return super.onTouchEvent(event);
+        return mGestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public void computeScroll() {
+        if (mScroller.computeScrollOffset()) {
+            scrollTo(mScroller.getCurrX(), 0);
+            invalidateOnAnimation();
+        }
+    }
+
+    @Override
+    protected int computeHorizontalScrollRange() {
+        return (int) getContentWidth();
+    }
+
+    @Override
+    protected int computeHorizontalScrollExtent() {
+        return getWidth();
+    }
+
+    @Override
+    protected int computeHorizontalScrollOffset() {
+        return getScrollX();
+    }
+
+    int getMaxScrollX() {
+        return Math.max(0, (int) Math.ceil(getContentWidth()) - getWidth());
+    }
+
+    int clampScrollX(int x) {
+        return Math.max(0, Math.min(getMaxScrollX(), x));
+    }
+
+    void invalidateOnAnimation() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postInvalidateOnAnimation();
+        } else {
+            invalidate();
+        }
+    }
+
+    GlyphAtlas getFretAtlas() {
+        if (mFretAtlas == null) {
+            mFretAtlas = GlyphAtlas.obtain(mFretTextSize, null);
+        }
+        return mFretAtlas;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import java.util.Arrays;
+
+/**
+ * 吉他谱（六线谱）的音符序列，供 {@link TabView} 绘制。弦和品的规则与 {@link Chord} 相同：
+ * 弦的角标 0 为 6 弦，品为 0 时表示空弦。
+ *
+ * 音符按时间顺序保存在基本类型数组中（每个音符 10 个字节），不会为音符创建任何对象，
+ * 通过 {@link #lowerBound(long)} 二分查找某个时间范围内的音符，上万个音符的曲谱也只需要遍历可见的部分。
+ *
+ * @author airsaid
+ */
+public final class TabTrack {
+
+    /** 最大品数 */
+    public static final int MAX_FRET = FretboardView.MAX_FRET_COUNT;
+
+    private long[] mTimes;
+    private byte[] mStrings;
+    private byte[] mFrets;
+    private int mCount;
+
+    public TabTrack() {
+        this(16);
+    }
+
+    /**
+     * 创建音符序列。
+     *
+     * @param capacity 预先分配的音符数
+     */
+    public TabTrack(int capacity) {
+        capacity = Math.max(1, capacity);
+        mTimes = new long[capacity];
+        mStrings = new byte[capacity];
+        mFrets = new byte[capacity];
+    }
+
+    /**
+     * 添加音符。音符必须按时间顺序添加，同一时间的多个音符会显示在同一列。
+     *
+     * @param time   音符开始的时间，单位毫秒
+     * @param string 弦，范围 0 ~ 5，0 为 6 弦
+     * @param fret   品，范围 0 ~ {@link #MAX_FRET}
+     */
+    public void add(long time, int string, int fret) {
+        if (mCount > 0 && time < mTimes[mCount - 1]) {
+            throw new IllegalArgumentException("Notes must be added in chronological order: " + time);
+        }
+        if (string < 0 || string >= Chord.STRING) {
+            throw new IllegalArgumentException("Invalid string: " + string);
+        }
+        if (fret < 0 || fret > MAX_FRET) {
+            throw new IllegalArgumentException("Invalid fret: " + fret);
+        }
+        if (mCount == mTimes.length) {
+            int capacity = mCount * 2;
+            mTimes = Arrays.copyOf(mTimes, capacity);
+            mStrings = Arrays.copyOf(mStrings, capacity);
+            mFrets = Arrays.copyOf(mFrets, capacity);
+        }
+        mTimes[mCount] = time;
+        mStrings[mCount] = (byte) string;
+        mFrets[mCount] = (byte) fret;
+        mCount++;
+    }
+
+    /**
+     * 将和弦中所有发声的弦作为同一时间的音符添加，闭弦会被忽略。
+     *
+     * @param time  和弦开始的时间，单位毫秒
+     * @param chord 和弦对象
+     */
+    public void addChord(long time, Chord chord) {
+        int[] frets = chord.getFrets();
+        for (int string = 0; string < frets.length; string++) {
+            if (frets[string] >= 0) {
+                add(time, string, frets[string]);
+            }
+        }
+    }
+
+    /**
+     * 清空所有音符。
+     */
+    public void clear() {
+        mCount = 0;
+    }
+
+    /**
+     * 获取音符的数量。
+     *
+     * @return 音符数量。
+     */
+    public int size() {
+        return mCount;
+    }
+
+    public long getTime(int index) {
+        return mTimes[index];
+    }
+
+    public int getString(int index) {
+        return mStrings[index];
+    }
+
+    public int getFret(int index) {
+        return mFrets[index];
+    }
+
+    /**
+     * 获取最后一个音符的时间。
+     *
+     * @return 时间，单位毫秒，没有音符时返回 0。
+     */
+    public long getEndTime() {
+        return mCount == 0 ? 0 : mTimes[mCount - 1];
+    }
+
+    /**
+     * 查找第一个时间不早于指定时间的音符。[lowerBound(start), lowerBound(end)) 即为 [start, end) 时间范围内的音符。
+     *
+     * @param time 时间，单位毫秒
+     * @return 音符角标，所有音符都早于指定时间时返回 {@link #size()}。
+     */
+    public int lowerBound(long time) {
+        int low = 0, high = mCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Airsaid. https://github.com/airsaid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.airsaid.library.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.annotation.ColorInt;
+import android.util.AttributeSet;
+
+import com.github.airsaid.library.R;
+
+/**
+ * 用于渲染吉他谱（六线谱）的 Android 自定义 View，是 {@link ChordView} 的配套控件。六条弦横向排列（6 弦在最下方），
+ * {@link TabTrack} 中的音符按时间从左到右显示为品数，品数文字与 ChordView 一样通过 {@link GlyphAtlas} 绘制，
+ * 样式属性与 ChordView 相同（cv_fretTextSize 等），拖动和滑动与 {@link FretboardView} 相同。
+ *
+ * 曲谱比 View 宽时可以横向拖动和滑动。绘制时根据滚动位置换算出可见的时间范围，通过二分查找只遍历其中的音符，
+ * 品数的宽度直接从图集中读取，平移过程中不做任何测量和对象创建，音符的数量不影响每一帧的开销。
+ *
+ * @author airsaid
+ */
+public class TabView extends ScrollableFretView {
+
+    /** 弦数 */
+    private static final int STRING = Chord.STRING;
+    /** 品数文字，避免绘制时创建字符串 */
+    private static final String[] FRET_TEXTS = new String[TabTrack.MAX_FRET + 1];
+
+    static {
+        for (int fret = 0; fret <= TabTrack.MAX_FRET; fret++) {
+            FRET_TEXTS[fret] = String.valueOf(fret);
+        }
+    }
+
+    private float mPixelsPerSecond;
+    private float mStringGap;
+    private int mNoteBackgroundColor;
+
+    private TabTrack mTrack;
+
+    private Paint mPaint;
+
+    public TabView(Context context) {
+        this(context, null);
+    }
+
+    public TabView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TabView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        initAttrs(attrs);
+    }
+
+    private void initAttrs(AttributeSet attrs) {
+        TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.TabView);
+        setPixelsPerSecond(a.getFloat(R.styleable.TabView_tv_pixelsPerSecond, 200f));
+        setStringGap(a.getDimension(R.styleable.TabView_tv_stringGap, 40f));
+        setNoteBackgroundColor(a.getColor(R.styleable.TabView_tv_noteBackgroundColor, Color.TRANSPARENT));
+        setFretTextSize(a.getDimension(R.styleable.TabView_cv_fretTextSize, 30f));
+        setFretTextColor(a.getColor(R.styleable.TabView_cv_fretTextColor, Color.WHITE));
+        setGridLineWidth(a.getDimension(R.styleable.TabView_cv_gridLineWidth, 2f));
+        setGridLineColor(a.getColor(R.styleable.TabView_cv_gridLineColor, Color.WHITE));
+        a.recycle();
+    }
+
+    /**
+     * 设置显示的音符序列。修改音符序列后需要重新设置。
+     *
+     * @param track 音符序列，为 NULL 时清除
+     */
+    public void setTrack(TabTrack track) {
+        mTrack = track;
+        requestLayout();
+        scrollTo(clampScrollX(getScrollX()), 0);
+        invalidate();
+    }
+
+    public TabTrack getTrack() {
+        return mTrack;
+    }
+
+    /**
+     * 设置横向的缩放比例，即每秒对应的宽度。
+     *
+     * @param pixels 每秒的宽度，单位像素
+     */
+    public void setPixelsPerSecond(float pixels) {
+        if (pixels <= 0) {
+            throw new IllegalArgumentException("pixels <= 0");
+        }
+        mPixelsPerSecond = pixels;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getPixelsPerSecond() {
+        return mPixelsPerSecond;
+    }
+
+    /**
+     * 立即滚动，使指定的时间显示在 View 的左侧。
+     *
+     * @param time 时间，单位毫秒
+     */
+    public void scrollToTime(long time) {
+        scrollToX((int) getTimeX(time) - getPaddingLeft());
+    }
+
+    /**
+     * 平滑滚动，使指定的时间显示在 View 的左侧。
+     *
+     * @param time 时间，单位毫秒
+     */
+    public void smoothScrollToTime(long time) {
+        smoothScrollToX((int) getTimeX(time) - getPaddingLeft());
+    }
+
+    public void setStringGap(float gap) {
+        mStringGap = gap;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getStringGap() {
+        return mStringGap;
+    }
+
+    /**
+     * 设置品数文字的背景颜色，通常与 View 的背景相同，用于遮住文字后面的弦。
+     *
+     * @param color 颜色，为透明时不绘制背景
+     */
+    public void setNoteBackgroundColor(@ColorInt int color) {
+        mNoteBackgroundColor = color;
+        invalidate();
+    }
+
+    @ColorInt public int getNoteBackgroundColor() {
+        return mNoteBackgroundColor;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = (int) Math.ceil(getContentWidth());
+        int height = (int) Math.ceil(getPaddingTop() + getPaddingBottom() + mStringGap * STRING);
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    /** 品数文字两侧留出的宽度，最宽的品数居中显示在时间点上时不会超出 */
+    private float getNoteMargin() {
+        return getFretTextSize();
+    }
+
+    @Override
+    protected float getContentWidth() {
+        long endTime = mTrack != null ? mTrack.getEndTime() : 0;
+        return getPaddingLeft() + getPaddingRight() + getNoteMargin() * 2 + endTime * mPixelsPerSecond / 1000f;
+    }
+
+    /** 指定时间的音符中心的 x 坐标 */
+    private float getTimeX(long time) {
+        return getPaddingLeft() + getNoteMargin() + time * mPixelsPerSecond / 1000f;
+    }
+
+    /** 指定 x 坐标对应的时间 */
+    private long getTimeAt(float x) {
+        return (long) Math.floor((x - getPaddingLeft() - getNoteMargin()) * 1000f / mPixelsPerSecond);
+    }
+
+    /** 指定弦的 y 坐标，1 弦在最上方 */
+    private float getStringY(int string) {
+        return getPaddingTop() + mStringGap / 2 + (STRING - 1 - string) * mStringGap;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        // 画布已经按 scrollX 平移，只绘制落在 [scrollX, scrollX + width] 中的弦和音符
+        float left = getScrollX();
+        float right = left + getWidth();
+        drawStrings(canvas, left, right);
+        TabTrack track = mTrack;
+        if (track == null || track.size() == 0) return;
+        // 品数文字居中显示，中心在可见范围外 margin 以内的音符仍有一部分可见
+        float margin = getNoteMargin();
+        int first = track.lowerBound(getTimeAt(left - margin));
+        int last = track.lowerBound(getTimeAt(right + margin) + 1);
+        drawNotes(canvas, track, first, last);
+    }
+
+    private void drawStrings(Canvas canvas, float left, float right) {
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(getGridLineWidth());
+        mPaint.setColor(getGridLineColor());
+        float stringLeft = Math.max(left, getPaddingLeft());
+        float stringRight = Math.min(right, getContentWidth() - getPaddingRight());
+        if (stringLeft >= stringRight) return;
+        for (int string = 0; string < STRING; string++) {
+            float y = getStringY(string);
+            canvas.drawLine(stringLeft, y, stringRight, y, mPaint);
+        }
+    }
+
+    private void drawNotes(Canvas canvas, TabTrack track, int first, int last) {
+        GlyphAtlas atlas = getFretAtlas();
+        float textOffsetY = -(atlas.ascent() + atlas.descent()) / 2;
+        float halfHeight = (atlas.descent() - atlas.ascent()) / 2;
+        boolean drawBackground = Color.alpha(mNoteBackgroundColor) != 0;
+        mPaint.setStyle(Paint.Style.FILL);
+        for (int i = first; i < last; i++) {
+            int fret = track.getFret(i);
+            float cx = getTimeX(track.getTime(i));
+            float cy = getStringY(track.getString(i));
+            float halfWidth = atlas.measureNumber(fret) / 2;
+            if (drawBackground) {
+                mPaint.setColor(mNoteBackgroundColor);
+                canvas.drawRect(cx - halfWidth, cy - halfHeight, cx + halfWidth, cy + halfHeight, mPaint);
+            }
+            mPaint.setColor(getFretTextColor());
+            atlas.drawText(canvas, FRET_TEXTS[fret], cx - halfWidth, cy + textOffsetY, mPaint);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.airsaid.library.audio;
+
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordRecognizerTest {
+
+    private static final int SAMPLE_RATE = PluckSynth.DEFAULT_SAMPLE_RATE;
+
+    @Test
+    public void recognize() throws Exception {
+        // 测试识别合成器弹奏的和弦，音频通过 WAV 读取
+        ChordRecognizer recognizer = new ChordRecognizer(SAMPLE_RATE);
+        assertThat(recognizeWav(recognizer, new int[]{-1, 3, 2, 0, 1, 0}), is("C"));
+        assertThat(recognizeWav(recognizer, new int[]{-1, 0, 2, 2, 1, 0}), is("Am"));
+        assertThat(recognizeWav(recognizer, new int[]{3, 2, 0, 0, 0, 3}), is("G"));
+        assertThat(recognizeWav(recognizer, new int[]{-1, -1, 0, 2, 3, 2}), is("D"));
+        assertThat(recognizeWav(recognizer, new int[]{0, 2, 2, 1, 0, 0}), is("E"));
+        assertThat(recognizeWav(recognizer, new int[]{-1, 0, 2, 0, 1, 0}), is("Am7"));
+        assertThat(recognizeWav(recognizer, new int[]{3, 2, 0, 0, 0, 1}), is("G7"));
+        assertThat(recognizeWav(recognizer, new int[]{1, 3, 3, 2, 1, 1}), is("F"));
+        // 测试没有声音
+        assertThat(recognizer.recognize(new short[1000], 0, 1000), is(nullValue()));
+    }
+
+    @Test
+    public void getVoicings() throws Exception {
+        ChordRecognizer recognizer = new ChordRecognizer(SAMPLE_RATE);
+        short[] pcm = render(new int[]{-1, 3, 2, 0, 1, 0}, SAMPLE_RATE);
+        ChordRecognizer.Match match = recognizer.recognize(pcm, 0, pcm.length);
+        assertThat(match.getName(), is("C"));
+        assertThat(match.getRoot(), is(0));
+        assertThat(match.getPitchClassMask(), is(1 | 1 << 4 | 1 << 7));
+        // 测试最容易的指法为开放和弦，且包含常见的横按指法
+        List<Chord> voicings = recognizer.getVoicings(match, Tuning.STANDARD, 16);
+        assertThat(voicings.get(0), is(new Chord(new int[]{-1, 3, 2, 0, 1, 0})));
+        assertThat(voicings.contains(new Chord(new int[]{-1, 3, 5, 5, 5, 3})), is(true));
+        assertThat(voicings.contains(new Chord(new int[]{8, 10, 10, 9, 8, 8})), is(true));
+        // 测试结果被缓存
+        assertThat(recognizer.getVoicings(match, Tuning.STANDARD, 2).get(0) == voicings.get(0), is(true));
+        assertThat(recognizer.getVoicings(match, Tuning.STANDARD, 2).size(), is(2));
+        // 测试所有指法都只包含和弦音，且最低音为根音
+        for (Chord voicing : voicings) {
+            int[] frets = voicing.getFrets();
+            boolean bass = true;
+            for (int i = 0; i < Chord.STRING; i++) {
+                if (frets[i] < 0) continue;
+                int pitchClass = Tuning.STANDARD.getNote(i, frets[i]) % 12;
+                assertThat((match.getPitchClassMask() & 1 << pitchClass) != 0, is(true));
+                if (bass) assertThat(pitchClass, is(0));
+                bass = false;
+            }
+        }
+    }
+
+    @Test
+    public void speed() throws Exception {
+        // 测试分析速度高于 50 倍实时
+        short[] pcm = render(new int[]{-1, 0, 2, 2, 1, 0}, SAMPLE_RATE * 20);
+        ChordRecognizer recognizer = new ChordRecognizer(SAMPLE_RATE);
+        recognizer.recognize(pcm, 0, pcm.length);
+        long start = System.nanoTime();
+        ChordRecognizer.Match match = recognizer.recognize(pcm, 0, pcm.length);
+        long elapsed = System.nanoTime() - start;
+        assertThat(match.getName(), is("Am"));
+        assertThat(elapsed < 20 * 1000000000L / 50, is(true));
+    }
+
+    private static String recognizeWav(ChordRecognizer recognizer, int[] frets) throws Exception {
+        short[] pcm = render(frets, SAMPLE_RATE * 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavWriter.write(out, pcm, pcm.length, SAMPLE_RATE);
+        return recognizer.recognize(new ByteArrayInputStream(out.toByteArray())).getName();
+    }
+
+    private static short[] render(int[] frets, int count) {
+        PluckSynth synth = new PluckSynth(SAMPLE_RATE);
+        synth.pluck(new Chord(frets), Tuning.STANDARD, 30, true);
+        short[] pcm = new short[count];
+        synth.render(pcm, 0, count);
+        return pcm;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.airsaid.library.audio;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChromagramTest {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    @Test
+    public void process() throws Exception {
+        // 测试 A4 正弦波的能量集中在音级 A 上
+        short[] pcm = sine(440d, SAMPLE_RATE);
+        Chromagram chromagram = new Chromagram(SAMPLE_RATE);
+        // 分成不规则的块送入，与一次送入的结果相同
+        for (int offset = 0; offset < pcm.length; offset += 1000) {
+            chromagram.process(pcm, offset, Math.min(1000, pcm.length - offset));
+        }
+        float[] chroma = new float[Chromagram.PITCH_CLASSES];
+        chromagram.getChroma(chroma);
+        assertThat(chroma[9], is(1f));
+        for (int i = 0; i < Chromagram.PITCH_CLASSES; i++) {
+            if (i != 9) assertThat(chroma[i] < 0.1f, is(true));
+        }
+        // 44100 个采样，帧长 8192，步长 4096，共 9 帧
+        assertThat(chromagram.getFrameCount(), is(9));
+
+        Chromagram whole = new Chromagram(SAMPLE_RATE);
+        whole.process(pcm, 0, pcm.length);
+        float[] wholeChroma = new float[Chromagram.PITCH_CLASSES];
+        whole.getChroma(wholeChroma);
+        for (int i = 0; i < Chromagram.PITCH_CLASSES; i++) {
+            assertThat(Math.abs(wholeChroma[i] - chroma[i]) < 1e-6f, is(true));
+        }
+    }
+
+    @Test
+    public void flush() throws Exception {
+        // 测试不足一帧的数据在 flush 后也会被计算
+        Chromagram chromagram = new Chromagram(SAMPLE_RATE);
+        short[] pcm = sine(261.63d, 3000);
+        chromagram.process(pcm, 0, pcm.length);
+        assertThat(chromagram.getFrameCount(), is(0));
+        chromagram.flush();
+        assertThat(chromagram.getFrameCount(), is(1));
+        float[] chroma = new float[Chromagram.PITCH_CLASSES];
+        chromagram.getChroma(chroma);
+        assertThat(chroma[0], is(1f));
+        chromagram.reset();
+        chromagram.getChroma(chroma);
+        assertThat(chroma[0], is(0f));
+        assertThat(chromagram.getFrameCount(), is(0));
+    }
+
+    private static short[] sine(double frequency, int count) {
+        short[] pcm = new short[count];
+        for (int i = 0; i < count; i++) {
+            pcm[i] = (short) (10000 * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+        }
+        return pcm;
+    }
+}
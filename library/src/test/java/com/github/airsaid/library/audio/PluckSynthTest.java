@@ -0,0 +1,120 @@
+package com.github.airsaid.library.audio;
+
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class PluckSynthTest {
+
+    private static final int SAMPLE_RATE = PluckSynth.DEFAULT_SAMPLE_RATE;
+
+    @Test
+    public void pitch() throws Exception {
+        // 测试单根弦的基频：5 弦空弦 110 Hz，1 弦 12 品 659.26 Hz
+        assertPeak(new Chord(new int[]{-1, 0, -1, -1, -1, -1}), 110d);
+        assertPeak(new Chord(new int[]{-1, -1, -1, -1, -1, 12}), Tuning.frequencyOf(76));
+    }
+
+    @Test
+    public void renderToWav() throws Exception {
+        // 测试按 256 帧分块合成 C 和弦并写入 WAV，和弦中的音都应明显高于不在和弦中的音
+        PluckSynth synth = new PluckSynth(SAMPLE_RATE);
+        synth.pluck(new Chord(new int[]{-1, 3, 2, 0, 1, 0}), Tuning.STANDARD, 50, true);
+        short[] pcm = new short[SAMPLE_RATE];
+        for (int offset = 0; offset < pcm.length; offset += 256) {
+            synth.render(pcm, offset, Math.min(256, pcm.length - offset));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavWriter.write(out, pcm, pcm.length, SAMPLE_RATE);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        short[] samples = new short[pcm.length];
+        buffer.position(WavWriter.HEADER_SIZE);
+        buffer.asShortBuffer().get(samples);
+
+        // C3、E3、G3、C4 与 C#3、F#3
+        double c = power(samples, Tuning.frequencyOf(48));
+        double e = power(samples, Tuning.frequencyOf(52));
+        double g = power(samples, Tuning.frequencyOf(55));
+        double c4 = power(samples, Tuning.frequencyOf(60));
+        double off = Math.max(power(samples, Tuning.frequencyOf(49)), power(samples, Tuning.frequencyOf(54)));
+        assertThat(c > off * 10, is(true));
+        assertThat(e > off * 10, is(true));
+        assertThat(g > off * 10, is(true));
+        assertThat(c4 > off * 10, is(true));
+    }
+
+    @Test
+    public void strumAndDecay() throws Exception {
+        // 测试上扫 100 毫秒时 1 弦先发声，6 弦在扫弦结束时才发声
+        PluckSynth synth = new PluckSynth(SAMPLE_RATE);
+        synth.setSustain(0.5f);
+        assertThat(synth.isIdle(), is(true));
+        synth.pluck(new Chord(new int[]{0, -1, -1, -1, -1, 0}), Tuning.STANDARD, 100, false);
+        short[] block = new short[SAMPLE_RATE / 10];
+        synth.render(block, 0, block.length);
+        PluckSynth low = new PluckSynth(SAMPLE_RATE);
+        low.pluck(new Chord(new int[]{0, -1, -1, -1, -1, -1}), Tuning.STANDARD, 0, true);
+        short[] lowBlock = new short[SAMPLE_RATE / 10];
+        low.render(lowBlock, 0, lowBlock.length);
+        assertThat(power(block, 329.6d) > power(block, 82.4d) * 100, is(true));
+        assertThat(power(block, 82.4d) < power(lowBlock, 82.4d) / 100, is(true));
+        // 测试余音结束后不再发声
+        short[] rest = new short[SAMPLE_RATE];
+        synth.render(rest, 0, rest.length);
+        assertThat(synth.isIdle(), is(true));
+        synth.render(block, 0, block.length);
+        assertThat(maxAbs(block), is(0));
+        // 测试闭弦和 stop() 会止音
+        synth.pluck(new Chord(new int[]{0, 0, 0, 0, 0, 0}), Tuning.STANDARD, 0, true);
+        synth.pluck(new Chord(new int[]{-1, -1, -1, -1, -1, -1}), Tuning.STANDARD, 0, true);
+        assertThat(synth.isIdle(), is(true));
+        synth.pluck(new Chord(new int[]{0, 0, 0, 0, 0, 0}), Tuning.STANDARD, 0, true);
+        synth.stop();
+        assertThat(synth.isIdle(), is(true));
+    }
+
+    private static void assertPeak(Chord chord, double frequency) {
+        PluckSynth synth = new PluckSynth(SAMPLE_RATE);
+        synth.pluck(chord, Tuning.STANDARD, 0, true);
+        short[] pcm = new short[SAMPLE_RATE / 2];
+        synth.render(pcm, 0, pcm.length);
+        // 与相差 1/4 个半音的频率相比，基频的能量应最大
+        double semitone = Math.pow(2d, 1 / 48d);
+        double peak = power(pcm, frequency);
+        assertThat(peak > power(pcm, frequency * semitone) * 2, is(true));
+        assertThat(peak > power(pcm, frequency / semitone) * 2, is(true));
+    }
+
+    /**
+     * 使用 Goertzel 算法计算指定频率的能量。
+     */
+    private static double power(short[] samples, double frequency) {
+        double coefficient = 2 * Math.cos(2 * Math.PI * frequency / SAMPLE_RATE);
+        double s1 = 0, s2 = 0;
+        for (short sample : samples) {
+            double s = sample + coefficient * s1 - s2;
+            s2 = s1;
+            s1 = s;
+        }
+        return s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+    }
+
+    private static int maxAbs(short[] samples) {
+        int max = 0;
+        for (short sample : samples) {
+            max = Math.max(max, Math.abs(sample));
+        }
+        return max;
+    }
+}
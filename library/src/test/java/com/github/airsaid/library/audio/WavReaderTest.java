@@ -0,0 +1,64 @@
+package com.github.airsaid.library.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class WavReaderTest {
+
+    @Test
+    public void read() throws Exception {
+        // 测试读取 WavWriter 写入的数据
+        short[] samples = new short[10000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i * 7);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavWriter.write(out, samples, samples.length, 22050);
+        WavReader reader = new WavReader(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(reader.getSampleRate(), is(22050));
+        assertThat(reader.getChannels(), is(1));
+        short[] read = new short[samples.length];
+        int total = 0, frames;
+        while ((frames = reader.read(read, total, 3000)) > 0) {
+            total += frames;
+        }
+        assertThat(total, is(samples.length));
+        for (int i = 0; i < samples.length; i++) {
+            assertThat(read[i], is(samples[i]));
+        }
+    }
+
+    @Test
+    public void readStereo() throws Exception {
+        // 测试跳过未知的块，并将立体声混合为单声道
+        byte[] wav = {
+                'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E',
+                'f', 'm', 't', ' ', 16, 0, 0, 0, 1, 0, 2, 0, 0x44, (byte) 0xAC, 0, 0,
+                0x10, (byte) 0xB1, 2, 0, 4, 0, 16, 0,
+                'L', 'I', 'S', 'T', 3, 0, 0, 0, 1, 2, 3, 0,
+                'd', 'a', 't', 'a', 8, 0, 0, 0, 100, 0, (byte) 200, 0, (byte) 0xF6, (byte) 0xFF, 10, 0
+        };
+        WavReader reader = new WavReader(new ByteArrayInputStream(wav));
+        assertThat(reader.getSampleRate(), is(44100));
+        assertThat(reader.getChannels(), is(2));
+        short[] read = new short[4];
+        assertThat(reader.read(read, 0, 4), is(2));
+        assertThat(read[0], is((short) 150));
+        assertThat(read[1], is((short) 0));
+        assertThat(reader.read(read, 0, 4), is(-1));
+    }
+
+    @Test(expected = IOException.class)
+    public void notWav() throws Exception {
+        new WavReader(new ByteArrayInputStream("RIFF0000AVI LIST".getBytes("US-ASCII")));
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.airsaid.library.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class WavWriterTest {
+
+    @Test
+    public void write() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavWriter.write(out, new short[]{0, 1, -1, Short.MAX_VALUE, 5}, 4, 22050);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(buffer.capacity(), is(WavWriter.HEADER_SIZE + 8));
+        assertThat(new String(out.toByteArray(), 0, 4, "US-ASCII"), is("RIFF"));
+        assertThat(buffer.getInt(4), is(36 + 8));
+        assertThat(new String(out.toByteArray(), 8, 8, "US-ASCII"), is("WAVEfmt "));
+        assertThat(buffer.getShort(22), is((short) 1));
+        assertThat(buffer.getInt(24), is(22050));
+        assertThat(buffer.getInt(28), is(44100));
+        assertThat(buffer.getShort(34), is((short) 16));
+        assertThat(buffer.getInt(40), is(8));
+        assertThat(buffer.getShort(44), is((short) 0));
+        assertThat(buffer.getShort(46), is((short) 1));
+        assertThat(buffer.getShort(48), is((short) -1));
+        assertThat(buffer.getShort(50), is(Short.MAX_VALUE));
+    }
+}
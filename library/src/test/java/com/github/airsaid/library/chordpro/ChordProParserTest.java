@@ -0,0 +1,153 @@
+package com.github.airsaid.library.chordpro;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.ChordPool;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordProParserTest {
+
+    private static final String SONG = "{title: Test Song}\n"
+            + "# 注释\n"
+            + "{define: Am base-fret 1 frets x 0 2 2 1 0 fingers 0 0 2 3 1 0}\n"
+            + "{define: Bm base-fret 2 frets x 1 3 3 2 1 fingers 0 1 3 4 2 1}\n"
+            + "{define: C 1 x 3 2 0 1 0}\n"
+            + "[Am]Hello [Bm]world\r\n"
+            + "[C]la la [G]la\n";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private ChordPool mPool;
+
+    @Before
+    public void setUp() throws Exception {
+        mPool = new ChordPool(64);
+    }
+
+    @Test
+    public void parse() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        new ChordProParser(mPool).parse(new StringReader(SONG), listener);
+        assertThat(listener.events.toString(), is("[title=Test Song, define=Am, define, define=Bm, define, define=C, define, "
+                + "[Am], Hello , [Bm], world, \\n, [C], la la , [G], la, \\n]"));
+        // 测试 base-fret 换算为绝对品
+        assertThat(listener.chords.get(1).getFrets(), is(new int[]{-1, 2, 4, 4, 3, 2}));
+        assertThat(listener.chords.get(1).getFingers(), is(new int[]{0, 1, 3, 4, 2, 1}));
+        assertThat(listener.chords.get(2).getFrets(), is(new int[]{-1, 3, 2, 0, 1, 0}));
+        assertThat(listener.chords.get(2).getFingers(), nullValue());
+        // 测试未定义的和弦
+        assertThat(listener.chords.get(3), nullValue());
+        // 测试定义的和弦经过和弦池合并
+        assertThat(listener.chords.get(0), sameInstance(mPool.intern(new int[]{-1, 0, 2, 2, 1, 0}, new int[]{0, 0, 2, 3, 1, 0})));
+    }
+
+    @Test
+    public void parseTurkishLocale() throws Exception {
+        // 测试大写的指令和关键字不受默认语言环境影响
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            RecordingListener listener = new RecordingListener();
+            new ChordProParser(mPool).parse(new StringReader(
+                    "{DEFINE: Am BASE-FRET 1 FRETS x 0 2 2 1 0 FINGERS 0 0 2 3 1 0}\n[Am]Hi\n"), listener);
+            assertThat(listener.events.toString(), is("[define=Am, define, [Am], Hi, \\n]"));
+            assertThat(listener.chords.get(0).getFingers(), is(new int[]{0, 0, 2, 3, 1, 0}));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void parseByteBuffer() throws Exception {
+        // 测试 ByteBuffer 解析与 Reader 解析的结果一致
+        StringBuilder song = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            song.append(SONG);
+        }
+        RecordingListener expected = new RecordingListener();
+        new ChordProParser(mPool).parse(new StringReader(song.toString()), expected);
+        RecordingListener actual = new RecordingListener();
+        new ChordProParser(mPool).parse(ByteBuffer.wrap(song.toString().getBytes("UTF-8")), actual);
+        assertThat(actual.events, is(expected.events));
+    }
+
+    @Test
+    public void parseDirectory() throws Exception {
+        File directory = mFolder.newFolder();
+        for (int i = 0; i < 8; i++) {
+            OutputStream out = new FileOutputStream(new File(directory, i + ".cho"));
+            out.write(SONG.getBytes("UTF-8"));
+            out.close();
+        }
+        final List<Chord> chords = Collections.synchronizedList(new ArrayList<Chord>());
+        int count = new ChordProParser(mPool).parseDirectory(directory, null, new ChordProParser.ListenerFactory() {
+            @Override
+            public ChordProParser.Listener create(File file) {
+                return new ChordProParser.SimpleListener() {
+                    @Override
+                    public void onChord(String name, Chord chord) {
+                        if (chord != null) chords.add(chord);
+                    }
+                };
+            }
+        });
+        assertThat(count, is(8));
+        assertThat(chords.size(), is(8 * 3));
+        // 测试多个文件中的相同和弦合并为同一个对象
+        assertThat(mPool.size(), is(3));
+    }
+
+    private static class RecordingListener implements ChordProParser.Listener {
+
+        final List<String> events = new ArrayList<>();
+        final List<Chord> chords = new ArrayList<>();
+
+        @Override
+        public void onDirective(String name, String value) {
+            events.add(name.equals("define") ? "define" : name + "=" + value);
+        }
+
+        @Override
+        public void onChordDefinition(String name, Chord chord) {
+            events.add("define=" + name);
+        }
+
+        @Override
+        public void onChord(String name, Chord chord) {
+            events.add("[" + name + "]");
+            chords.add(chord);
+        }
+
+        @Override
+        public void onLyrics(CharSequence text) {
+            events.add(text.toString());
+        }
+
+        @Override
+        public void onLineEnd() {
+            events.add("\\n");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.airsaid.library.chordpro;
+
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class CorpusAnalyzerTest {
+
+    private static final String DEFINES = "{define: Am base-fret 1 frets x 0 2 2 1 0 fingers 0 0 2 3 1 0}\n"
+            + "{define: C 1 x 3 2 0 1 0}\n"
+            + "{define: G 1 3 2 0 0 0 3}\n";
+    private static final Chord AM = new Chord(new int[]{-1, 0, 2, 2, 1, 0}, new int[]{0, 0, 2, 3, 1, 0});
+    private static final Chord C = new Chord(new int[]{-1, 3, 2, 0, 1, 0});
+    private static final Chord G = new Chord(new int[]{3, 2, 0, 0, 0, 3});
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void analyzeSong() throws Exception {
+        String song = "{title: Test}\n{key: Am}\n" + DEFINES
+                + "[Am]one [C]two [C]three [G]four\n"
+                + "[Am]five [F]six [C]seven [Am]eight\n";
+        ChordStatistics statistics = new CorpusAnalyzer().analyze(new StringReader(song));
+        assertThat(statistics.getSongCount(), is(1L));
+        assertThat(statistics.getChordCount(), is(7L));
+        assertThat(statistics.getUndefinedChordCount(), is(1L));
+        assertThat(statistics.getKeyCount(ChordStatistics.parseKey("Am")), is(1L));
+        int am = statistics.indexOf(AM), c = statistics.indexOf(C), g = statistics.indexOf(G);
+        assertThat(statistics.getOccurrences(am), is(3L));
+        assertThat(statistics.getOccurrences(c), is(3L));
+        assertThat(statistics.getChord(g), is(G));
+        // 测试连续重复的指法不算作转换，未定义的和弦中断转换
+        assertThat(statistics.getTransitionOccurrences(c, c), is(0L));
+        assertThat(statistics.getTransitionOccurrences(am, c), is(1L));
+        assertThat(statistics.getTransitionOccurrences(g, am), is(1L));
+        assertThat(statistics.getTransitionOccurrences(am, am), is(0L));
+        assertThat(statistics.getTransitionCount(), is(4));
+        assertThat(statistics.getTransitionMatrix(new int[]{am, c, g}),
+                is(new long[]{0, 1, 0, 1, 0, 1, 1, 0, 0}));
+    }
+
+    @Test
+    public void analyzeDirectory() throws Exception {
+        // 测试多线程分析的结果与逐首累加的结果一致
+        File directory = mFolder.newFolder();
+        String[] keys = {"G", "Am", "C", "Bb", "F#m", ""};
+        int songs = 60;
+        for (int i = 0; i < songs; i++) {
+            StringBuilder song = new StringBuilder();
+            String key = keys[i % keys.length];
+            if (!key.isEmpty()) song.append("{key: ").append(key).append("}\n");
+            song.append(DEFINES);
+            // 每首歌重复的次数不同，使各个线程的局部编号顺序不同
+            for (int j = 0; j <= i % 4; j++) {
+                song.append(i % 2 == 0 ? "[G]a [C]b [Am]c\n" : "[C]a [G]b\n");
+            }
+            OutputStream out = new FileOutputStream(new File(directory, i + ".cho"));
+            out.write(song.toString().getBytes("UTF-8"));
+            out.close();
+        }
+        ChordStatistics statistics = new CorpusAnalyzer(new ChordProParser(null), 4).analyze(directory, null);
+        assertThat(statistics.getSongCount(), is((long) songs));
+        assertThat(statistics.getVoicingCount(), is(3));
+        assertThat(statistics.getUnknownKeyCount(), is(10L));
+        assertThat(statistics.getKeyCount(7), is(10L));
+        assertThat(statistics.getKeyCount(10), is(10L));
+        assertThat(statistics.getKeyCount(18), is(10L));
+
+        long g = 0, c = 0, am = 0, gc = 0, ca = 0, ag = 0, cg = 0;
+        for (int i = 0; i < songs; i++) {
+            int repeat = i % 4 + 1;
+            if (i % 2 == 0) {
+                g += repeat;
+                c += repeat;
+                am += repeat;
+                gc += repeat;
+                ca += repeat;
+                ag += repeat - 1;
+            } else {
+                c += repeat;
+                g += repeat;
+                cg += repeat;
+                gc += repeat - 1;
+            }
+        }
+        int gi = statistics.indexOf(G), ci = statistics.indexOf(C), ai = statistics.indexOf(AM);
+        assertThat(statistics.getOccurrences(gi), is(g));
+        assertThat(statistics.getOccurrences(ci), is(c));
+        assertThat(statistics.getOccurrences(ai), is(am));
+        assertThat(statistics.getChordCount(), is(g + c + am));
+        assertThat(statistics.getTransitionOccurrences(gi, ci), is(gc));
+        assertThat(statistics.getTransitionOccurrences(ci, ai), is(ca));
+        assertThat(statistics.getTransitionOccurrences(ai, gi), is(ag));
+        assertThat(statistics.getTransitionOccurrences(ci, gi), is(cg));
+        int top = statistics.getTopTransitions(1)[0];
+        assertThat(statistics.getTransitionFrom(top), is(gi));
+        assertThat(statistics.getTransitionTo(top), is(ci));
+    }
+
+    @Test
+    public void parseKey() throws Exception {
+        assertThat(ChordStatistics.parseKey("C"), is(0));
+        assertThat(ChordStatistics.parseKey(" Bb"), is(10));
+        assertThat(ChordStatistics.parseKey("F#m"), is(18));
+        assertThat(ChordStatistics.parseKey("C#min"), is(13));
+        assertThat(ChordStatistics.parseKey("Ebmaj"), is(3));
+        assertThat(ChordStatistics.parseKey("Cb"), is(11));
+        assertThat(ChordStatistics.parseKey("H"), is(-1));
+        assertThat(ChordStatistics.parseKey(""), is(-1));
+        assertThat(ChordStatistics.getKeyName(18), is("F#m"));
+        assertThat(ChordStatistics.getKeyName(10), is("Bb"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.airsaid.library.chordpro;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class LongCountMapTest {
+
+    @Test
+    public void add() throws Exception {
+        LongCountMap map = new LongCountMap(2);
+        assertThat(map.add(42L, 1), is(0));
+        assertThat(map.add(-1L, 3), is(1));
+        assertThat(map.add(42L, 2), is(0));
+        assertThat(map.size(), is(2));
+        assertThat(map.get(42L), is(3L));
+        assertThat(map.get(-1L), is(3L));
+        assertThat(map.get(7L), is(0L));
+        assertThat(map.indexOf(7L), is(-1));
+        assertThat(map.keyAt(1), is(-1L));
+    }
+
+    @Test
+    public void addRandom() throws Exception {
+        // 测试扩容后的计数与 HashMap 一致，且角标保持插入顺序
+        Random random = new Random(7);
+        LongCountMap map = new LongCountMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(5000) * 0x100000000L;
+            int index = map.add(key, 1);
+            assertThat(map.keyAt(index), is(key));
+            Long count = expected.get(key);
+            expected.put(key, count == null ? 1 : count + 1);
+        }
+        assertThat(map.size(), is(expected.size()));
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey()), is(entry.getValue()));
+        }
+    }
+
+    @Test
+    public void top() throws Exception {
+        LongCountMap map = new LongCountMap();
+        map.add(10L, 2);
+        map.add(20L, 5);
+        map.add(30L, 2);
+        map.add(40L, 9);
+        assertThat(map.top(3), is(new int[]{3, 1, 0}));
+        assertThat(map.top(10), is(new int[]{3, 1, 0, 2}));
+        assertThat(map.top(0).length, is(0));
+    }
+}
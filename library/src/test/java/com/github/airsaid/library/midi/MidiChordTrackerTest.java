@@ -0,0 +1,183 @@
+package com.github.airsaid.library.midi;
+
+import com.github.airsaid.library.audio.ChordRecognizer;
+import com.github.airsaid.library.theory.Tuning;
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class MidiChordTrackerTest {
+
+    private static final MidiChordTracker TRACKER = new MidiChordTracker();
+
+    @Test
+    public void write() throws Exception {
+        MidiChordTracker tracker = TRACKER;
+        tracker.reset();
+        final List<String> names = new ArrayList<>();
+        tracker.setListener(new MidiChordTracker.Listener() {
+            @Override
+            public void onChordChanged(ChordRecognizer.Match match, Chord voicing) {
+                names.add(match.getName());
+            }
+        });
+        // 测试 running status，以及插在数据中间的系统实时消息
+        write(tracker, 0x90, 60, 100, 64, 0xF8, 100);
+        assertThat(tracker.getMatch(), is(nullValue()));
+        assertThat(tracker.getHeldPitchClasses(), is(1 | 1 << 4));
+        write(tracker, 67, 100);
+        assertThat(names.toString(), is("[C]"));
+        assertThat(tracker.getBassNote(), is(60));
+        assertThat(tracker.getVoicing(), is(new Chord(new int[]{-1, 3, 2, 0, 1, 0})));
+        // 测试力度为 0 的 note on 与 note off，C E A 为 Am
+        write(tracker, 67, 0, 0x80, 48, 0, 0x90, 69, 90);
+        assertThat(names.toString(), is("[C, Am]"));
+        assertThat(tracker.getBassNote(), is(60));
+        // 测试打击乐通道和 SysEx 被忽略，SysEx 之后没有状态字节的数据也被忽略
+        write(tracker, 0x99, 62, 100, 65, 100, 0xF0, 0x7E, 0x7F, 0x09, 0x01, 0xF7, 62, 100);
+        assertThat(names.toString(), is("[C, Am]"));
+        // 测试只剩两个音时保持显示上一个和弦
+        write(tracker, 0x80, 69, 0);
+        assertThat(names.toString(), is("[C, Am]"));
+        assertThat(tracker.getMatch().getName(), is("Am"));
+        write(tracker, 0xB0, 123, 0);
+        assertThat(tracker.getHeldPitchClasses(), is(0));
+        assertThat(tracker.getBassNote(), is(-1));
+    }
+
+    @Test
+    public void releaseAndReplay() throws Exception {
+        MidiChordTracker tracker = TRACKER;
+        tracker.reset();
+        tracker.setListener(null);
+        // 逐个松开 Cmaj7 的音时保持显示 Cmaj7
+        press(tracker, 48, 52, 55, 59);
+        assertThat(tracker.getMatch().getName(), is("Cmaj7"));
+        tracker.send(0x80, 48, 0);
+        assertThat(tracker.getMatch().getName(), is("Cmaj7"));
+        // 全部松开后重新按下 E G B 为 Em
+        tracker.send(0x80, 52, 0);
+        tracker.send(0x80, 55, 0);
+        tracker.send(0x80, 59, 0);
+        assertThat(tracker.getMatch(), is(nullValue()));
+        press(tracker, 52, 55, 59);
+        assertThat(tracker.getMatch().getName(), is("Em"));
+        // all notes off 之后 Am7 -> C
+        tracker.send(0xB0, 123, 0);
+        press(tracker, 45, 48, 52, 55);
+        assertThat(tracker.getMatch().getName(), is("Am7"));
+        tracker.send(0xB0, 123, 0);
+        press(tracker, 48, 52, 55);
+        assertThat(tracker.getMatch().getName(), is("C"));
+        // 不松开 C 的音直接加入 B 也会切换
+        tracker.send(0x90, 59, 100);
+        assertThat(tracker.getMatch().getName(), is("Cmaj7"));
+    }
+
+    @Test
+    public void sustain() throws Exception {
+        MidiChordTracker tracker = TRACKER;
+        tracker.reset();
+        tracker.setListener(null);
+        // 踩下延音踏板后松开的音仍然保持
+        tracker.send(0x90, 55, 100);
+        tracker.send(0xB0, 64, 127);
+        tracker.send(0x80, 55, 0);
+        tracker.send(0x90, 59, 100);
+        tracker.send(0x80, 59, 0);
+        tracker.send(0x90, 62, 100);
+        assertThat(tracker.getMatch().getName(), is("G"));
+        tracker.send(0x90, 65, 100);
+        assertThat(tracker.getMatch().getName(), is("G7"));
+        // 松开踏板后只剩按住的音
+        tracker.send(0xB0, 64, 0);
+        assertThat(tracker.getHeldPitchClasses(), is(1 << 2 | 1 << 5));
+    }
+
+    @Test
+    public void outOfRangeData() throws Exception {
+        MidiChordTracker tracker = TRACKER;
+        tracker.reset();
+        tracker.setListener(null);
+        // 损坏文件中大于 127 的数据字节只取低 7 位
+        tracker.send(0x90, 128 + 60, 100);
+        tracker.send(0x90, 255, 100);
+        tracker.send(0x90, 64, 228);
+        assertThat(tracker.getHeldPitchClasses(), is(1 | 1 << 4 | 1 << 7));
+        tracker.send(0x80, 255, 0);
+        assertThat(tracker.getHeldPitchClasses(), is(1 | 1 << 4));
+    }
+
+    @Test
+    public void nearestVoicing() throws Exception {
+        MidiChordTracker tracker = TRACKER;
+        tracker.reset();
+        tracker.setListener(null);
+        ChordRecognizer recognizer = new ChordRecognizer(44100);
+        // 第一个和弦选择最容易的指法：C#m 为第 4 把位的 x46650
+        press(tracker, 49, 52, 56);
+        assertThat(tracker.getVoicing(), is(new Chord(new int[]{-1, 4, 6, 6, 5, 0})));
+        float center = center(tracker.getVoicing());
+        // 之后的 B 选择手的位置附近的指法，而不是最容易的第 1 把位的指法
+        tracker.send(0xB0, 123, 0);
+        press(tracker, 47, 51, 54);
+        assertThat(tracker.getMatch().getName(), is("B"));
+        List<Chord> voicings = recognizer.getVoicings(tracker.getMatch(), Tuning.STANDARD, 16);
+        assertThat(tracker.getVoicing().equals(voicings.get(0)), is(false));
+        assertThat(Math.abs(center(tracker.getVoicing()) - center) < 1f, is(true));
+    }
+
+    @Test
+    public void speed() throws Exception {
+        // 测试处理每个事件只需要几微秒
+        MidiChordTracker tracker = TRACKER;
+        tracker.setListener(null);
+        byte[] events = bytes(0x90, 60, 100, 64, 100, 67, 100, 0x80, 67, 0, 0x90, 69, 100, 0x80, 60, 0, 64, 0, 69, 0);
+        int rounds = 100000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            tracker.write(events, 0, events.length);
+        }
+        long nanosPerEvent = (System.nanoTime() - start) / (rounds * 7L);
+        assertThat(nanosPerEvent < 10000, is(true));
+    }
+
+    private static void press(MidiChordTracker tracker, int... notes) {
+        for (int note : notes) {
+            tracker.send(0x90, note, 100);
+        }
+    }
+
+    private static void write(MidiChordTracker tracker, int... values) {
+        byte[] bytes = bytes(values);
+        tracker.write(bytes, 0, bytes.length);
+    }
+
+    private static float center(Chord chord) {
+        int sum = 0, count = 0;
+        for (int fret : chord.getFrets()) {
+            if (fret < 1) continue;
+            sum += fret;
+            count++;
+        }
+        return (float) sum / count;
+    }
+
+    static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
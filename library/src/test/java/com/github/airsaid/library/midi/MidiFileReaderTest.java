@@ -0,0 +1,125 @@
+package com.github.airsaid.library.midi;
+
+import com.github.airsaid.library.audio.ChordRecognizer;
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class MidiFileReaderTest {
+
+    @Test
+    public void read() throws Exception {
+        // 测试两个音轨按时间合并，running status 与元事件
+        byte[] file = midiFile(
+                MidiChordTrackerTest.bytes(
+                        0x00, 0xFF, 0x51, 0x03, 0x07, 0xA1, 0x20,
+                        0x00, 0x90, 60, 100,
+                        0x81, 0x00, 64, 100,
+                        0x00, 0xFF, 0x2F, 0x00),
+                MidiChordTrackerTest.bytes(
+                        0x40, 0xC1, 5,
+                        0x40, 0x91, 67, 100,
+                        0x60, 67, 0,
+                        0x00, 0xFF, 0x2F, 0x00));
+        MidiFileReader reader = new MidiFileReader(new ByteArrayInputStream(file));
+        assertThat(reader.getFormat(), is(1));
+        assertThat(reader.getTrackCount(), is(2));
+        assertThat(reader.getDivision(), is(96));
+        final List<String> events = new ArrayList<>();
+        reader.read(new MidiFileReader.Handler() {
+            @Override
+            public void onMessage(long tick, int status, int data1, int data2) {
+                events.add(tick + ":" + Integer.toHexString(status) + "," + data1 + "," + data2);
+            }
+
+            @Override
+            public void onTempo(long tick, int microsecondsPerQuarter) {
+                events.add(tick + ":tempo " + microsecondsPerQuarter);
+            }
+        });
+        assertThat(events.toString(),
+                is("[0:tempo 500000, 0:90,60,100, 64:c1,5,0, 128:90,64,100, 128:91,67,100, 224:91,67,0]"));
+    }
+
+    @Test
+    public void playToTracker() throws Exception {
+        // 测试将 MIDI 文件中的和弦进行送入跟踪器：C - Am - F - G7
+        int[][] chords = {{48, 52, 55, 60}, {45, 52, 57, 60}, {41, 53, 57, 60}, {43, 53, 59, 62}};
+        ByteArrayOutputStream track = new ByteArrayOutputStream();
+        for (int[] chord : chords) {
+            for (int note : chord) {
+                track.write(MidiChordTrackerTest.bytes(0x00, 0x90, note, 90));
+            }
+            for (int i = 0; i < chord.length; i++) {
+                track.write(MidiChordTrackerTest.bytes(i == 0 ? 0x83 : 0x00, i == 0 ? 0x00 : 0x80, chord[i], 0));
+            }
+        }
+        track.write(MidiChordTrackerTest.bytes(0x00, 0xFF, 0x2F, 0x00));
+        MidiFileReader reader = new MidiFileReader(new ByteArrayInputStream(midiFile(track.toByteArray())));
+        final MidiChordTracker tracker = new MidiChordTracker();
+        final List<String> names = new ArrayList<>();
+        tracker.setListener(new MidiChordTracker.Listener() {
+            @Override
+            public void onChordChanged(ChordRecognizer.Match match, Chord voicing) {
+                names.add(match.getName());
+            }
+        });
+        reader.read(new MidiFileReader.Handler() {
+            @Override
+            public void onMessage(long tick, int status, int data1, int data2) {
+                tracker.send(status, data1, data2);
+            }
+
+            @Override
+            public void onTempo(long tick, int microsecondsPerQuarter) {}
+        });
+        assertThat(names.toString(), is("[C, Am, F, G7]"));
+    }
+
+    @Test(expected = IOException.class)
+    public void notMidi() throws Exception {
+        new MidiFileReader(new ByteArrayInputStream("RIFF0000WAVE".getBytes("US-ASCII")));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedHeader() throws Exception {
+        new MidiFileReader(new ByteArrayInputStream(MidiChordTrackerTest.bytes('M', 'T', 'h', 'd', 0, 0, 0, 6, 0, 0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeChunkLength() throws Exception {
+        // 长度为 0x80000000 时不能抛出 NegativeArraySizeException
+        new MidiFileReader(new ByteArrayInputStream(MidiChordTrackerTest.bytes('M', 'T', 'h', 'd', 0x80, 0, 0, 0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void oversizedTrackLength() throws Exception {
+        // 过大的音轨长度不能尝试分配内存
+        new MidiFileReader(new ByteArrayInputStream(MidiChordTrackerTest.bytes(
+                'M', 'T', 'h', 'd', 0, 0, 0, 6, 0, 0, 0, 1, 0, 96,
+                'M', 'T', 'r', 'k', 0x7F, 0xFF, 0xFF, 0xFF)));
+    }
+
+    private static byte[] midiFile(byte[]... tracks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MidiChordTrackerTest.bytes('M', 'T', 'h', 'd', 0, 0, 0, 6, 0, tracks.length > 1 ? 1 : 0,
+                0, tracks.length, 0, 96));
+        for (byte[] track : tracks) {
+            out.write(MidiChordTrackerTest.bytes('M', 'T', 'r', 'k', 0, 0, track.length >> 8, track.length));
+            out.write(track);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.airsaid.library.theory;
+
+import com.github.airsaid.library.widget.Chord;
+import com.github.airsaid.library.widget.PackedChord;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class DifficultyScorerTest {
+
+    private static final Chord C = new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0});
+    private static final Chord F = new Chord(new int[]{1, 3, 3, 2, 1, 1}, new int[]{1, 3, 4, 2, 1, 1});
+    private static final Chord STRETCH = new Chord(new int[]{-1, 7, 9, 11, 12, -1}, new int[]{0, 1, 2, 3, 4, 0});
+    private static final Chord TOO_MANY_FINGERS = new Chord(new int[]{3, 2, 4, 2, 3, 1});
+
+    @Test
+    public void score() throws Exception {
+        DifficultyScorer scorer = new DifficultyScorer();
+        // 开放和弦 < 横按和弦 < 大跨度和弦 < 需要 5 根手指的和弦
+        float c = scorer.score(C);
+        float f = scorer.score(F);
+        float stretch = scorer.score(STRETCH);
+        float impossible = scorer.score(TOO_MANY_FINGERS);
+        assertThat(c < f, is(true));
+        assertThat(f < stretch, is(true));
+        assertThat(impossible >= DifficultyScorer.UNPLAYABLE, is(true));
+        assertThat(DifficultyScorer.getLevel(c), is(DifficultyScorer.LEVEL_EASY));
+        assertThat(DifficultyScorer.getLevel(f), is(DifficultyScorer.LEVEL_MEDIUM));
+        assertThat(DifficultyScorer.getLevel(stretch), is(DifficultyScorer.LEVEL_HARD));
+        // 测试没有按下任何弦
+        assertThat(scorer.score(new Chord(new int[]{0, 0, 0, 0, 0, 0})), is(0f));
+        // 测试夹在中间的闭弦增加难度
+        float muted = scorer.score(new Chord(new int[]{3, -1, 0, 0, 0, 3}));
+        assertThat(muted > scorer.score(new Chord(new int[]{3, 0, 0, 0, 0, 3})), is(true));
+        // 测试权重
+        scorer.setMutedInnerWeight(0f);
+        scorer.setNoteWeight(0f);
+        assertThat(scorer.score(new Chord(new int[]{3, -1, 0, 0, 0, 3})), is(scorer.score(new Chord(new int[]{3, 0, 0, 0, 0, 3}))));
+    }
+
+    @Test
+    public void partialVoicingsHaveNoBarre() throws Exception {
+        DifficultyScorer scorer = new DifficultyScorer();
+        DifficultyScorer noBarre = new DifficultyScorer();
+        noBarre.setBarreWeight(0f);
+        noBarre.setBarreLengthWeight(0f);
+        // 强力和弦和部分指法不计算横按
+        Chord[] chords = {
+                new Chord(new int[]{-1, 3, 5, -1, -1, -1}),
+                new Chord(new int[]{-1, 3, 5, -1, -1, -1}, new int[]{0, 1, 3, 0, 0, 0}),
+                new Chord(new int[]{-1, 3, 5, 5, -1, -1}),
+                new Chord(new int[]{-1, 3, 5, 5, -1, -1}, new int[]{0, 1, 3, 4, 0, 0}),
+        };
+        for (Chord chord : chords) {
+            float score = scorer.score(chord);
+            assertThat(score, is(noBarre.score(chord)));
+            assertThat(score, is(scorer.score(PackedChord.pack(chord))));
+            assertThat(DifficultyScorer.getLevel(score), is(DifficultyScorer.LEVEL_EASY));
+        }
+        // 横按和弦仍然计算横按
+        assertThat(scorer.score(F) > noBarre.score(F), is(true));
+    }
+
+    @Test
+    public void scoreAll() throws Exception {
+        // 测试批量评分与逐个评分的结果一致
+        DifficultyScorer scorer = new DifficultyScorer();
+        long[] packed = randomVoicings(5000);
+        float[] scores = new float[packed.length - 10];
+        scorer.scoreAll(packed, 10, scores.length, scores);
+        for (int i = 0; i < scores.length; i++) {
+            assertThat(scores[i], is(scorer.score(packed[10 + i])));
+            assertThat(scores[i], is(scorer.score(PackedChord.unpack(packed[10 + i]))));
+        }
+    }
+
+    @Test
+    public void sort() throws Exception {
+        DifficultyScorer scorer = new DifficultyScorer();
+        long[] packed = randomVoicings(5000);
+        long first = packed[0];
+        scorer.sort(packed, 1, packed.length);
+        assertThat(packed[0], is(first));
+        for (int i = 2; i < packed.length; i++) {
+            assertThat(scorer.score(packed[i - 1]) <= scorer.score(packed[i]), is(true));
+        }
+        // 测试难度相同时保持原来的顺序
+        long a = PackedChord.pack(new int[]{-1, 3, 2, 0, 1, 0}, null);
+        long b = PackedChord.pack(new int[]{0, 3, 2, 0, 1, -1}, null);
+        long hard = PackedChord.pack(F);
+        long[] ties = {hard, b, a};
+        scorer.sort(ties, 0, ties.length);
+        assertThat(ties, is(new long[]{b, a, hard}));
+    }
+
+    @Test
+    public void findEasiest() throws Exception {
+        DifficultyScorer scorer = new DifficultyScorer();
+        long[] packed = {PackedChord.pack(STRETCH), PackedChord.pack(F), PackedChord.pack(C)};
+        assertThat(scorer.findEasiest(packed, 0, packed.length), is(2));
+        assertThat(scorer.findEasiest(packed, 0, 2), is(1));
+        assertThat(scorer.findEasiest(packed, 0, 0), is(-1));
+    }
+
+    private static long[] randomVoicings(int count) {
+        Random random = new Random(3);
+        long[] packed = new long[count];
+        int[] frets = new int[Chord.STRING];
+        int[] fingers = new int[Chord.STRING];
+        for (int i = 0; i < count; i++) {
+            int base = random.nextInt(12);
+            for (int s = 0; s < Chord.STRING; s++) {
+                int r = random.nextInt(6);
+                frets[s] = r == 0 ? -1 : r == 1 ? 0 : base + r - 1;
+                fingers[s] = frets[s] > 0 ? Math.min(4, r - 1) : 0;
+            }
+            packed[i] = PackedChord.pack(frets, random.nextBoolean() ? fingers : null);
+        }
+        return packed;
+    }
+}
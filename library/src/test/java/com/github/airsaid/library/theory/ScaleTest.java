@@ -0,0 +1,30 @@
+package com.github.airsaid.library.theory;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ScaleTest {
+
+    @Test
+    public void getPitchClassMask() throws Exception {
+        // C 大调只包含白键
+        assertThat(Scale.MAJOR.getPitchClassMask(0), is(0b101010110101));
+        assertThat(Scale.MAJOR.size(), is(7));
+        // A 小调与 C 大调的音相同
+        assertThat(Scale.NATURAL_MINOR.getPitchClassMask(9), is(Scale.MAJOR.getPitchClassMask(0)));
+        // E 小调五声音阶：E G A B D
+        assertThat(Scale.MINOR_PENTATONIC.getPitchClassMask(4), is(1 << 4 | 1 << 7 | 1 << 9 | 1 << 11 | 1 << 2));
+        assertThat(Scale.rotate(1, -1), is(1 << 11));
+        assertThat(Scale.rotate(1 << 11, 1), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInterval() throws Exception {
+        new Scale("Invalid", 0, 12);
+    }
+}
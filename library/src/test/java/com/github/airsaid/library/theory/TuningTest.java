@@ -0,0 +1,29 @@
+package com.github.airsaid.library.theory;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class TuningTest {
+
+    @Test
+    public void getFrequency() throws Exception {
+        // 测试标准调弦下 5 弦空弦为 A2，1 弦 5 品为 A4
+        assertThat(Tuning.STANDARD.getNote(1, 0), is(45));
+        assertThat(Math.abs(Tuning.STANDARD.getFrequency(1, 0) - 110d) < 1e-9, is(true));
+        assertThat(Math.abs(Tuning.STANDARD.getFrequency(5, 5) - 440d) < 1e-9, is(true));
+        // 测试 Drop D 只降低了 6 弦
+        assertThat(Tuning.DROP_D.getNote(0, 2), is(Tuning.STANDARD.getNote(0, 0)));
+        assertThat(Tuning.DROP_D.getNote(1, 0), is(Tuning.STANDARD.getNote(1, 0)));
+        assertThat(new Tuning(40, 45, 50, 55, 59, 64).equals(Tuning.STANDARD), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTuning() throws Exception {
+        new Tuning(40, 45, 50);
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.airsaid.library.theory;
+
+import com.github.airsaid.library.widget.Chord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class VoiceLeadingOptimizerTest {
+
+    @Test
+    public void optimize() throws Exception {
+        final Map<String, List<Chord>> voicings = new HashMap<>();
+        final Chord c = new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0});
+        final Chord gOpen = new Chord(new int[]{3, 2, 0, 0, 0, 3}, new int[]{2, 1, 0, 0, 0, 3});
+        final Chord gBarre = new Chord(new int[]{3, 5, 5, 4, 3, 3}, new int[]{1, 3, 4, 2, 1, 1});
+        final Chord cBarre = new Chord(new int[]{-1, 3, 5, 5, 5, 3}, new int[]{0, 1, 3, 3, 3, 1});
+        voicings.put("C", Arrays.asList(cBarre, c));
+        voicings.put("G", Arrays.asList(gBarre, gOpen));
+        VoiceLeadingOptimizer optimizer = new VoiceLeadingOptimizer();
+        VoiceLeadingOptimizer.VoicingProvider provider = new VoiceLeadingOptimizer.VoicingProvider() {
+            @Override
+            public List<Chord> getVoicings(String name) {
+                return voicings.get(name);
+            }
+        };
+        // 测试选择开放和弦，避免横按
+        List<Chord> result = optimizer.optimize(Arrays.asList("C", "G", "C"), provider);
+        assertThat(result.size(), is(3));
+        assertThat(result.get(0), sameInstance(c));
+        assertThat(result.get(1), sameInstance(gOpen));
+        assertThat(result.get(2), sameInstance(c));
+        // 测试空进行
+        assertThat(optimizer.optimize(new ArrayList<String>(), provider).size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void optimizeMissingVoicing() throws Exception {
+        new VoiceLeadingOptimizer().optimize(Arrays.asList("H"), new VoiceLeadingOptimizer.VoicingProvider() {
+            @Override
+            public List<Chord> getVoicings(String name) {
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void optimizeMatchesBruteForce() throws Exception {
+        // 测试动态规划的结果与穷举的最小总代价一致
+        Random random = new Random(42);
+        VoiceLeadingOptimizer optimizer = new VoiceLeadingOptimizer();
+        List<List<Chord>> candidates = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<Chord> list = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                int[] frets = new int[Chord.STRING];
+                int base = random.nextInt(10);
+                for (int s = 0; s < frets.length; s++) {
+                    frets[s] = random.nextInt(5) == 0 ? -1 : base + random.nextInt(4);
+                }
+                list.add(new Chord(frets));
+            }
+            candidates.add(list);
+        }
+        float expected = Float.MAX_VALUE;
+        for (int n = 0; n < 81; n++) {
+            List<Chord> voicings = new ArrayList<>();
+            for (int i = 0, k = n; i < 4; i++, k /= 3) {
+                voicings.add(candidates.get(i).get(k % 3));
+            }
+            expected = Math.min(expected, optimizer.getTotalCost(voicings));
+        }
+        float actual = optimizer.getTotalCost(optimizer.optimizeVoicings(candidates));
+        assertThat(Math.abs(actual - expected) < 1e-4f, is(true));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.airsaid.library.widget;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordCacheManagerTest {
+
+    @Test
+    public void onTrimMemory() throws Exception {
+        ChordCacheManager manager = new ChordCacheManager();
+        ChordPool pool = new ChordPool(64);
+        for (int i = 1; i <= 40; i++) {
+            pool.intern(new int[]{i, i, i, i, i, i}, null);
+        }
+        manager.register(pool);
+        manager.register(pool);
+        Map<String, Long> sizes = manager.getSizeBytes();
+        assertThat(sizes.size(), is(1));
+        assertThat(sizes.get("ChordPool"), is(pool.getSizeBytes()));
+        assertThat(manager.getTotalSizeBytes(), is(pool.getSizeBytes()));
+        // 测试前台运行时不释放
+        manager.onTrimMemory(0);
+        assertThat(pool.size(), is(40));
+        // 测试按内存紧张程度成比例释放
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertThat(pool.size(), is(30));
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertThat(pool.size(), is(15));
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertThat(pool.size(), is(0));
+        assertThat(manager.getTotalSizeBytes(), is(0L));
+        // 测试取消注册后不再释放
+        pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null);
+        manager.unregister(pool);
+        manager.onLowMemory();
+        assertThat(pool.size(), is(1));
+    }
+
+    @Test
+    public void getRetainFraction() throws Exception {
+        // 测试内存越紧张保留的越少
+        assertThat(ChordCacheManager.getRetainFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE), is(0.75f));
+        assertThat(ChordCacheManager.getRetainFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL), is(0.25f));
+        assertThat(ChordCacheManager.getRetainFraction(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN), is(0.5f));
+        assertThat(ChordCacheManager.getRetainFraction(ComponentCallbacks2.TRIM_MEMORY_MODERATE), is(0.25f));
+        assertThat(ChordCacheManager.getRetainFraction(ComponentCallbacks2.TRIM_MEMORY_COMPLETE), is(0f));
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordDiffTest {
+
+    private static final Chord C = new Chord(new int[]{-1, 3, 2, 0, 1, 0});
+    private static final Chord G = new Chord(new int[]{3, 2, 0, 0, 0, 3});
+    private static final Chord AM = new Chord(new int[]{-1, 0, 2, 2, 1, 0});
+    private static final Chord F = new Chord(new int[]{1, 3, 3, 2, 1, 1});
+    private static final Chord D = new Chord(new int[]{-1, -1, 0, 2, 3, 2});
+
+    @Test
+    public void calculate() throws Exception {
+        // 测试按值比较，相同的列表没有差异
+        List<Chord> oldList = Arrays.asList(C, G, AM, F);
+        List<Chord> copy = new ArrayList<>();
+        for (Chord chord : oldList) {
+            copy.add(new Chord(chord.getFrets().clone()));
+        }
+        assertThat(ChordDiff.calculate(oldList, copy, true).getEditCount(), is(0));
+        // 测试插入和删除
+        Recorder recorder = apply(oldList, Arrays.asList(C, D, G, AM), true);
+        assertThat(recorder.log.toString(), is("[remove 3 1, insert 1 1]"));
+        // 测试修改
+        recorder = apply(oldList, Arrays.asList(C, D, AM, F), true);
+        assertThat(recorder.log.toString(), is("[change 1 1]"));
+        // 测试移动
+        recorder = apply(oldList, Arrays.asList(F, C, G, AM), true);
+        assertThat(recorder.log.toString(), is("[move 3 0]"));
+        recorder = apply(oldList, Arrays.asList(G, AM, F, C), true);
+        assertThat(recorder.log.toString(), is("[move 0 3]"));
+        // 测试不检测移动
+        recorder = apply(oldList, Arrays.asList(F, C, G, AM), false);
+        assertThat(recorder.log.toString(), is("[remove 3 1, insert 0 1]"));
+    }
+
+    @Test
+    public void calculateRandom() throws Exception {
+        // 测试随机编辑后，依次应用回调可以得到新列表，且编辑数为最少
+        Chord[] chords = {C, G, AM, F, D, null};
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            List<Chord> oldList = randomList(random, chords, random.nextInt(12));
+            List<Chord> newList = randomList(random, chords, random.nextInt(12));
+            ChordDiff diff = ChordDiff.calculate(oldList, newList, false);
+            assertThat(diff.getEditCount(), is(editDistance(oldList, newList)));
+            apply(oldList, newList, false);
+            apply(oldList, newList, true);
+        }
+        // 测试打乱顺序
+        for (int round = 0; round < 100; round++) {
+            List<Chord> oldList = randomList(random, chords, 20);
+            List<Chord> newList = new ArrayList<>(oldList);
+            Collections.shuffle(newList, random);
+            apply(oldList, newList, true);
+        }
+    }
+
+    private static List<Chord> randomList(Random random, Chord[] chords, int size) {
+        List<Chord> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(chords[random.nextInt(chords.length)]);
+        }
+        return list;
+    }
+
+    /**
+     * 依次应用回调，插入和修改的位置使用新列表中对应位置的和弦，最终应与新列表相同。
+     */
+    private static Recorder apply(List<Chord> oldList, final List<Chord> newList, boolean detectMoves) {
+        final Object inserted = new Object();
+        final List<Object> list = new ArrayList<Object>(oldList);
+        Recorder recorder = new Recorder(list, inserted);
+        ChordDiff.calculate(oldList, newList, detectMoves).dispatchUpdatesTo(recorder);
+        assertThat(list.size(), is(newList.size()));
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) != inserted) {
+                Chord actual = (Chord) list.get(i);
+                assertThat(actual == null ? newList.get(i) == null : actual.equals(newList.get(i)), is(true));
+            }
+        }
+        return recorder;
+    }
+
+    private static int editDistance(List<Chord> a, List<Chord> b) {
+        int[][] lcs = new int[a.size() + 1][b.size() + 1];
+        for (int i = 1; i <= a.size(); i++) {
+            for (int j = 1; j <= b.size(); j++) {
+                Chord x = a.get(i - 1), y = b.get(j - 1);
+                boolean same = x == null ? y == null : x.equals(y);
+                lcs[i][j] = same ? lcs[i - 1][j - 1] + 1 : Math.max(lcs[i - 1][j], lcs[i][j - 1]);
+            }
+        }
+        return a.size() + b.size() - 2 * lcs[a.size()][b.size()];
+    }
+
+    private static class Recorder implements ChordDiff.Callback {
+
+        final List<String> log = new ArrayList<>();
+        final List<Object> list;
+        final Object inserted;
+
+        Recorder(List<Object> list, Object inserted) {
+            this.list = list;
+            this.inserted = inserted;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            log.add("insert " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.add(position, inserted);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            log.add("remove " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            log.add("move " + fromPosition + " " + toPosition);
+            list.add(toPosition, list.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            log.add("change " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                list.set(position + i, inserted);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordEditorTest {
+
+    private ChordLayout.Spec mSpec;
+
+    @Before
+    public void setUp() throws Exception {
+        float[] fretTextWidths = new float[25];
+        for (int i = 0; i < fretTextWidths.length; i++) {
+            fretTextWidths[i] = 12f * String.valueOf(i).length();
+        }
+        mSpec = new ChordLayout.Spec(480, 600, ChordView.NORMAL_SHOW_MODE, ChordLayout.DEFAULT_FRET_COUNT,
+                20f, 10f, 20f, 10f, 3f, 16f, fretTextWidths);
+    }
+
+    @Test
+    public void hitTest() throws Exception {
+        Chord chord = new Chord(new int[]{-1, 3, 2, 0, 1, 0});
+        ChordLayout layout = ChordLayout.compute(chord, mSpec);
+        // 测试点击节点的圆心得到该节点的弦和品
+        for (int i = 0; i < Chord.STRING; i++) {
+            if (!layout.noteVisible[i]) continue;
+            int hit = ChordEditor.hitTest(layout, layout.noteX[i], layout.noteY[i]);
+            assertThat(ChordEditor.getHitIndex(hit), is(i));
+            assertThat(ChordEditor.getHitFret(hit), is(chord.getFrets()[i]));
+        }
+        // 测试点击网格上方的符号区域
+        int hit = ChordEditor.hitTest(layout, layout.fretWidth + layout.columnWidth * 3, layout.gridTop / 2);
+        assertThat(ChordEditor.getHitIndex(hit), is(3));
+        assertThat(ChordEditor.getHitFret(hit), is(0));
+        // 测试网格以外
+        assertThat(ChordEditor.hitTest(layout, layout.fretWidth + layout.columnWidth * 3, 601f), is(ChordEditor.NO_HIT));
+        assertThat(ChordEditor.hitTest(layout, -layout.columnWidth, 300f), is(ChordEditor.NO_HIT));
+        assertThat(ChordEditor.hitTest(layout, 100f, -1f), is(ChordEditor.NO_HIT));
+
+        // 测试高把位的和弦，品从起始品开始计算
+        ChordLayout high = ChordLayout.compute(new Chord(new int[]{7, 9, 9, 8, 7, 7}), mSpec);
+        hit = ChordEditor.hitTest(high, high.noteX[1], high.noteY[1]);
+        assertThat(ChordEditor.getHitFret(hit), is(9));
+        hit = ChordEditor.hitTest(high, high.noteX[1], high.gridTop + high.rowHeight * 3.5f);
+        assertThat(ChordEditor.getHitFret(hit), is(10));
+    }
+
+    @Test
+    public void apply() throws Exception {
+        Chord chord = new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0});
+        int hashCode = chord.hashCode();
+        // 按下新的品，指法清零
+        assertThat(ChordEditor.apply(chord, hit(2, 3)), is(3));
+        assertThat(chord.getFrets(), is(new int[]{-1, 3, 3, 0, 1, 0}));
+        assertThat(chord.getFingers(), is(new int[]{0, 3, 0, 0, 1, 0}));
+        assertThat(chord.hashCode() != hashCode, is(true));
+        // 再次点击同一品松开
+        assertThat(ChordEditor.apply(chord, hit(2, 3)), is(0));
+        // 符号区域：空弦 -> 闭弦 -> 空弦，按下的弦 -> 空弦
+        assertThat(ChordEditor.apply(chord, hit(2, 0)), is(-1));
+        assertThat(ChordEditor.apply(chord, hit(2, 0)), is(0));
+        assertThat(ChordEditor.apply(chord, hit(1, 0)), is(0));
+        assertThat(chord.getFrets(), is(new int[]{-1, 0, 0, 0, 1, 0}));
+    }
+
+    @Test
+    public void dirtyRect() throws Exception {
+        float[] out = new float[4];
+        Chord chord = new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0});
+        ChordLayout from = ChordLayout.compute(chord, mSpec);
+        float x = from.noteX[2], y = from.noteY[2];
+        ChordEditor.apply(chord, ChordEditor.hitTest(from, x, y));
+        ChordLayout to = ChordLayout.compute(chord, mSpec);
+        // 测试只重绘被松开的节点和该弦的符号区域
+        assertThat(ChordEditor.getDirtyRect(from, to, 2, 20f, 1f, out), is(true));
+        float radius = mSpec.noteRadius + 1f;
+        assertThat(out[0] <= x - radius && out[2] >= x + radius, is(true));
+        assertThat(out[1], is(0f));
+        assertThat(out[3], is(y + radius));
+        assertThat(out[2] - out[0] < from.columnWidth * 2, is(true));
+
+        // 测试形成横按时包含横按区域
+        Chord barre = new Chord(new int[]{0, 3, 3, 2, 1, 2});
+        from = ChordLayout.compute(barre, mSpec);
+        ChordEditor.apply(barre, ChordEditor.hitTest(from, from.noteX[5], from.gridTop + from.rowHeight / 2));
+        to = ChordLayout.compute(barre, mSpec);
+        assertThat(from.barreCount, is(0));
+        assertThat(to.barreCount, is(1));
+        assertThat(ChordEditor.getDirtyRect(from, to, 5, 20f, 1f, out), is(true));
+        assertThat(out[0] <= to.barreLeft[0] && out[2] >= to.barreRight[0], is(true));
+
+        // 测试品窗口变化时需要重绘整个 View
+        Chord wide = new Chord(new int[]{-1, 3, 2, 0, 1, 0});
+        from = ChordLayout.compute(wide, mSpec);
+        ChordEditor.apply(wide, hit(5, 7));
+        to = ChordLayout.compute(wide, mSpec);
+        assertThat(ChordEditor.getDirtyRect(from, to, 5, 20f, 1f, out), is(false));
+    }
+
+    private static int hit(int index, int fret) {
+        return (index << 8) | fret;
+    }
+}
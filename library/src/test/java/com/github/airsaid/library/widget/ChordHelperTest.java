@@ -35,7 +35,7 @@ public class ChordHelperTest {
     public void getBarreChordData() throws Exception {
         assertThat(mChordHelper.getBarreChordData(mChords.get(0)), nullValue());
         assertThat(mChordHelper.getBarreChordData(mChords.get(1)), is(new int[]{3, 6}));
-        assertThat(mChordHelper.getBarreChordData(mChords.get(2)), is(new int[]{5, 5}));
+        assertThat(mChordHelper.getBarreChordData(mChords.get(2)), is(new int[]{5, 4}));
         assertThat(mChordHelper.getBarreChordData(mChords.get(3)), is(new int[]{8, 6}));
         assertThat(mChordHelper.getBarreChordData(mChords.get(4)), nullValue());
         assertThat(mChordHelper.getBarreChordData(mChords.get(5)), is(new int[]{1, 4}));
@@ -66,4 +66,78 @@ public class ChordHelperTest {
         assertThat(mChordHelper.getMaxUnClosedString(mChords.get(3)), is(6));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getBarre() throws Exception {
+        // 测试静态方法与实例方法的结果一致
+        for (Chord chord : mChords) {
+            int barre = ChordHelper.getBarre(chord.getFrets());
+            int[] data = mChordHelper.getBarreChordData(chord);
+            if (data == null) {
+                assertThat(barre, is(ChordHelper.NO_BARRE));
+            } else {
+                assertThat(ChordHelper.getBarreFret(barre), is(data[0]));
+                assertThat(ChordHelper.getBarreString(barre), is(data[1]));
+            }
+        }
+        // 测试全部闭弦、全部空弦的和弦不会越界
+        assertThat(ChordHelper.getBarre(new int[]{-1, -1, -1, -1, -1, -1}), is(ChordHelper.NO_BARRE));
+        assertThat(ChordHelper.getBarre(new int[]{0, 0, 0, 0, -1, -1}), is(ChordHelper.NO_BARRE));
+        assertThat(ChordHelper.getWithFirstString(new int[]{3, 3, 3, 3, 3, 3}), is(6));
+        assertThat(ChordHelper.getMaxUnClosedString(new int[]{-1, -1, -1, -1, -1, -1}), is(0));
+    }
+
+    @Test
+    public void getBarres() throws Exception {
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        // 测试不从 1 弦开始的部分横按：A 和弦用食指按住 2 ~ 4 弦
+        assertThat(ChordHelper.getBarres(new int[]{-1, 0, 2, 2, 2, 0}, new int[]{0, 0, 1, 1, 1, 0}, barres), is(1));
+        assertThat(ChordHelper.getBarreFret(barres[0]), is(2));
+        assertThat(ChordHelper.getBarreFromString(barres[0]), is(2));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(4));
+        assertThat(ChordHelper.getBarreFinger(barres[0]), is(1));
+        // 没有指法数据时无法判断部分横按
+        assertThat(ChordHelper.getBarres(new int[]{-1, 0, 2, 2, 2, 0}, null, barres), is(0));
+        // 测试多段横按：A 型横按的食指主横按 + 无名指小横按
+        assertThat(ChordHelper.getBarres(new int[]{-1, 2, 4, 4, 4, 2}, new int[]{0, 1, 3, 3, 3, 1}, barres), is(2));
+        assertThat(ChordHelper.getBarreFromString(barres[0]), is(1));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(5));
+        assertThat(ChordHelper.getBarreFret(barres[1]), is(4));
+        assertThat(ChordHelper.getBarreFromString(barres[1]), is(2));
+        assertThat(ChordHelper.getBarreString(barres[1]), is(4));
+        assertThat(ChordHelper.getBarreFinger(barres[1]), is(3));
+        assertThat(ChordHelper.isCoveredByBarre(new int[]{-1, 2, 4, 4, 4, 2}, 3, barres[1]), is(true));
+        assertThat(ChordHelper.isCoveredByBarre(new int[]{-1, 2, 4, 4, 4, 2}, 1, barres[1]), is(false));
+        // 测试没有指法时只有一段主横按，按起始弦排序
+        assertThat(ChordHelper.getBarres(new int[]{-1, 2, 4, 4, 4, 2}, null, barres), is(1));
+        assertThat(ChordHelper.getBarreFromString(barres[0]), is(1));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(5));
+        // 按下的弦都没有手指时与没有指法相同
+        assertThat(ChordHelper.getBarres(new int[]{1, 3, 3, 2, 1, 1}, new int[6], barres), is(1));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(6));
+        assertThat(ChordHelper.getBarres(new int[]{1, 3, 3, 2, 1, 1}, new int[]{1, 3, 4, 2, 1, 1}, barres), is(1));
+        assertThat(ChordHelper.getBarreFromString(barres[0]), is(1));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(6));
+        assertThat(ChordHelper.getBarres(new int[]{-1, -1, -1, -1, -1, -1}, new int[6], barres), is(0));
+    }
+
+    @Test
+    public void falseBarres() throws Exception {
+        int[] barres = new int[ChordHelper.MAX_BARRES];
+        // 强力和弦和部分指法：两端不在同一品上，不是横按
+        assertThat(ChordHelper.getBarres(new int[]{-1, 3, 5, 5, -1, -1}, null, barres), is(0));
+        assertThat(ChordHelper.getBarres(new int[]{-1, 3, 5, 5, -1, -1}, new int[]{0, 1, 3, 4, 0, 0}, barres), is(0));
+        assertThat(ChordHelper.getBarres(new int[]{-1, 3, 5, -1, -1, -1}, null, barres), is(0));
+        assertThat(ChordHelper.getBarres(new int[]{-1, 3, 5, -1, -1, -1}, new int[]{0, 1, 3, 0, 0, 0}, barres), is(0));
+        // 横按不能跨过闭弦
+        assertThat(ChordHelper.getBarres(new int[]{3, -1, 3, 3, 3, 3}, null, barres), is(1));
+        assertThat(ChordHelper.getBarreFret(barres[0]), is(3));
+        assertThat(ChordHelper.getBarreFromString(barres[0]), is(1));
+        assertThat(ChordHelper.getBarreString(barres[0]), is(4));
+        // 两端不是同一根手指时不是横按
+        assertThat(ChordHelper.getBarres(new int[]{-1, -1, 1, 2, 1, 2}, null, barres), is(1));
+        assertThat(ChordHelper.getBarres(new int[]{-1, -1, 1, 2, 1, 2}, new int[]{0, 0, 1, 3, 2, 4}, barres), is(0));
+        // 没有指法时只在最小品上判断横按
+        assertThat(ChordHelper.getBarres(new int[]{1, -1, 3, 3, -1, -1}, null, barres), is(0));
+    }
+
+}
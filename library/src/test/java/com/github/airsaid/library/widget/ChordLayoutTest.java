@@ -0,0 +1,235 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordLayoutTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+
+    private List<Chord> mChords;
+    private ChordLayout.Spec mSpec;
+
+    @Before
+    public void setUp() throws Exception {
+        mChords = new ArrayList<>();
+        mChords.add(new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0}));  // C1
+        mChords.add(new Chord(new int[]{3, 3, 5, 5, 5, 3}, new int[]{1, 1, 2, 3, 4, 1}));   // C2
+        mChords.add(new Chord(new int[]{-1, 7, 5, 5, 5, 8}, new int[]{0, 3, 1, 1, 1, 4}));  // C3
+        mChords.add(new Chord(new int[]{8, 10, 10, 9, 8, 8}, new int[]{1, 3, 4, 2, 1, 1})); // C4
+        mChords.add(new Chord(new int[]{-1, -1, 1, 0, 1, 3}, new int[]{0, 0, 1, 0, 2, 4})); // Cm
+        mChords.add(new Chord(new int[]{-1, -1, 1, 2, 1, 2}));                              // Cdim
+        mChords.add(new Chord(new int[]{-1, 3, 3, 0, 1, 1}, new int[]{0, 3, 4, 0, 1, 1}));  // Csus4
+        mChords.add(null);
+        mSpec = newSpec(480, 600, ChordView.NORMAL_SHOW_MODE, ChordLayout.DEFAULT_FRET_COUNT);
+    }
+
+    @Test
+    public void compute() throws Exception {
+        // 测试开放和弦：有空弦、闭弦，绘制琴头，不绘制品文字
+        ChordLayout c1 = ChordLayout.compute(mChords.get(0), mSpec);
+        assertThat(c1.drawStrings, is(true));
+        assertThat(c1.drawHead, is(true));
+        assertThat(c1.fretTexts, nullValue());
+        assertThat(c1.barreCount, is(0));
+        assertThat(c1.noteVisible[0], is(false));
+        assertThat(c1.noteText[1], is("3"));
+        // 测试横按和弦：横按区域内的节点不单独绘制
+        ChordLayout c4 = ChordLayout.compute(mChords.get(3), mSpec);
+        assertThat(c4.barreCount, is(1));
+        assertThat(c4.noteVisible[0], is(false));
+        assertThat(c4.noteVisible[1], is(true));
+        assertThat(c4.fretTexts[0], is("8"));
+        // 测试空和弦
+        ChordLayout empty = ChordLayout.compute(null, mSpec);
+        assertThat(empty.fretWidth, is(0f));
+        assertThat(empty.row, is(4));
+    }
+
+    @Test
+    public void fretWindow() throws Exception {
+        // 测试起始品较高且跨度超过显示品数的和弦：自动增加行数，节点行 = 品 - 起始品
+        Chord wide = new Chord(new int[]{7, 9, 11, 14, 7, 7}, new int[]{1, 2, 3, 4, 1, 1});
+        ChordLayout layout = ChordLayout.compute(wide, mSpec);
+        assertThat(layout.baseFret, is(7));
+        assertThat(layout.row, is(8));
+        assertThat(layout.drawHead, is(false));
+        assertThat(layout.fretTexts.length, is(8));
+        assertThat(layout.fretTexts[0], is("7"));
+        assertThat(layout.fretTexts[7], is("14"));
+        assertThat(layout.barreY[0], is(rowCenter(layout, 0)));
+        assertThat(layout.noteY[1], is(rowCenter(layout, 2)));
+        assertThat(layout.noteY[2], is(rowCenter(layout, 4)));
+        assertThat(layout.noteY[3], is(rowCenter(layout, 7)));
+
+        // 测试 5 品的扩展把位在显示品数为 5 时不需要增加行数
+        ChordLayout.Spec spec = newSpec(480, 600, ChordView.NORMAL_SHOW_MODE, 5);
+        Chord stretch = new Chord(new int[]{5, 7, 9, 9, 5, 5}, new int[]{1, 2, 3, 4, 1, 1});
+        layout = ChordLayout.compute(stretch, spec);
+        assertThat(layout.baseFret, is(5));
+        assertThat(layout.row, is(5));
+        assertThat(layout.barreY[0], is(rowCenter(layout, 0)));
+        assertThat(layout.noteY[1], is(rowCenter(layout, 2)));
+        assertThat(layout.noteY[3], is(rowCenter(layout, 4)));
+
+        // 测试最大品未超过显示品数时从 1 品开始显示，并绘制琴头
+        layout = ChordLayout.compute(new Chord(new int[]{-1, 3, 2, 0, 1, 5}, new int[]{0, 3, 2, 0, 1, 4}), spec);
+        assertThat(layout.baseFret, is(1));
+        assertThat(layout.row, is(5));
+        assertThat(layout.drawHead, is(true));
+        assertThat(layout.fretTexts, nullValue());
+        assertThat(layout.noteY[5], is(rowCenter(layout, 4)));
+
+        // 测试节点的行随品单调递增
+        for (Chord chord : mChords) {
+            if (chord == null) continue;
+            layout = ChordLayout.compute(chord, mSpec);
+            int[] frets = chord.getFrets();
+            for (int i = 0; i < frets.length; i++) {
+                if (!layout.noteVisible[i]) continue;
+                assertThat(layout.noteY[i], is(rowCenter(layout, frets[i] - layout.baseFret)));
+                assertThat(frets[i] - layout.baseFret < layout.row, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void interpolate() throws Exception {
+        ChordLayout from = ChordLayout.compute(mChords.get(0), mSpec);
+        ChordLayout to = ChordLayout.compute(mChords.get(3), mSpec);
+        // 两个和弦都有的节点取插值位置，网格与目标布局相同
+        ChordLayout quarter = ChordLayout.interpolate(from, to, 0.25f);
+        assertThat(quarter.chord, is(to.chord));
+        assertThat(quarter.row, is(to.row));
+        assertThat(quarter.noteVisible[1], is(true));
+        assertThat(quarter.noteX[1], is(from.noteX[1] + (to.noteX[1] - from.noteX[1]) * 0.25f));
+        assertThat(quarter.noteY[1], is(from.noteY[1] + (to.noteY[1] - from.noteY[1]) * 0.25f));
+        assertThat(quarter.noteText[1], is(from.noteText[1]));
+        // 只有一方有的节点和横按以透明度过半为准
+        assertThat(quarter.noteVisible[4], is(true));
+        assertThat(quarter.noteY[4], is(from.noteY[4]));
+        assertThat(quarter.noteVisible[3], is(false));
+        assertThat(quarter.barreCount, is(0));
+        ChordLayout threeQuarters = ChordLayout.interpolate(from, to, 0.75f);
+        assertThat(threeQuarters.noteVisible[4], is(false));
+        assertThat(threeQuarters.noteVisible[3], is(true));
+        assertThat(threeQuarters.noteText[1], is(to.noteText[1]));
+        assertThat(threeQuarters.barreCount, is(1));
+        assertThat(threeQuarters.barreY[0], is(to.barreY[0]));
+        // 横按之间插值
+        ChordLayout barre = ChordLayout.interpolate(ChordLayout.compute(mChords.get(1), mSpec), to, 0.5f);
+        ChordLayout c2 = ChordLayout.compute(mChords.get(1), mSpec);
+        assertThat(barre.barreCount, is(1));
+        assertThat(barre.barreY[0], is(c2.barreY[0] + (to.barreY[0] - c2.barreY[0]) * 0.5f));
+    }
+
+    @Test
+    public void specEquals() throws Exception {
+        // 测试相同尺寸和样式的规格相等
+        int fretCount = ChordLayout.DEFAULT_FRET_COUNT;
+        assertThat(newSpec(480, 600, ChordView.NORMAL_SHOW_MODE, fretCount), is(mSpec));
+        assertThat(newSpec(480, 600, ChordView.NORMAL_SHOW_MODE, fretCount).hashCode(), is(mSpec.hashCode()));
+        assertThat(newSpec(481, 600, ChordView.NORMAL_SHOW_MODE, fretCount), not(mSpec));
+        assertThat(newSpec(480, 600, ChordView.SIMPLE_SHOW_MODE, fretCount), not(mSpec));
+        assertThat(newSpec(480, 600, ChordView.NORMAL_SHOW_MODE, 5), not(mSpec));
+    }
+
+    @Test
+    public void computeConcurrently() throws Exception {
+        // 测试多线程并发计算的结果与单线程计算的结果一致，且不会修改和弦
+        final List<Chord> chords = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            chords.addAll(mChords);
+        }
+        List<int[]> fretsBefore = new ArrayList<>();
+        for (Chord chord : chords) {
+            fretsBefore.add(chord != null ? chord.getFrets().clone() : null);
+        }
+        final ChordLayout[] expected = ChordLayoutLoader.computeAll(chords, mSpec);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        start.await();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            ChordLayout[] layouts = ChordLayoutLoader.computeAll(chords, mSpec);
+                            for (int i = 0; i < layouts.length; i++) {
+                                if (!sameLayout(expected[i], layouts[i])) return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < chords.size(); i++) {
+            Chord chord = chords.get(i);
+            assertThat(chord != null ? chord.getFrets() : null, is(fretsBefore.get(i)));
+        }
+    }
+
+    private static float rowCenter(ChordLayout layout, int row) {
+        return layout.gridTop + (layout.rowHeight * (row + 1)) - (layout.rowHeight / 2);
+    }
+
+    private static ChordLayout.Spec newSpec(int width, int height, int showMode, int fretCount) {
+        float[] fretTextWidths = new float[25];
+        for (int i = 0; i < fretTextWidths.length; i++) {
+            fretTextWidths[i] = 12f * String.valueOf(i).length();
+        }
+        return new ChordLayout.Spec(width, height, showMode, fretCount, 20f, 10f, 20f, 10f, 3f, 16f, fretTextWidths);
+    }
+
+    private static boolean sameLayout(ChordLayout a, ChordLayout b) {
+        return a.chord == b.chord
+                && a.spec.equals(b.spec)
+                && a.row == b.row
+                && a.leastFret == b.leastFret
+                && a.baseFret == b.baseFret
+                && a.fretWidth == b.fretWidth
+                && a.gridTop == b.gridTop
+                && a.rowHeight == b.rowHeight
+                && a.columnWidth == b.columnWidth
+                && Arrays.equals(a.fretTexts, b.fretTexts)
+                && Arrays.equals(a.fretTextX, b.fretTextX)
+                && Arrays.equals(a.noteVisible, b.noteVisible)
+                && Arrays.equals(a.noteX, b.noteX)
+                && Arrays.equals(a.noteY, b.noteY)
+                && Arrays.equals(a.noteText, b.noteText)
+                && a.barreCount == b.barreCount
+                && Arrays.equals(a.barres, b.barres)
+                && Arrays.equals(a.barreLeft, b.barreLeft)
+                && Arrays.equals(a.barreRight, b.barreRight)
+                && Arrays.equals(a.barreY, b.barreY)
+                && Arrays.equals(a.barreText, b.barreText);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordPoolTest {
+
+    @Test
+    public void intern() throws Exception {
+        ChordPool pool = new ChordPool(16);
+        Chord c1 = pool.intern(new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0}));
+        // 测试相同的和弦合并为同一个对象
+        assertThat(pool.intern(new Chord(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0})), sameInstance(c1));
+        assertThat(pool.intern(new int[]{-1, 3, 2, 0, 1, 0}, new int[]{0, 3, 2, 0, 1, 0}), sameInstance(c1));
+        assertThat(pool.intern(PackedChord.pack(c1)), sameInstance(c1));
+        // 测试指法不同的和弦不会合并
+        Chord c2 = pool.intern(new int[]{-1, 3, 2, 0, 1, 0}, null);
+        assertThat(c2 == c1, is(false));
+        assertThat(pool.size(), is(2));
+        assertThat(pool.getHitCount(), is(3L));
+        assertThat(pool.getMissCount(), is(2L));
+        // 测试无法打包的和弦原样返回
+        Chord seven = new Chord(new int[]{-1, 3, 2, 0, 1, 0, 0});
+        assertThat(pool.intern(seven), sameInstance(seven));
+        assertThat(pool.size(), is(2));
+    }
+
+    @Test
+    public void evict() throws Exception {
+        ChordPool pool = new ChordPool(2);
+        Chord c1 = pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null);
+        pool.intern(new int[]{2, 2, 2, 2, 2, 2}, null);
+        // 访问 c1 后，最久未使用的是第二个和弦
+        pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null);
+        pool.intern(new int[]{3, 3, 3, 3, 3, 3}, null);
+        assertThat(pool.size(), is(2));
+        assertThat(pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null), sameInstance(c1));
+        pool.trimToSize(0);
+        assertThat(pool.size(), is(0));
+    }
+
+    @Test
+    public void clear() throws Exception {
+        ChordPool pool = new ChordPool(16);
+        Chord c1 = pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null);
+        pool.intern(new int[]{2, 2, 2, 2, 2, 2}, null);
+        pool.clear();
+        assertThat(pool.size(), is(0));
+        // 清空后重新放入新的和弦对象
+        assertThat(pool.intern(new int[]{1, 1, 1, 1, 1, 1}, null) == c1, is(false));
+        assertThat(pool.size(), is(1));
+    }
+}
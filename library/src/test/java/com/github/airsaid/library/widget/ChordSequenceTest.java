@@ -0,0 +1,97 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class ChordSequenceTest {
+
+    private static final Chord AM = new Chord(new int[]{-1, 0, 2, 2, 1, 0}, new int[]{0, 0, 2, 3, 1, 0});
+    private static final Chord C = new Chord(new int[]{-1, 3, 2, 0, 1, 0});
+    private static final Chord G = new Chord(new int[]{3, 2, 0, 0, 0, 3});
+    private static final Chord F = new Chord(new int[]{1, 3, 3, 2, 1, 1}, new int[]{1, 3, 4, 2, 1, 1});
+
+    @Test
+    public void encode() throws Exception {
+        List<Chord> chords = Arrays.asList(AM, AM, C, null, null, G, AM, new Chord(C.getFrets().clone()));
+        ChordSequence sequence = ChordSequence.encode(chords);
+        assertThat(sequence.size(), is(8));
+        assertThat(sequence.getVoicingCount(), is(3));
+        assertThat(sequence.toList(), is(chords));
+        // 测试相同的指法返回同一个对象
+        List<Chord> list = sequence.toList();
+        assertThat(list.get(7), sameInstance(list.get(2)));
+        // 测试空列表
+        ChordSequence empty = ChordSequence.encode(new ArrayList<Chord>());
+        assertThat(empty.size(), is(0));
+        assertThat(empty.iterator().hasNext(), is(false));
+        assertThat(ChordSequence.decode(empty.toByteArray(), null).size(), is(0));
+    }
+
+    @Test
+    public void decode() throws Exception {
+        // 测试随机序列解码后与原序列一致，经过和弦池合并
+        Random random = new Random(11);
+        Chord[] palette = {AM, C, G, F, null};
+        List<Chord> chords = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Chord chord = palette[random.nextInt(palette.length)];
+            int repeat = 1 + random.nextInt(200) / 150 * random.nextInt(300);
+            for (int j = 0; j < repeat; j++) chords.add(chord);
+        }
+        ChordPool pool = new ChordPool(16);
+        ChordSequence sequence = ChordSequence.decode(ChordSequence.encode(chords).toByteArray(), pool);
+        assertThat(sequence.size(), is(chords.size()));
+        assertThat(sequence.toList(), is(chords));
+        assertThat(sequence.getVoicing(0), sameInstance(pool.intern(sequence.getVoicing(0))));
+    }
+
+    @Test
+    public void skip() throws Exception {
+        List<Chord> chords = new ArrayList<>();
+        for (int i = 0; i < 100; i++) chords.add(C);
+        for (int i = 0; i < 5; i++) chords.add(G);
+        chords.add(null);
+        chords.add(F);
+        ChordSequence.Cursor cursor = ChordSequence.encode(chords).iterator();
+        assertThat(cursor.skip(98), is(98));
+        assertThat(cursor.next(), is(C));
+        assertThat(cursor.skip(5), is(5));
+        assertThat(cursor.getPosition(), is(104));
+        assertThat(cursor.next(), is(G));
+        assertThat(cursor.next(), nullValue());
+        assertThat(cursor.skip(10), is(1));
+        assertThat(cursor.hasNext(), is(false));
+    }
+
+    @Test
+    public void encodedSize() throws Exception {
+        // 测试一首典型歌曲的编码大小：4 个指法重复 300 次
+        Chord[] progression = {C, G, AM, F};
+        List<Chord> chords = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            chords.add(progression[i % 4]);
+            if (i % 3 == 0) chords.add(progression[i % 4]);
+        }
+        ChordSequence sequence = ChordSequence.encode(chords);
+        // 每段 2 个字节，字典每个指法最多 8 个字节
+        assertThat(sequence.getEncodedSize() <= 300 * 2 + 4 * 8 + 4, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeTruncated() throws Exception {
+        byte[] data = ChordSequence.encode(Arrays.asList(AM, C, G)).toByteArray();
+        ChordSequence.decode(Arrays.copyOf(data, data.length - 1), null).toList();
+    }
+}
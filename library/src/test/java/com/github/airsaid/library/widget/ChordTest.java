@@ -58,4 +58,21 @@ public class ChordTest {
         assertThat(mChords.get(2).getLargestFret(), is(8));
         assertThat(mChords.get(3).getLargestFret(), is(10));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void equals() throws Exception {
+        // 测试品和指法相同的和弦相等
+        Chord chord = new Chord(new int[]{3, 3, 5, 5, 5, 3}, new int[]{1, 1, 2, 3, 4, 1});
+        assertThat(chord, is(mChords.get(1)));
+        assertThat(chord.hashCode(), is(mChords.get(1).hashCode()));
+        assertThat(chord.equals(mChords.get(2)), is(false));
+        // 测试指法不同时不相等
+        assertThat(new Chord(new int[]{3, 3, 5, 5, 5, 3}).equals(chord), is(false));
+        // 测试修改后重新计算哈希值
+        chord.setFrets(mChords.get(2).getFrets());
+        chord.setFingers(mChords.get(2).getFingers());
+        assertThat(chord, is(mChords.get(2)));
+        assertThat(chord.hashCode(), is(mChords.get(2).hashCode()));
+    }
+
+}
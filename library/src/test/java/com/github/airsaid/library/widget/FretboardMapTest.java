@@ -0,0 +1,59 @@
+package com.github.airsaid.library.widget;
+
+import com.github.airsaid.library.theory.Scale;
+import com.github.airsaid.library.theory.Tuning;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class FretboardMapTest {
+
+    @Test
+    public void setPitchClasses() throws Exception {
+        FretboardMap map = new FretboardMap(Tuning.STANDARD, 24);
+        assertThat(map.getPitchClass(0, 0), is(4));
+        assertThat(map.getPitchClass(1, 3), is(0));
+        assertThat(map.getNoteCount(), is(0));
+        // C 大调：每根弦上每个八度 7 个音，25 个位置中除去重复共 15 个
+        map.setPitchClasses(0, Scale.MAJOR.getPitchClassMask(0));
+        assertThat(map.getNoteCount(), is(6 * 15));
+        assertThat(map.getKind(1, 3), is(FretboardMap.KIND_ROOT));
+        assertThat(map.getKind(1, 2), is(FretboardMap.KIND_TONE));
+        assertThat(map.getKind(1, 1), is(FretboardMap.KIND_NONE));
+        // 位置按品排序，每个品的范围与逐个查询的结果一致
+        for (int fret = 0; fret <= 24; fret++) {
+            int count = 0;
+            for (int string = 0; string < Chord.STRING; string++) {
+                if (map.getKind(string, fret) != FretboardMap.KIND_NONE) count++;
+            }
+            assertThat(map.getFretStart(fret + 1) - map.getFretStart(fret), is(count));
+            for (int i = map.getFretStart(fret); i < map.getFretStart(fret + 1); i++) {
+                assertThat(map.getNoteFret(i), is(fret));
+                assertThat(map.getNoteKind(i), is(map.getKind(map.getNoteString(i), fret)));
+            }
+        }
+    }
+
+    @Test
+    public void setPressed() throws Exception {
+        FretboardMap map = new FretboardMap(Tuning.STANDARD, 12);
+        // C 和弦按下的位置与 C 的琶音组合
+        map.setPressed(new int[]{-1, 3, 2, 0, 1, 0});
+        assertThat(map.getNoteCount(), is(5));
+        assertThat(map.getKind(1, 3), is(FretboardMap.KIND_PRESSED));
+        map.setPitchClasses(0, 1 | 1 << 4 | 1 << 7);
+        assertThat(map.getKind(1, 3), is(FretboardMap.KIND_PRESSED | FretboardMap.KIND_ROOT));
+        assertThat(map.getKind(2, 2), is(FretboardMap.KIND_PRESSED | FretboardMap.KIND_TONE));
+        assertThat(map.getKind(0, 3), is(FretboardMap.KIND_TONE));
+        map.setPressed(null);
+        assertThat(map.getKind(1, 3), is(FretboardMap.KIND_ROOT));
+        map.setPitchClasses(-1, 0);
+        assertThat(map.getNoteCount(), is(0));
+        assertThat(map.getFretStart(13), is(0));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class GlyphAtlasTest {
+
+    @Test
+    public void indexOf() throws Exception {
+        // 测试品文字和指法文字在图集中
+        assertThat(GlyphAtlas.indexOf("0"), is(0));
+        assertThat(GlyphAtlas.indexOf("9"), is(9));
+        assertThat(GlyphAtlas.indexOf("10"), is(10));
+        assertThat(GlyphAtlas.indexOf("24"), is(24));
+        assertThat(GlyphAtlas.indexOf("T"), is(GlyphAtlas.MAX_NUMBER + 1));
+        // 测试不在图集中的文字
+        assertThat(GlyphAtlas.indexOf("25"), is(-1));
+        assertThat(GlyphAtlas.indexOf("05"), is(-1));
+        assertThat(GlyphAtlas.indexOf("100"), is(-1));
+        assertThat(GlyphAtlas.indexOf("A"), is(-1));
+        assertThat(GlyphAtlas.indexOf(""), is(-1));
+        assertThat(GlyphAtlas.indexOf(null), is(-1));
+    }
+}
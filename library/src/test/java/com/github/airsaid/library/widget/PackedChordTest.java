@@ -0,0 +1,49 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class PackedChordTest {
+
+    @Test
+    public void pack() throws Exception {
+        int[] frets = {-1, 7, 5, 5, 5, 8};
+        int[] fingers = {0, 3, 1, 1, 1, 4};
+        long packed = PackedChord.pack(frets, fingers);
+        // 测试打包后的值为非负数，且可以逐弦读取
+        assertThat(packed >= 0, is(true));
+        assertThat(PackedChord.getFret(packed, 0), is(-1));
+        assertThat(PackedChord.getFret(packed, 5), is(8));
+        assertThat(PackedChord.getFinger(packed, 5), is(4));
+        assertThat(PackedChord.hasFingers(packed), is(true));
+        assertThat(PackedChord.getLeastFret(packed), is(5));
+        assertThat(PackedChord.getLargestFret(packed), is(8));
+        // 测试解包
+        Chord chord = PackedChord.unpack(packed);
+        assertThat(chord.getFrets(), is(frets));
+        assertThat(chord.getFingers(), is(fingers));
+        // 测试没有指法的和弦
+        long noFingers = PackedChord.pack(frets, null);
+        assertThat(PackedChord.hasFingers(noFingers), is(false));
+        assertThat(PackedChord.unpack(noFingers).getFingers(), nullValue());
+    }
+
+    @Test
+    public void canPack() throws Exception {
+        assertThat(PackedChord.canPack(new int[]{0, 0, 0, 0, 0, 0}, null), is(true));
+        assertThat(PackedChord.canPack(new int[]{0, 0, 0, 0}, null), is(false));
+        assertThat(PackedChord.canPack(new int[]{-2, 0, 0, 0, 0, 0}, null), is(false));
+        assertThat(PackedChord.canPack(new int[]{0, 0, 0, 0, 0, 0}, new int[]{0, 0, 0, 0, 0, 8}), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packInvalid() throws Exception {
+        PackedChord.pack(new int[]{63, 0, 0, 0, 0, 0}, null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class RenderMonitorTest {
+
+    @Test
+    public void onFrame() throws Exception {
+        RenderMonitor monitor = new RenderMonitor();
+        final List<Long> totals = new ArrayList<>();
+        monitor.setListener(new RenderMonitor.Listener() {
+            @Override
+            public void onFrame(ChordView view, long[] phaseNanos) {
+                totals.add(phaseNanos[RenderMonitor.PHASE_TOTAL]);
+            }
+        });
+        long[] nanos = new long[RenderMonitor.PHASE_COUNT];
+        for (int i = 1; i <= 100; i++) {
+            nanos[RenderMonitor.PHASE_NOTES] = i * 1000;
+            nanos[RenderMonitor.PHASE_TOTAL] = i * 2000;
+            monitor.onFrame(null, nanos);
+        }
+        // 测试计数、总耗时和最大耗时
+        assertThat(totals.size(), is(100));
+        assertThat(monitor.getCount(RenderMonitor.COUNTER_DRAW), is(100L));
+        assertThat(monitor.getSampleCount(RenderMonitor.PHASE_NOTES), is(100L));
+        assertThat(monitor.getTotalNanos(RenderMonitor.PHASE_NOTES), is(5050L * 1000));
+        assertThat(monitor.getMaxNanos(RenderMonitor.PHASE_TOTAL), is(200000L));
+        // 测试百分位数的误差在 2 倍以内
+        long p50 = monitor.getPercentileNanos(RenderMonitor.PHASE_NOTES, 0.5);
+        assertThat(p50 >= 50000 && p50 < 100000, is(true));
+        assertThat(monitor.getPercentileNanos(RenderMonitor.PHASE_HEAD, 0.99), is(0L));
+        // 测试清空
+        monitor.reset();
+        assertThat(monitor.getCount(RenderMonitor.COUNTER_DRAW), is(0L));
+        assertThat(monitor.getSampleCount(RenderMonitor.PHASE_NOTES), is(0L));
+    }
+
+    @Test
+    public void recordConcurrently() throws Exception {
+        final RenderMonitor monitor = new RenderMonitor();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        monitor.record(RenderMonitor.PHASE_GRID, i + offset);
+                        monitor.increment(RenderMonitor.COUNTER_LAYOUT);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 测试无锁统计在并发时不丢失数据
+        assertThat(monitor.getSampleCount(RenderMonitor.PHASE_GRID), is(40000L));
+        assertThat(monitor.getCount(RenderMonitor.COUNTER_LAYOUT), is(40000L));
+        assertThat(monitor.getMaxNanos(RenderMonitor.PHASE_GRID), is(10002L));
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.airsaid.library.widget;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author airsaid
+ */
+public class TabTrackTest {
+
+    @Test
+    public void addAndGrow() throws Exception {
+        TabTrack track = new TabTrack(1);
+        for (int i = 0; i < 100; i++) {
+            track.add(i * 10, i % Chord.STRING, i % (TabTrack.MAX_FRET + 1));
+        }
+        assertThat(track.size(), is(100));
+        assertThat(track.getTime(57), is(570L));
+        assertThat(track.getString(57), is(57 % Chord.STRING));
+        assertThat(track.getFret(57), is(57 % (TabTrack.MAX_FRET + 1)));
+        assertThat(track.getEndTime(), is(990L));
+        track.clear();
+        assertThat(track.size(), is(0));
+        assertThat(track.getEndTime(), is(0L));
+    }
+
+    @Test
+    public void addChordSkipsMutedStrings() throws Exception {
+        TabTrack track = new TabTrack();
+        track.addChord(500, new Chord(new int[]{-1, 3, 2, 0, 1, 0}));
+        assertThat(track.size(), is(5));
+        assertThat(track.getString(0), is(1));
+        assertThat(track.getFret(0), is(3));
+        assertThat(track.getString(4), is(5));
+        assertThat(track.getTime(4), is(500L));
+    }
+
+    @Test
+    public void lowerBound() throws Exception {
+        TabTrack track = new TabTrack();
+        track.add(100, 0, 3);
+        track.add(200, 1, 5);
+        track.add(200, 2, 5);
+        track.add(300, 3, 7);
+        assertThat(track.lowerBound(0), is(0));
+        assertThat(track.lowerBound(100), is(0));
+        assertThat(track.lowerBound(101), is(1));
+        assertThat(track.lowerBound(200), is(1));
+        assertThat(track.lowerBound(201), is(3));
+        assertThat(track.lowerBound(301), is(4));
+        assertThat(new TabTrack().lowerBound(0), is(0));
+    }
+
+    @Test
+    public void visibleWindowOfLargeTrack() throws Exception {
+        TabTrack track = new TabTrack();
+        for (int i = 0; i < 50000; i++) {
+            track.add(i * 25L, i % Chord.STRING, i % 13);
+        }
+        int first = track.lowerBound(600000);
+        int last = track.lowerBound(605000);
+        assertThat(first, is(24000));
+        assertThat(last - first, is(200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outOfOrder() throws Exception {
+        TabTrack track = new TabTrack();
+        track.add(100, 0, 0);
+        track.add(99, 0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidString() throws Exception {
+        new TabTrack().add(0, Chord.STRING, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFret() throws Exception {
+        new TabTrack().add(0, 0, TabTrack.MAX_FRET + 1);
+    }
+}